@@ -0,0 +1,142 @@
+package org.github.shatterz.sentinelcore.bench;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.github.shatterz.sentinelcore.config.CoreConfig;
+import org.github.shatterz.sentinelcore.perm.PermissionManager;
+import org.github.shatterz.sentinelcore.perm.PermissionNode;
+import org.github.shatterz.sentinelcore.perm.Perms;
+import org.github.shatterz.sentinelcore.perm.RoleContextManager;
+import org.github.shatterz.sentinelcore.perm.memory.MemoryPermissionService;
+import org.github.shatterz.sentinelcore.perm.memory.RoleTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Single-threaded cost of one permission check on a {@link RoleGraph}, from the raw backend up to
+ * {@link PermissionManager#has} with its decision cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionCheckBenchmark {
+  @Param({"1", "4", "16"})
+  public int depth;
+
+  @Param({"1", "4"})
+  public int fanOut;
+
+  @Param({"8", "128", "1024"})
+  public int patterns;
+
+  private final Map<String, String> ctx = Map.of("world", "minecraft:overworld");
+
+  private CoreConfig cfg;
+  private MemoryPermissionService svc;
+  private UUID player;
+  private PermissionNode allowedNode;
+  private PermissionNode deniedNode;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    List<UUID> players = RoleGraph.players(1);
+    player = players.get(0);
+    // register before compiling so the roles precompute bitsets for them
+    allowedNode = PermissionNode.of(RoleGraph.ALLOWED);
+    deniedNode = PermissionNode.of(RoleGraph.DENIED);
+    cfg = RoleGraph.build(depth, fanOut, patterns, players);
+    svc = new MemoryPermissionService(cfg);
+    Perms.install(svc);
+    RoleContextManager.join(player).setGroup(RoleGraph.LEAF);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    RoleContextManager.clear();
+    Perms.install(null);
+  }
+
+  @Benchmark
+  public boolean backendAllowed() {
+    return svc.check(player, RoleGraph.ALLOWED, ctx);
+  }
+
+  @Benchmark
+  public boolean backendAllowedRegistered() {
+    return svc.check(player, allowedNode, ctx);
+  }
+
+  @Benchmark
+  public boolean backendDenied() {
+    return svc.check(player, RoleGraph.DENIED, ctx);
+  }
+
+  @Benchmark
+  public boolean backendDeniedRegistered() {
+    return svc.check(player, deniedNode, ctx);
+  }
+
+  @Benchmark
+  public boolean backendWildcard() {
+    return svc.check(player, RoleGraph.WILDCARD, ctx);
+  }
+
+  @Benchmark
+  public boolean backendWildcardDenied() {
+    return svc.check(player, RoleGraph.WILDCARD_DENIED, ctx);
+  }
+
+  @Benchmark
+  public boolean backendMissing() {
+    return svc.check(player, RoleGraph.MISSING, ctx);
+  }
+
+  @Benchmark
+  public List<String> backendInheritedGroups() {
+    return svc.getInheritedGroups(player);
+  }
+
+  /** Full manager path without the decision cache: backend call, op fallback and metrics. */
+  @Benchmark
+  public boolean managerUncached() {
+    return PermissionManager.has(player, RoleGraph.WILDCARD, ctx);
+  }
+
+  /** Steady state for an online player: answered from the player's decision cache. */
+  @Benchmark
+  public boolean managerCached() {
+    return PermissionManager.has(player, RoleGraph.WILDCARD);
+  }
+
+  @Benchmark
+  public boolean managerCachedRegistered() {
+    return PermissionManager.has(player, allowedNode);
+  }
+
+  @Benchmark
+  public List<String> managerInheritedGroups() {
+    return PermissionManager.getInheritedGroups(player);
+  }
+
+  /** What a config reload pays to rebuild every role. */
+  @Benchmark
+  public RoleTable compileRoles() {
+    return RoleTable.compile(cfg.permissions.roles);
+  }
+}
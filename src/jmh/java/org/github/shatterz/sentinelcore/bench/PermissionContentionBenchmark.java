@@ -0,0 +1,118 @@
+package org.github.shatterz.sentinelcore.bench;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.github.shatterz.sentinelcore.perm.DecisionCache;
+import org.github.shatterz.sentinelcore.perm.PermissionManager;
+import org.github.shatterz.sentinelcore.perm.Perms;
+import org.github.shatterz.sentinelcore.perm.RoleContextManager;
+import org.github.shatterz.sentinelcore.perm.memory.MemoryPermissionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Permission checks from many threads at once: all threads on one player (shared decision cache
+ * and metric counters), every thread on its own player, and readers racing a thread that keeps
+ * invalidating the decision caches the way reloads and role changes do.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PermissionContentionBenchmark {
+  private static final int PLAYERS = 64;
+
+  @State(Scope.Benchmark)
+  public static class Graph {
+    @Param({"4", "16"})
+    public int depth;
+
+    @Param({"4"})
+    public int fanOut;
+
+    @Param({"128"})
+    public int patterns;
+
+    final Map<String, String> ctx = Map.of("world", "minecraft:overworld");
+    final AtomicInteger nextPlayer = new AtomicInteger();
+    List<UUID> players;
+    MemoryPermissionService svc;
+
+    @Setup(Level.Trial)
+    public void setup() {
+      players = RoleGraph.players(PLAYERS);
+      svc = new MemoryPermissionService(RoleGraph.build(depth, fanOut, patterns, players));
+      Perms.install(svc);
+      for (UUID player : players) {
+        RoleContextManager.join(player).setGroup(RoleGraph.LEAF);
+      }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+      RoleContextManager.clear();
+      Perms.install(null);
+    }
+  }
+
+  /** The player a benchmark thread checks; distinct per thread until {@link #PLAYERS} wrap. */
+  @State(Scope.Thread)
+  public static class Player {
+    UUID uuid;
+
+    @Setup(Level.Trial)
+    public void setup(Graph graph) {
+      uuid = graph.players.get(graph.nextPlayer.getAndIncrement() % PLAYERS);
+    }
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public boolean backendShared(Graph graph) {
+    return graph.svc.check(graph.players.get(0), RoleGraph.WILDCARD, graph.ctx);
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public boolean managerSharedPlayer(Graph graph) {
+    return PermissionManager.has(graph.players.get(0), RoleGraph.WILDCARD);
+  }
+
+  @Benchmark
+  @Threads(Threads.MAX)
+  public boolean managerDistinctPlayers(Graph graph, Player player) {
+    return PermissionManager.has(player.uuid, RoleGraph.WILDCARD);
+  }
+
+  @Benchmark
+  @Group("invalidation")
+  @GroupThreads(7)
+  public boolean invalidationReaders(Graph graph, Player player) {
+    return PermissionManager.has(player.uuid, RoleGraph.DENIED);
+  }
+
+  @Benchmark
+  @Group("invalidation")
+  @GroupThreads(1)
+  public void invalidationWriter() {
+    DecisionCache.invalidateAll();
+  }
+}
@@ -0,0 +1,111 @@
+package org.github.shatterz.sentinelcore.bench;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.server.network.ServerPlayerEntity;
+import org.github.shatterz.sentinelcore.perm.PermissionManager;
+import org.github.shatterz.sentinelcore.perm.Perms;
+import org.github.shatterz.sentinelcore.perm.RoleContext;
+import org.github.shatterz.sentinelcore.perm.RoleContextManager;
+import org.github.shatterz.sentinelcore.perm.memory.MemoryPermissionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link PermissionManager#has(ServerPlayerEntity, String)}, the call commands and listeners make,
+ * for an online player with a world context. The player is a stub: allocated without running its
+ * constructor and given only a UUID, which is all the check reads from it. The cached benchmarks
+ * are the steady state and should report 0 B/op in {@code gc.alloc.rate.norm}; {@link #uncached}
+ * misses every time, so the backend sees the context's live flag map on each call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayerCheckBenchmark {
+  @Param({"4", "16"})
+  public int depth;
+
+  @Param({"4"})
+  public int fanOut;
+
+  @Param({"128"})
+  public int patterns;
+
+  private ServerPlayerEntity player;
+  private RoleContext ctx;
+
+  @Setup(Level.Trial)
+  public void setup() throws ReflectiveOperationException {
+    SharedConstants.createGameVersion();
+    Bootstrap.initialize();
+    UUID uuid = RoleGraph.players(1).get(0);
+    Perms.install(
+        new MemoryPermissionService(RoleGraph.build(depth, fanOut, patterns, List.of(uuid))));
+    ctx = RoleContextManager.join(uuid);
+    ctx.setGroup(RoleGraph.LEAF);
+    ctx.setWorldContext("minecraft:overworld");
+    player = stubPlayer(uuid);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    RoleContextManager.clear();
+    Perms.install(null);
+  }
+
+  @Benchmark
+  public boolean cachedAllowed() {
+    return PermissionManager.has(player, RoleGraph.WILDCARD);
+  }
+
+  @Benchmark
+  public boolean cachedDenied() {
+    return PermissionManager.has(player, RoleGraph.WILDCARD_DENIED);
+  }
+
+  /** An unregistered node no role mentions; a cached denial costs what a cached grant does. */
+  @Benchmark
+  public boolean cachedMissing() {
+    return PermissionManager.has(player, RoleGraph.MISSING);
+  }
+
+  /** Every call misses; the only allocation left is the decision stored in the cache. */
+  @Benchmark
+  public boolean uncached() {
+    ctx.invalidateDecisions();
+    return PermissionManager.has(player, RoleGraph.WILDCARD);
+  }
+
+  /** A player entity outside any world: allocated without its constructor, holding a UUID. */
+  private static ServerPlayerEntity stubPlayer(UUID uuid) throws ReflectiveOperationException {
+    Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+    Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+    theUnsafe.setAccessible(true);
+    Object unsafe = theUnsafe.get(null);
+    ServerPlayerEntity player =
+        (ServerPlayerEntity)
+            unsafeClass
+                .getMethod("allocateInstance", Class.class)
+                .invoke(unsafe, ServerPlayerEntity.class);
+    player.setUuid(uuid);
+    return player;
+  }
+}
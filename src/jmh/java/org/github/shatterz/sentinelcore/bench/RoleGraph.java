@@ -0,0 +1,97 @@
+package org.github.shatterz.sentinelcore.bench;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.github.shatterz.sentinelcore.config.CoreConfig;
+
+/**
+ * Synthetic role graph for the permission benchmarks.
+ *
+ * <p>The graph is layered: a single {@code base} role, then {@code depth - 1} layers of {@code
+ * fanOut} roles that each inherit every role of the previous layer (so {@code fanOut > 1} produces
+ * diamonds), and a single {@code leaf} role on top that all benchmark players are assigned to. Each
+ * role carries {@code patterns} allow entries, a quarter of them wildcards, and denies a quarter of
+ * the nodes its ancestors grant, so both the deny and the wildcard paths are exercised.
+ */
+public final class RoleGraph {
+  public static final String BASE = "base";
+  public static final String LEAF = "leaf";
+
+  /** Granted by {@code base}, not touched by anything above it. */
+  public static final String ALLOWED = "bench.base.n1";
+
+  /** Granted by {@code base}, denied again by {@code leaf}. */
+  public static final String DENIED = "bench.base.n2";
+
+  /** Only matched by the {@code bench.base.w0.*} wildcard. */
+  public static final String WILDCARD = "bench.base.w0.some.deep.node";
+
+  /** Matched by {@code bench.base.w0.*} but denied by {@code leaf}'s narrower wildcard. */
+  public static final String WILDCARD_DENIED = "bench.base.w0.deny.node";
+
+  /** Granted by nobody; the walk falls off the trie. */
+  public static final String MISSING = "bench.nobody.has.this";
+
+  private RoleGraph() {}
+
+  /**
+   * Build a config with the given shape and assign {@code players} to {@code leaf}.
+   *
+   * @param patterns allow entries per role; at least 4 so every probe node exists
+   */
+  public static CoreConfig build(int depth, int fanOut, int patterns, List<UUID> players) {
+    if (depth < 1 || fanOut < 1 || patterns < 4) {
+      throw new IllegalArgumentException("depth, fanOut >= 1 and patterns >= 4 required");
+    }
+    CoreConfig cfg = new CoreConfig();
+    cfg.permissions.defaultRole = BASE;
+
+    List<String> previous = List.of(BASE);
+    cfg.permissions.roles.put(BASE, role(BASE, patterns, List.of()));
+    for (int layer = 1; layer < depth; layer++) {
+      List<String> current = new ArrayList<>(fanOut);
+      for (int i = 0; i < fanOut; i++) {
+        String name = "l" + layer + "r" + i;
+        cfg.permissions.roles.put(name, role(name, patterns, previous));
+        current.add(name);
+      }
+      previous = current;
+    }
+    cfg.permissions.roles.put(LEAF, role(LEAF, patterns, previous));
+
+    for (UUID player : players) {
+      cfg.permissions.userRoles.put(player.toString(), LEAF);
+    }
+    return cfg;
+  }
+
+  /** Deterministic player ids, so runs with the same parameters see the same config. */
+  public static List<UUID> players(int count) {
+    List<UUID> players = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      players.add(new UUID(0x5e17_1e1L, i));
+    }
+    return players;
+  }
+
+  private static CoreConfig.Role role(String name, int patterns, List<String> parents) {
+    CoreConfig.Role role = new CoreConfig.Role();
+    role.inherits.addAll(parents);
+    for (int k = 0; k < patterns; k++) {
+      role.allow.add(k % 4 == 0 ? "bench." + name + ".w" + k + ".*" : "bench." + name + ".n" + k);
+    }
+    // take back a quarter of what each parent grants: plain nodes and the inside of wildcards
+    for (String parent : parents) {
+      for (int k = 0; k < patterns; k++) {
+        if (k % 4 == 2) role.deny.add("bench." + parent + ".n" + k);
+        if (k % 8 == 0) role.deny.add("bench." + parent + ".w" + k + ".deny.*");
+      }
+    }
+    if (LEAF.equals(name)) {
+      role.deny.add(DENIED);
+      role.deny.add("bench.base.w0.deny.*");
+    }
+    return role;
+  }
+}
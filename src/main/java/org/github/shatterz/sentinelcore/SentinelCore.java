@@ -1,6 +1,7 @@
 package org.github.shatterz.sentinelcore;
 
 import net.fabricmc.api.ModInitializer;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import org.github.shatterz.sentinelcore.audit.AuditManager;
 import org.github.shatterz.sentinelcore.audit.SclogsCommands;
 import org.github.shatterz.sentinelcore.flags.FeatureFlagRegistry;
@@ -10,8 +11,12 @@ import org.github.shatterz.sentinelcore.movement.MoveCommands;
 import org.github.shatterz.sentinelcore.movement.MovementManager;
 import org.github.shatterz.sentinelcore.names.CommunityCommands;
 import org.github.shatterz.sentinelcore.names.CommunityPrefixManager;
+import org.github.shatterz.sentinelcore.names.NameUpdateListener;
+import org.github.shatterz.sentinelcore.perm.FabricPermissionsProvider;
 import org.github.shatterz.sentinelcore.perm.PermCommands;
 import org.github.shatterz.sentinelcore.perm.PermissionBootstrap;
+import org.github.shatterz.sentinelcore.perm.TimedGrants;
+import org.github.shatterz.sentinelcore.perm.events.ContextChangeDispatcher;
 import org.github.shatterz.sentinelcore.perm.events.PlayerConnectionListener;
 import org.github.shatterz.sentinelcore.protection.SpawnProtCommands;
 import org.github.shatterz.sentinelcore.protection.SpawnProtectionManager;
@@ -27,8 +32,12 @@ public final class SentinelCore implements ModInitializer {
 
     // Initialize permission system
     PermissionBootstrap.init();
+    TimedGrants.init();
+    FabricPermissionsProvider.register();
     PermCommands.register();
     PlayerConnectionListener.register();
+    ContextChangeDispatcher.register();
+    NameUpdateListener.register();
 
     // Initialize community prefix system
     CommunityPrefixManager.init();
@@ -41,6 +50,8 @@ public final class SentinelCore implements ModInitializer {
     AuditManager.applyConfig(org.github.shatterz.sentinelcore.config.ConfigManager.get());
     org.github.shatterz.sentinelcore.config.ConfigManager.addReloadListener(
         AuditManager::applyConfig);
+    // audit events are written by a background thread; get the queue onto disk before exit
+    ServerLifecycleEvents.SERVER_STOPPING.register(server -> AuditManager.flushAndClose());
     SclogsCommands.register();
 
     // Movement manager config + test commands
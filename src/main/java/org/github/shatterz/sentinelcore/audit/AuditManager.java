@@ -39,11 +39,11 @@ public final class AuditManager {
       }
     }
     if (fileSink == null) {
-      fileSink = new JsonlFileAuditSink(base, a.rotation, a.retentionDays);
+      fileSink = new JsonlFileAuditSink(base, a.rotation, a.retentionDays, a.queueCapacity);
       SINKS.add(fileSink);
     }
     fileSink.reconfigure(a);
-    fileSink.cleanupOldFiles();
+    fileSink.scheduleMaintenance();
 
     // ledger sink via logger
     boolean wantLedger =
@@ -101,6 +101,25 @@ public final class AuditManager {
     writeAll(ev);
   }
 
+  /** The file the audit writer currently appends to, or null if none is open. */
+  static Path activeFile() {
+    for (AuditSink s : SINKS) {
+      if (s instanceof JsonlFileAuditSink f) return f.activeFile();
+    }
+    return null;
+  }
+
+  /** Flush queued events to disk and close the sinks; a later event reopens them. */
+  public static void flushAndClose() {
+    for (AuditSink s : SINKS) {
+      try {
+        s.close();
+      } catch (Throwable t) {
+        LOG.warn("Audit sink close failed: {}", s.getClass().getSimpleName(), t);
+      }
+    }
+  }
+
   private static void writeAll(AuditEvent ev) {
     for (AuditSink s : SINKS) {
       try {
@@ -0,0 +1,198 @@
+package org.github.shatterz.sentinelcore.audit;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+import org.github.shatterz.sentinelcore.config.CoreConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Background housekeeping of the audit directory. Each run deletes files older than {@code
+ * retentionDays}, compresses the remaining closed files to {@code .jsonl.gz}, then deletes the
+ * oldest files until the directory fits in {@code maxTotalSizeMb}. The newest file and the one the
+ * writer has open are never touched.
+ *
+ * <p>Runs every ten minutes, after each rotation and after a config reload, on its own daemon
+ * thread; requests made while a run is already queued are merged into it.
+ */
+final class AuditRetention {
+  private static final Logger LOG = LoggerFactory.getLogger("SentinelCore/AuditSink");
+  private static final long INTERVAL_MINUTES = 10;
+  private static final long MB = 1024L * 1024L;
+
+  private final JsonlFileAuditSink sink;
+  private final AtomicBoolean queued = new AtomicBoolean();
+  private volatile int retentionDays;
+  private volatile boolean compress = true;
+  private volatile long maxTotalBytes;
+  private ScheduledExecutorService executor; // guarded by this
+
+  AuditRetention(JsonlFileAuditSink sink, int retentionDays) {
+    this.sink = sink;
+    this.retentionDays = retentionDays;
+  }
+
+  void reconfigure(CoreConfig.Audit auditCfg) {
+    this.retentionDays = auditCfg.retentionDays;
+    this.compress = auditCfg.compressRotated;
+    this.maxTotalBytes = Math.max(0, auditCfg.maxTotalSizeMb) * MB;
+  }
+
+  /** Schedule a run on the background thread, starting the periodic schedule on first use. */
+  synchronized void runSoon() {
+    if (executor == null) {
+      executor =
+          Executors.newSingleThreadScheduledExecutor(
+              r -> {
+                Thread t = new Thread(r, "SentinelCore-AuditRetention");
+                t.setDaemon(true);
+                return t;
+              });
+      executor.scheduleWithFixedDelay(
+          this::run, INTERVAL_MINUTES, INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+    if (queued.compareAndSet(false, true)) {
+      executor.execute(
+          () -> {
+            queued.set(false);
+            run();
+          });
+    }
+  }
+
+  private void run() {
+    try {
+      maintain(sink.baseDir());
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("Audit retention run failed", e);
+    }
+  }
+
+  private void maintain(Path dir) throws IOException {
+    deleteTempFiles(dir);
+    List<Path> files = JsonlFileAuditSink.listFiles(dir);
+    if (files.isEmpty()) return;
+    Path newest = files.get(files.size() - 1);
+    Path active = sink.activeFile();
+    List<Path> closed = new ArrayList<>(files.size());
+    for (Path p : files) {
+      if (!p.equals(newest) && !p.equals(active)) closed.add(p);
+    }
+
+    int deleted = 0;
+    if (retentionDays > 0) {
+      Instant cutoff = Instant.now().minusSeconds(retentionDays * 86400L);
+      for (Iterator<Path> it = closed.iterator(); it.hasNext(); ) {
+        Path p = it.next();
+        if (Files.getLastModifiedTime(p).toInstant().isBefore(cutoff)) {
+          Files.deleteIfExists(p);
+          it.remove();
+          deleted++;
+        }
+      }
+    }
+
+    int compressed = 0;
+    if (compress) {
+      for (int i = 0; i < closed.size(); i++) {
+        Path p = closed.get(i);
+        if (JsonlFileAuditSink.isCompressed(p)) continue;
+        try {
+          closed.set(i, compress(p));
+          compressed++;
+        } catch (IOException e) {
+          LOG.warn("Failed to compress audit file {}", p, e);
+        }
+      }
+    }
+
+    long total = 0;
+    if (maxTotalBytes > 0) {
+      total = size(closed) + Files.size(newest);
+      if (active != null && !active.equals(newest) && Files.exists(active)) {
+        total += Files.size(active);
+      }
+      for (Iterator<Path> it = closed.iterator(); it.hasNext() && total > maxTotalBytes; ) {
+        Path p = it.next(); // oldest first
+        total -= Files.size(p);
+        Files.deleteIfExists(p);
+        it.remove();
+        deleted++;
+      }
+    }
+
+    if (compressed > 0 || deleted > 0) {
+      LOG.info("Audit retention: compressed {}, deleted {} file(s)", compressed, deleted);
+    }
+  }
+
+  /**
+   * Stream {@code file} into {@code file.gz} next to it, keeping its modification time for the age
+   * check, and remove the original once the compressed copy is in place. An existing {@code
+   * file.gz} is never replaced: its records are kept and {@code file} is added after them as
+   * another gzip member, which {@link java.util.zip.GZIPInputStream} reads as one stream.
+   */
+  private static Path compress(Path file) throws IOException {
+    Path gz = file.resolveSibling(file.getFileName() + ".gz");
+    Path tmp = file.resolveSibling(file.getFileName() + ".gz.tmp");
+    FileTime mtime = Files.getLastModifiedTime(file);
+    boolean extend = Files.exists(gz); // only this thread creates .gz files
+    try {
+      if (extend) {
+        Files.copy(gz, tmp, StandardCopyOption.REPLACE_EXISTING);
+      } else {
+        Files.deleteIfExists(tmp);
+      }
+      try (InputStream in = Files.newInputStream(file);
+          OutputStream out =
+              new GZIPOutputStream(
+                  Files.newOutputStream(tmp, StandardOpenOption.CREATE, StandardOpenOption.APPEND),
+                  1 << 16)) {
+        in.transferTo(out);
+      }
+    } catch (IOException e) {
+      Files.deleteIfExists(tmp);
+      throw e;
+    }
+    Files.setLastModifiedTime(tmp, mtime);
+    // when extending, tmp holds every byte of gz followed by the new member
+    Files.move(tmp, gz, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    Files.delete(file);
+    return gz;
+  }
+
+  /** Leftovers of a compression interrupted by a crash or shutdown. */
+  private static void deleteTempFiles(Path dir) throws IOException {
+    if (!Files.isDirectory(dir)) return;
+    try (Stream<Path> files = Files.list(dir)) {
+      for (Path p : (Iterable<Path>) files::iterator) {
+        String name = p.getFileName().toString();
+        if (name.startsWith("audit-") && name.endsWith(".jsonl.gz.tmp")) {
+          Files.deleteIfExists(p);
+        }
+      }
+    }
+  }
+
+  private static long size(List<Path> files) throws IOException {
+    long total = 0;
+    for (Path p : files) total += Files.size(p);
+    return total;
+  }
+}
@@ -0,0 +1,99 @@
+package org.github.shatterz.sentinelcore.audit;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free ring buffer between the threads producing audit events and the writer.
+ *
+ * <p>Each slot carries a sequence number telling producers whether it is free for the current lap
+ * and the consumer whether it holds a published element, so {@link #offer} and {@link #poll} are a
+ * CAS on the tail or head plus two slot writes, and a full buffer is detected without locking. The
+ * writer is the only regular consumer; {@link #poll} is nevertheless safe from any thread, which
+ * lets a producer evict the oldest event when the overflow policy asks for it.
+ *
+ * @param <E> element type
+ */
+final class AuditRingBuffer<E> {
+  private final int mask;
+  private final AtomicLongArray sequence;
+  private final AtomicReferenceArray<E> items;
+  private final AtomicLong head = new AtomicLong(); // next position to take
+  private final AtomicLong tail = new AtomicLong(); // next position to fill
+
+  /** @param capacity rounded up to a power of two */
+  AuditRingBuffer(int capacity) {
+    int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+    this.mask = size - 1;
+    this.sequence = new AtomicLongArray(size);
+    this.items = new AtomicReferenceArray<>(size);
+    for (int i = 0; i < size; i++) {
+      sequence.set(i, i);
+    }
+  }
+
+  int capacity() {
+    return mask + 1;
+  }
+
+  /** Approximate number of queued elements. */
+  int size() {
+    return (int) Math.max(0, tail.get() - head.get());
+  }
+
+  /** @return false if the buffer is full */
+  boolean offer(E e) {
+    long pos = tail.get();
+    while (true) {
+      int slot = (int) (pos & mask);
+      long diff = sequence.get(slot) - pos;
+      if (diff == 0) {
+        if (tail.compareAndSet(pos, pos + 1)) {
+          items.set(slot, e);
+          sequence.set(slot, pos + 1); // publish to the consumer
+          return true;
+        }
+        pos = tail.get();
+      } else if (diff < 0) {
+        return false; // slot still holds the element from the previous lap
+      } else {
+        pos = tail.get(); // another producer took this position
+      }
+    }
+  }
+
+  /** @return the oldest element, or null if the buffer is empty */
+  E poll() {
+    long pos = head.get();
+    while (true) {
+      int slot = (int) (pos & mask);
+      long diff = sequence.get(slot) - (pos + 1);
+      if (diff == 0) {
+        if (head.compareAndSet(pos, pos + 1)) {
+          E e = items.get(slot);
+          items.set(slot, null);
+          sequence.set(slot, pos + mask + 1); // free for the next lap
+          return e;
+        }
+        pos = head.get();
+      } else if (diff < 0) {
+        return null; // not published yet
+      } else {
+        pos = head.get();
+      }
+    }
+  }
+
+  /** Move up to {@code max} elements into {@code out}; returns how many were moved. */
+  int drainTo(Collection<? super E> out, int max) {
+    int n = 0;
+    E e;
+    while (n < max && (e = poll()) != null) {
+      out.add(e);
+      n++;
+    }
+    return n;
+  }
+}
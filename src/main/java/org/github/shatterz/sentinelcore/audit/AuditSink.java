@@ -6,4 +6,7 @@ interface AuditSink {
   void write(AuditEvent event);
 
   void reconfigure(CoreConfig.Audit auditCfg);
+
+  /** Write out anything buffered and release files; called when the server stops. */
+  default void close() {}
 }
@@ -0,0 +1,146 @@
+package org.github.shatterz.sentinelcore.audit;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Last lines of the audit log for {@code /sclogs tail}. The newest file is read backwards from its
+ * end in fixed-size blocks, so the cost depends on how many lines are wanted rather than on the
+ * size of the file. If it holds fewer lines the read continues into the previous segments;
+ * compressed segments cannot be read backwards and are streamed instead, keeping only their last
+ * lines. A trailing line without a newline is one the writer is still appending and is skipped.
+ */
+final class AuditTail {
+  private static final int BLOCK = 64 * 1024;
+  private static final byte[] EMPTY = new byte[0];
+
+  /** Lines oldest first, and the files they came from, oldest first. */
+  static final class Result {
+    private final List<String> lines;
+    private final List<Path> files;
+
+    private Result(List<String> lines, List<Path> files) {
+      this.lines = lines;
+      this.files = files;
+    }
+
+    List<String> lines() {
+      return lines;
+    }
+
+    List<Path> files() {
+      return files;
+    }
+  }
+
+  private AuditTail() {}
+
+  /**
+   * Read the last {@code n} lines. The directory is only listed when {@code active} (the file the
+   * writer has open, if known) does not hold enough lines on its own.
+   */
+  static Result read(Path dir, Path active, int n) throws IOException {
+    List<String> lines = new ArrayList<>(n); // newest first until the end
+    List<Path> files = new ArrayList<>();
+    if (active != null && Files.isRegularFile(active)) {
+      readBackwards(active, n, lines);
+      files.add(active);
+    }
+    if (lines.size() < n) {
+      List<Path> all = JsonlFileAuditSink.listFiles(dir);
+      int from = files.isEmpty() ? all.size() : all.indexOf(active);
+      if (from < 0) from = all.size();
+      for (int i = from - 1; i >= 0 && lines.size() < n; i--) {
+        Path p = all.get(i);
+        try {
+          readFile(p, n, lines);
+        } catch (NoSuchFileException compressedMeanwhile) {
+          p = p.resolveSibling(p.getFileName() + ".gz");
+          readFile(p, n, lines);
+        }
+        files.add(p);
+      }
+    }
+    Collections.reverse(lines);
+    Collections.reverse(files);
+    return new Result(lines, files);
+  }
+
+  private static void readFile(Path file, int n, List<String> out) throws IOException {
+    if (JsonlFileAuditSink.isCompressed(file)) {
+      readForwards(file, n, out);
+    } else {
+      readBackwards(file, n, out);
+    }
+  }
+
+  /** Add lines from the end of {@code file}, newest first, until {@code out} holds {@code n}. */
+  private static void readBackwards(Path file, int n, List<String> out) throws IOException {
+    try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer block = ByteBuffer.allocate(BLOCK);
+      byte[] b = block.array();
+      byte[] carry = EMPTY; // end of a line whose start lies in an earlier block
+      boolean partial = true; // still inside the bytes after the file's last newline
+      long pos = ch.size();
+      while (pos > 0 && out.size() < n) {
+        int len = (int) Math.min(BLOCK, pos);
+        pos -= len;
+        block.clear().limit(len);
+        while (block.hasRemaining()) {
+          if (ch.read(block, pos + block.position()) < 0) break;
+        }
+        int end = len;
+        for (int i = len - 1; i >= 0; i--) {
+          if (b[i] != '\n') continue;
+          if (!partial) add(concat(b, i + 1, end, carry), out);
+          partial = false;
+          carry = EMPTY;
+          end = i;
+          if (out.size() >= n) return;
+        }
+        if (!partial) carry = concat(b, 0, end, carry);
+      }
+      if (pos == 0 && out.size() < n) add(carry, out); // the file's first line
+    }
+  }
+
+  /** Stream a compressed file, keeping only its last lines, and add them newest first. */
+  private static void readForwards(Path file, int n, List<String> out) throws IOException {
+    int want = n - out.size();
+    Deque<String> ring = new ArrayDeque<>(want);
+    try (BufferedReader r = JsonlFileAuditSink.openReader(file)) {
+      String line;
+      while ((line = r.readLine()) != null) {
+        if (line.isEmpty()) continue;
+        if (ring.size() == want) ring.removeFirst();
+        ring.addLast(line);
+      }
+    }
+    for (var it = ring.descendingIterator(); it.hasNext(); ) {
+      out.add(it.next());
+    }
+  }
+
+  private static void add(byte[] line, List<String> out) {
+    if (line.length > 0) out.add(new String(line, StandardCharsets.UTF_8));
+  }
+
+  private static byte[] concat(byte[] b, int from, int to, byte[] tail) {
+    byte[] line = new byte[to - from + tail.length];
+    System.arraycopy(b, from, line, 0, to - from);
+    System.arraycopy(tail, 0, line, to - from, tail.length);
+    return line;
+  }
+}
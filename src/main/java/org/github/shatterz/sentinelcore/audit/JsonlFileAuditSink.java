@@ -3,104 +3,431 @@ package org.github.shatterz.sentinelcore.audit;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
-import java.io.BufferedWriter;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
-import java.nio.file.attribute.FileTime;
-import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 import net.fabricmc.loader.api.FabricLoader;
 import org.github.shatterz.sentinelcore.config.CoreConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** Simple JSONL sink with daily rotation and retention cleanup. */
+/**
+ * JSONL sink with daily, size or hybrid rotation and retention cleanup.
+ *
+ * <p>With {@code rotation: daily} there is one {@code audit-YYYY-MM-DD.jsonl} per day. {@code size}
+ * writes numbered segments {@code audit-YYYY-MM-DD.N.jsonl} (the date the segment was opened) and
+ * starts the next one before a write would take the current one past {@code maxFileSizeMb}; {@code
+ * hybrid} also starts a new segment at midnight. The writer counts the bytes it appends instead of
+ * asking the file system, claims each new segment with {@code CREATE_NEW} so two writers can never
+ * share one, and after a restart keeps appending to the day's last segment while it has room.
+ * Closed files are compressed and pruned in the background by {@link AuditRetention}; {@link
+ * #listFiles} and {@link #openReader} treat {@code .jsonl.gz} files like plain ones.
+ *
+ * <p>{@link #write} only puts the event into an {@link AuditRingBuffer}; a dedicated writer thread
+ * drains it in batches of up to {@code batchSize} events, serializes them and appends each batch to
+ * a long-lived {@link FileChannel} with a single write and sync. A batch goes out as soon as it is
+ * full, and otherwise at the latest {@code flushIntervalMs} after its first event, so the server
+ * thread never touches the disk. When the buffer is full the {@code overflowPolicy} decides: {@code
+ * block} waits for the writer, {@code drop-oldest} evicts the oldest queued event, {@code
+ * drop-with-counter} discards the new one. Dropped events are counted and the count is written to
+ * the log as an {@code audit_dropped} event once the writer catches up.
+ *
+ * <p>{@link #close} (on server stop) drains everything queued, then closes the file; a later write
+ * starts a new writer.
+ */
 final class JsonlFileAuditSink implements AuditSink {
   private static final Logger LOG = LoggerFactory.getLogger("SentinelCore/AuditSink");
   private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+  private static final Pattern FILE_NAME =
+      Pattern.compile("audit-(\\d{4}-\\d{2}-\\d{2})(?:\\.(\\d{1,9}))?\\.jsonl(\\.gz)?");
+  private static final long MB = 1024L * 1024L;
 
   static {
     MAPPER.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
     MAPPER.registerModule(new JavaTimeModule());
   }
 
-  private Path baseDir; // <gameDir>/logs/<directory>
-  private String rotation; // daily|size (size ignored for now)
-  private int retentionDays;
+  private enum Overflow {
+    BLOCK,
+    DROP_OLDEST,
+    DROP_WITH_COUNTER;
 
-  JsonlFileAuditSink(Path baseDir, String rotation, int retentionDays) {
+    static Overflow parse(String s) {
+      if (s != null) {
+        try {
+          return valueOf(s.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException ignored) {
+          LOG.warn("Unknown audit overflowPolicy '{}', using drop-with-counter", s);
+        }
+      }
+      return DROP_WITH_COUNTER;
+    }
+  }
+
+  private enum Rotation {
+    DAILY,
+    SIZE,
+    HYBRID;
+
+    static Rotation parse(String s) {
+      if (s != null) {
+        try {
+          return valueOf(s.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ignored) {
+          LOG.warn("Unknown audit rotation '{}', using daily", s);
+        }
+      }
+      return DAILY;
+    }
+  }
+
+  private final AuditRingBuffer<AuditEvent> queue;
+  private final AtomicLong dropped = new AtomicLong();
+  private volatile Path baseDir; // <gameDir>/logs/<directory>
+  private volatile Rotation rotation;
+  private volatile long maxFileBytes = 10 * MB;
+  private volatile long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(200);
+  private volatile int batchSize = 512;
+  private volatile Overflow overflow = Overflow.DROP_WITH_COUNTER;
+  private volatile Thread writer;
+  private volatile boolean closing;
+  private final AuditRetention retention;
+
+  // writer thread only
+  private FileChannel channel;
+  private volatile Path channelPath; // also read by the retention job
+  private LocalDate channelDay;
+  private int channelIndex; // 0 for a daily file, else the segment number
+  private long channelBytes; // size of the open file, counted as we append
+  private final ByteArrayOutputStream buf = new ByteArrayOutputStream(1 << 16);
+
+  JsonlFileAuditSink(Path baseDir, String rotation, int retentionDays, int queueCapacity) {
     this.baseDir = baseDir;
-    this.rotation = rotation;
-    this.retentionDays = retentionDays;
+    this.rotation = Rotation.parse(rotation);
+    this.queue = new AuditRingBuffer<>(queueCapacity);
+    this.retention = new AuditRetention(this, retentionDays);
   }
 
   @Override
   public void reconfigure(CoreConfig.Audit auditCfg) {
     Path base = defaultBaseDir(auditCfg.directory != null ? auditCfg.directory : "sentinelcore");
     this.baseDir = base;
-    this.rotation = auditCfg.rotation != null ? auditCfg.rotation : "daily";
-    this.retentionDays = auditCfg.retentionDays;
+    this.rotation = Rotation.parse(auditCfg.rotation);
+    this.maxFileBytes = Math.max(1, auditCfg.maxFileSizeMb) * MB;
+    this.retention.reconfigure(auditCfg);
+    this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, auditCfg.flushIntervalMs));
+    this.batchSize = Math.max(1, auditCfg.batchSize);
+    this.overflow = Overflow.parse(auditCfg.overflowPolicy);
+    if (auditCfg.queueCapacity > queue.capacity()) {
+      LOG.info("Audit queueCapacity {} takes effect after a restart", auditCfg.queueCapacity);
+    }
   }
 
   @Override
   public void write(AuditEvent event) {
+    Thread w = writer;
+    if (w == null || closing) {
+      w = start();
+    }
+    while (!queue.offer(event)) {
+      switch (overflow) {
+        case BLOCK -> {
+          if (!w.isAlive()) {
+            dropped.incrementAndGet();
+            return;
+          }
+          LockSupport.unpark(w);
+          LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+        }
+        case DROP_OLDEST -> {
+          if (queue.poll() != null) dropped.incrementAndGet();
+        }
+        case DROP_WITH_COUNTER -> {
+          dropped.incrementAndGet();
+          return;
+        }
+      }
+    }
+    if (queue.size() >= batchSize) {
+      LockSupport.unpark(w); // a full batch is ready: don't wait for the interval
+    }
+  }
+
+  /** Write out everything queued, then stop the writer and close the file. */
+  @Override
+  public synchronized void close() {
+    Thread w = writer;
+    if (w == null) return;
+    closing = true;
+    LockSupport.unpark(w);
     try {
-      Files.createDirectories(baseDir);
-      Path file = currentFile(event.ts);
-      try (BufferedWriter w =
-          Files.newBufferedWriter(
-              file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
-        String json = MAPPER.writeValueAsString(event);
-        w.write(json);
-        w.newLine();
+      w.join(TimeUnit.SECONDS.toMillis(5));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    if (w.isAlive()) {
+      LOG.warn("Audit writer did not finish within 5s; {} event(s) may be lost", queue.size());
+    }
+    writer = null;
+    closing = false;
+  }
+
+  /** Events discarded by the overflow policy and not yet reported in the log. */
+  long dropped() {
+    return dropped.get();
+  }
+
+  private synchronized Thread start() {
+    Thread w = writer;
+    if (w != null && !closing) return w;
+    if (w != null) {
+      close(); // let the previous writer finish before a new one takes the file
+    }
+    w = new Thread(this::run, "SentinelCore-AuditWriter");
+    w.setDaemon(true);
+    w.start(); // before publishing, so a blocked producer never sees it as dead
+    writer = w;
+    return w;
+  }
+
+  private void run() {
+    List<AuditEvent> batch = new ArrayList<>();
+    while (true) {
+      boolean stop = closing; // read before draining, so nothing queued before close is missed
+      int n = queue.drainTo(batch, batchSize);
+      long lost = dropped.getAndSet(0);
+      if (lost > 0) {
+        LOG.warn("Audit queue overflowed; dropped {} event(s)", lost);
+        batch.add(AuditEvent.system("audit_dropped", "queue_overflow", Map.of("count", lost)));
+      }
+      if (!batch.isEmpty()) {
+        writeBatch(batch);
+        batch.clear();
+      }
+      if (n >= batchSize) continue; // more may be waiting
+      if (stop) break;
+      LockSupport.parkNanos(this, flushIntervalNanos);
+    }
+    closeChannel();
+  }
+
+  /**
+   * Serialize the batch and append it with one write and one sync per file it touches, starting a
+   * new file wherever the rotation policy asks for one.
+   */
+  private void writeBatch(List<AuditEvent> batch) {
+    try {
+      for (AuditEvent event : batch) {
+        byte[] line;
+        try {
+          line = MAPPER.writeValueAsBytes(event);
+        } catch (IOException ex) {
+          LOG.error("Failed to serialize audit event", ex);
+          continue;
+        }
+        LocalDate day = event.ts.atZone(ZoneId.systemDefault()).toLocalDate();
+        long pending = buf.size() + line.length + 1L;
+        if (channel == null || (channelDay != null && day.isAfter(channelDay) && rollsDaily())) {
+          append();
+          open(day);
+        } else if (rotation != Rotation.DAILY && channelBytes + pending > maxFileBytes) {
+          append();
+          if (channelBytes > 0) openNext(); // an oversized event still goes into an empty file
+        }
+        buf.write(line);
+        buf.write('\n');
       }
+      append();
     } catch (IOException ex) {
-      LOG.error("Failed to write audit event", ex);
-    }
-  }
-
-  private Path currentFile(Instant ts) {
-    if ("daily".equalsIgnoreCase(rotation)) {
-      LocalDate day = ts.atZone(ZoneId.systemDefault()).toLocalDate();
-      String name = "audit-" + day.format(DateTimeFormatter.ISO_DATE) + ".jsonl";
-      return baseDir.resolve(name);
-    }
-    // default fallback to daily
-    LocalDate day = ts.atZone(ZoneId.systemDefault()).toLocalDate();
-    String name = "audit-" + day.format(DateTimeFormatter.ISO_DATE) + ".jsonl";
-    return baseDir.resolve(name);
-  }
-
-  void cleanupOldFiles() {
-    if (retentionDays <= 0) return;
-    try (Stream<Path> files = Files.list(baseDir)) {
-      Instant cutoff = Instant.now().minusSeconds(retentionDays * 86400L);
-      files
-          .filter(
-              p ->
-                  p.getFileName().toString().startsWith("audit-")
-                      && p.toString().endsWith(".jsonl"))
-          .sorted(Comparator.naturalOrder())
-          .forEach(
-              p -> {
-                try {
-                  FileTime ft = Files.getLastModifiedTime(p);
-                  if (ft.toInstant().isBefore(cutoff)) {
-                    Files.deleteIfExists(p);
-                  }
-                } catch (IOException ignored) {
-                }
-              });
+      LOG.error("Failed to write audit events to {}", channelPath, ex);
+      closeChannel(); // reopen on the next batch
+    } finally {
+      buf.reset();
+    }
+  }
+
+  private boolean rollsDaily() {
+    return rotation != Rotation.SIZE;
+  }
+
+  /** Write out what {@link #writeBatch} has serialized so far into the open file. */
+  private void append() throws IOException {
+    if (buf.size() == 0 || channel == null) return;
+    ByteBuffer bytes = ByteBuffer.wrap(buf.toByteArray());
+    while (bytes.hasRemaining()) {
+      channelBytes += channel.write(bytes);
+    }
+    channel.force(false);
+    buf.reset();
+  }
+
+  /**
+   * Open the file for {@code day}: the daily file, or the day's last segment while it has room. A
+   * file that was already compressed is never recreated; daily rotation then continues in the
+   * day's segments instead (e.g. after a restart that switched back from size or hybrid rotation).
+   */
+  private void open(LocalDate day) throws IOException {
+    closeChannel();
+    Files.createDirectories(baseDir);
+    if (rotation == Rotation.DAILY && !compressedExists(day, 0)) {
+      openFile(day, 0, StandardOpenOption.CREATE);
+      retention.runSoon();
+      return;
+    }
+    int last = lastSegment(day);
+    if (last > 0 && Files.exists(baseDir.resolve(fileName(day, last)))) {
+      openFile(day, last, StandardOpenOption.CREATE);
+      if (rotation == Rotation.DAILY || channelBytes < maxFileBytes) return;
+    }
+    channelDay = day;
+    channelIndex = last; // a compressed last segment is never reopened
+    openNext();
+  }
+
+  /** Start the segment after the current one, skipping numbers another writer already took. */
+  private void openNext() throws IOException {
+    LocalDate day = channelDay;
+    int index = channelIndex;
+    closeChannel();
+    while (true) {
+      if (compressedExists(day, ++index)) continue;
+      try {
+        openFile(day, index, StandardOpenOption.CREATE_NEW);
+        retention.runSoon(); // compress the segment just closed
+        return;
+      } catch (FileAlreadyExistsException taken) {
+        // keep counting up
+      }
+    }
+  }
+
+  private void openFile(LocalDate day, int index, StandardOpenOption create) throws IOException {
+    Path file = baseDir.resolve(fileName(day, index));
+    channel = FileChannel.open(file, create, StandardOpenOption.APPEND);
+    channelPath = file;
+    channelDay = day;
+    channelIndex = index;
+    channelBytes = channel.size();
+  }
+
+  private void closeChannel() {
+    if (channel == null) return;
+    try {
+      channel.close();
+    } catch (IOException ex) {
+      LOG.warn("Failed to close audit file {}", channelPath, ex);
+    }
+    channel = null;
+    channelPath = null;
+  }
+
+  private boolean compressedExists(LocalDate day, int index) {
+    return Files.exists(baseDir.resolve(fileName(day, index) + ".gz"));
+  }
+
+  private int lastSegment(LocalDate day) throws IOException {
+    String date = day.format(DateTimeFormatter.ISO_DATE);
+    int last = 0;
+    for (Path p : listFiles(baseDir)) {
+      Matcher m = FILE_NAME.matcher(p.getFileName().toString());
+      if (m.matches() && m.group(1).equals(date) && m.group(2) != null) {
+        last = Math.max(last, Integer.parseInt(m.group(2)));
+      }
+    }
+    return last;
+  }
+
+  private static String fileName(LocalDate day, int index) {
+    String date = day.format(DateTimeFormatter.ISO_DATE);
+    return index == 0 ? "audit-" + date + ".jsonl" : "audit-" + date + "." + index + ".jsonl";
+  }
+
+  /**
+   * Audit files in {@code dir}, plain or compressed, oldest first: by day, then by segment number.
+   * The writer never recreates a compressed file, so both copies exist only while a file is being
+   * compressed; only the plain one is listed then.
+   */
+  static List<Path> listFiles(Path dir) throws IOException {
+    if (!Files.isDirectory(dir)) return List.of();
+    List<Path> found;
+    try (Stream<Path> files = Files.list(dir)) {
+      found = files.filter(p -> FILE_NAME.matcher(p.getFileName().toString()).matches()).toList();
+    }
+    Set<String> names = new HashSet<>();
+    for (Path p : found) names.add(p.getFileName().toString());
+    return found.stream()
+        .filter(p -> !isCompressed(p) || !names.contains(plainName(p)))
+        .sorted(
+            Comparator.comparing((Path p) -> p.getFileName().toString().substring(6, 16))
+                .thenComparingInt(JsonlFileAuditSink::segmentIndex))
+        .toList();
+  }
+
+  static boolean isCompressed(Path file) {
+    return file.getFileName().toString().endsWith(".gz");
+  }
+
+  private static String plainName(Path gz) {
+    String name = gz.getFileName().toString();
+    return name.substring(0, name.length() - ".gz".length());
+  }
+
+  /** Line reader over an audit file, decompressing {@code .jsonl.gz} on the fly. */
+  static BufferedReader openReader(Path file) throws IOException {
+    InputStream in = Files.newInputStream(file);
+    try {
+      if (isCompressed(file)) in = new GZIPInputStream(in, 1 << 16);
     } catch (IOException e) {
-      // ignore
+      in.close();
+      throw e;
     }
+    return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+  }
+
+  private static int segmentIndex(Path p) {
+    Matcher m = FILE_NAME.matcher(p.getFileName().toString());
+    return m.matches() && m.group(2) != null ? Integer.parseInt(m.group(2)) : 0;
+  }
+
+  /** Compress and prune old files in the background (see {@link AuditRetention}). */
+  void scheduleMaintenance() {
+    retention.runSoon();
+  }
+
+  Path baseDir() {
+    return baseDir;
+  }
+
+  /** The file the writer currently appends to, or null if none is open. */
+  Path activeFile() {
+    return channelPath;
   }
 
   static Path defaultBaseDir(String subdir) {
@@ -8,17 +8,30 @@ import static net.minecraft.server.command.CommandManager.literal;
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
+import java.io.UncheckedIOException;
 import java.nio.file.Path;
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
 import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.text.Text;
 import org.github.shatterz.sentinelcore.perm.PermissionManager;
+import org.github.shatterz.sentinelcore.perm.PermissionNode;
 
 public final class SclogsCommands {
+  private static final PermissionNode TOGGLE = PermissionNode.of("sentinelcore.audit.toggle");
+  private static final PermissionNode TAIL = PermissionNode.of("sentinelcore.audit.tail");
+  // tails read the audit files off the server thread, one at a time
+  private static final ExecutorService TAIL_READER =
+      Executors.newSingleThreadExecutor(
+          r -> {
+            Thread t = new Thread(r, "SentinelCore-AuditTail");
+            t.setDaemon(true);
+            return t;
+          });
+
   private SclogsCommands() {}
 
   public static void register() {
@@ -30,7 +43,7 @@ public final class SclogsCommands {
     // /sclogs toggle <on|off>
     LiteralArgumentBuilder<ServerCommandSource> toggle =
         literal("toggle")
-            .requires(src -> has(src, "sentinelcore.audit.toggle"))
+            .requires(src -> has(src, TOGGLE))
             .then(
                 literal("on")
                     .executes(
@@ -53,7 +66,7 @@ public final class SclogsCommands {
     // /sclogs tail [n]
     LiteralArgumentBuilder<ServerCommandSource> tail =
         literal("tail")
-            .requires(src -> has(src, "sentinelcore.audit.tail"))
+            .requires(src -> has(src, TAIL))
             .executes(ctx -> doTail(ctx.getSource(), 20))
             .then(
                 argument("n", integer(1, 200))
@@ -64,11 +77,15 @@ public final class SclogsCommands {
     dispatcher.register(root);
   }
 
-  private static boolean has(ServerCommandSource src, String node) {
+  private static boolean has(ServerCommandSource src, PermissionNode node) {
     if (src.getPlayer() == null) return src.hasPermissionLevel(3);
     return PermissionManager.has(src.getPlayer(), node) || src.hasPermissionLevel(3);
   }
 
+  /**
+   * Read the last {@code n} audit lines on the tail thread (see {@link AuditTail}) and send them to
+   * the source back on the server thread.
+   */
   private static int doTail(ServerCommandSource src, int n) {
     String subdir = "sentinelcore";
     var cfg = org.github.shatterz.sentinelcore.config.ConfigManager.get();
@@ -79,46 +96,46 @@ public final class SclogsCommands {
       subdir = cfg.audit.directory;
     }
     Path dir = JsonlFileAuditSink.defaultBaseDir(subdir);
-    try {
-      if (!Files.exists(dir)) {
-        src.sendFeedback(() -> Text.literal("No audit logs yet."), false);
-        return 1;
-      }
-      Path latest =
-          Files.list(dir)
-              .filter(
-                  p ->
-                      p.getFileName().toString().startsWith("audit-")
-                          && p.toString().endsWith(".jsonl"))
-              .max(java.util.Comparator.naturalOrder())
-              .orElse(null);
-      if (latest == null) {
-        src.sendFeedback(() -> Text.literal("No audit files found."), false);
-        return 1;
-      }
-      Deque<String> ring = new ArrayDeque<>(n);
-      try (java.io.BufferedReader r = Files.newBufferedReader(latest, StandardCharsets.UTF_8)) {
-        String line;
-        while ((line = r.readLine()) != null) {
-          if (ring.size() == n) ring.removeFirst();
-          ring.addLast(line);
-        }
-      }
-      int count = 0;
-      for (String s : ring) {
-        count++;
-        if (count > 50) break; // hard cap per chat spam safety
-        String out = s.length() > 240 ? s.substring(0, 240) + "..." : s;
-        final String fOut = out;
-        src.sendFeedback(() -> Text.literal(fOut), false);
-      }
-      final int shown = Math.min(count, n);
-      final String summary = "Shown " + shown + " lines from " + latest.getFileName();
-      src.sendFeedback(() -> Text.literal(summary), false);
-      return 1;
-    } catch (IOException e) {
-      src.sendError(Text.literal("Failed to read audit logs: " + e.getMessage()));
-      return 0;
+    Path active = AuditManager.activeFile();
+    CompletableFuture.supplyAsync(
+            () -> {
+              try {
+                return AuditTail.read(dir, active, n);
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            },
+            TAIL_READER)
+        .whenCompleteAsync((result, err) -> sendTail(src, n, result, err), src.getServer());
+    return 1;
+  }
+
+  private static void sendTail(ServerCommandSource src, int n, AuditTail.Result r, Throwable err) {
+    if (err != null) {
+      Throwable cause =
+          err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+      if (cause instanceof UncheckedIOException io) cause = io.getCause();
+      src.sendError(Text.literal("Failed to read audit logs: " + cause.getMessage()));
+      return;
+    }
+    if (r.files().isEmpty()) {
+      src.sendFeedback(() -> Text.literal("No audit logs yet."), false);
+      return;
+    }
+    int count = 0;
+    for (String s : r.lines()) {
+      count++;
+      if (count > 50) break; // hard cap per chat spam safety
+      String out = s.length() > 240 ? s.substring(0, 240) + "..." : s;
+      final String fOut = out;
+      src.sendFeedback(() -> Text.literal(fOut), false);
+    }
+    final int shown = Math.min(count, n);
+    String from = r.files().get(0).getFileName().toString();
+    if (r.files().size() > 1) {
+      from += " to " + r.files().get(r.files().size() - 1).getFileName();
     }
+    final String summary = "Shown " + shown + " lines from " + from;
+    src.sendFeedback(() -> Text.literal(summary), false);
   }
 }
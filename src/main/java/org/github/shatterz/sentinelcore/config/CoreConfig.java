@@ -46,15 +46,21 @@ public class CoreConfig {
     /** Directory under the game dir logs folder where audit files are written. */
     public String directory = "sentinelcore"; // resolves to <gameDir>/logs/sentinelcore
 
-    /** Rotation policy: "daily" or "size" (size in MB below). */
+    /** Rotation policy: "daily", "size" (size in MB below) or "hybrid" (daily plus size cap). */
     public String rotation = "daily";
 
-    /** Max file size in MB when rotation == size. */
+    /** Max file size in MB when rotation is size or hybrid. */
     public int maxFileSizeMb = 10;
 
     /** Retention in days for old audit files. */
     public int retentionDays = 7;
 
+    /** Compress closed audit files to .jsonl.gz in the background. */
+    public boolean compressRotated = true;
+
+    /** Total size budget in MB for audit files; the oldest are deleted first. 0 = no limit. */
+    public int maxTotalSizeMb = 1024;
+
     /** If true, only audit privileged/admin actions we emit. */
     public boolean auditModerationOnly = true;
 
@@ -69,6 +75,18 @@ public class CoreConfig {
 
     /** Ledger sink mode; currently supported: "logger". */
     public String ledgerMode = "logger";
+
+    /** Longest time (ms) an audit event waits in the queue before it is written to disk. */
+    public int flushIntervalMs = 200;
+
+    /** Most events written to the audit file in one batch. */
+    public int batchSize = 512;
+
+    /** Events the audit queue holds before the overflow policy applies; read at startup. */
+    public int queueCapacity = 8192;
+
+    /** When the audit queue is full: "block", "drop-oldest" or "drop-with-counter". */
+    public String overflowPolicy = "drop-with-counter";
   }
 
   /** Permissions schema stored in YAML/JSON config. */
@@ -76,7 +94,12 @@ public class CoreConfig {
     public String backend = "memory"; // future: "luckperms"
     public String defaultRole = "default";
     public Map<String, Role> roles = new HashMap<>(); // role name -> role definition
-    public Map<String, String> userRoles = new HashMap<>(); // uuid -> role name
+    // uuid -> role name; legacy, migrated once into user-roles.log (see UserRoleStore)
+    public Map<String, String> userRoles = new HashMap<>();
+    // answer other mods' fabric-permissions-api checks from these roles
+    public boolean fabricApiProvider = true;
+    // deny nodes the roles don't grant instead of leaving them to the mod's op-level fallback
+    public boolean fabricApiAuthoritative = false;
   }
 
   /** A role with simple allow/deny sets and inheritance. */
@@ -84,6 +107,19 @@ public class CoreConfig {
     public Set<String> allow = new HashSet<>();
     public Set<String> deny = new HashSet<>();
     public Set<String> inherits = new HashSet<>();
+
+    /**
+     * Contextual rules: context key -> context value -> extra allow/deny entries that only apply
+     * while the player's context has that value (e.g. world: "minecraft:the_nether", modmode:
+     * "true"). Contextual rules take precedence over the plain allow/deny sets.
+     */
+    public Map<String, Map<String, ContextRules>> context = new HashMap<>();
+  }
+
+  /** Allow/deny entries scoped to a single context value. */
+  public static class ContextRules {
+    public Set<String> allow = new HashSet<>();
+    public Set<String> deny = new HashSet<>();
   }
 
   /** Create a config with sensible defaults. */
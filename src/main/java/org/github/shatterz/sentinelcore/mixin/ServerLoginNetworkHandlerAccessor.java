@@ -0,0 +1,13 @@
+package org.github.shatterz.sentinelcore.mixin;
+
+import com.mojang.authlib.GameProfile;
+import net.minecraft.server.network.ServerLoginNetworkHandler;
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.gen.Accessor;
+
+/** Exposes the authenticated profile during the login phase (used by the login prefetch). */
+@Mixin(ServerLoginNetworkHandler.class)
+public interface ServerLoginNetworkHandlerAccessor {
+  @Accessor("profile")
+  GameProfile sentinelcore$getProfile();
+}
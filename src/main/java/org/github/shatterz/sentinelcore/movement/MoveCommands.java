@@ -13,9 +13,13 @@ import net.minecraft.server.world.ServerWorld;
 import net.minecraft.text.Text;
 import net.minecraft.util.math.BlockPos;
 import org.github.shatterz.sentinelcore.perm.PermissionManager;
+import org.github.shatterz.sentinelcore.perm.PermissionNode;
 
 /** Simple test commands for MovementManager: /scmove safe <x> <y> <z> */
 public final class MoveCommands {
+  private static final PermissionNode SAFE_TELEPORT =
+      PermissionNode.of("sentinelcore.movement.teleport.safe");
+
   private MoveCommands() {}
 
   public static void register() {
@@ -26,7 +30,7 @@ public final class MoveCommands {
   private static void register(CommandDispatcher<ServerCommandSource> dispatcher) {
     dispatcher.register(
         literal("scmove")
-            .requires(src -> has(src, "sentinelcore.movement.teleport.safe"))
+            .requires(src -> has(src, SAFE_TELEPORT))
             .then(
                 literal("safe")
                     .then(
@@ -67,7 +71,7 @@ public final class MoveCommands {
                                                 }))))));
   }
 
-  private static boolean has(ServerCommandSource src, String node) {
+  private static boolean has(ServerCommandSource src, PermissionNode node) {
     if (src.getPlayer() == null) return src.hasPermissionLevel(3);
     return PermissionManager.has(src.getPlayer(), node) || src.hasPermissionLevel(3);
   }
@@ -16,11 +16,14 @@ import org.github.shatterz.sentinelcore.config.ConfigManager;
 import org.github.shatterz.sentinelcore.config.CoreConfig;
 import org.github.shatterz.sentinelcore.log.SentinelLogger;
 import org.github.shatterz.sentinelcore.perm.PermissionManager;
+import org.github.shatterz.sentinelcore.perm.PermissionNode;
 import org.slf4j.Logger;
 
 /** Commands for community prefix selection: /community list, select, none, admin reload. */
 public final class CommunityCommands {
   private static final Logger LOG = SentinelLogger.root();
+  private static final PermissionNode USE = PermissionNode.of("sentinelcore.community.use");
+  private static final PermissionNode ADMIN = PermissionNode.of("sentinelcore.community.admin");
 
   private CommunityCommands() {}
 
@@ -33,7 +36,7 @@ public final class CommunityCommands {
   private static void register(CommandDispatcher<ServerCommandSource> dispatcher) {
     dispatcher.register(
         literal("community")
-            .requires(src -> hasPermission(src, "sentinelcore.community.use"))
+            .requires(src -> hasPermission(src, USE))
             .then(literal("list").executes(CommunityCommands::listPrefixes))
             .then(
                 literal("select")
@@ -53,14 +56,14 @@ public final class CommunityCommands {
             .then(literal("none").executes(CommunityCommands::clearPrefix))
             .then(
                 literal("admin")
-                    .requires(src -> hasPermission(src, "sentinelcore.community.admin"))
+                    .requires(src -> hasPermission(src, ADMIN))
                     .then(literal("reload").executes(CommunityCommands::adminReload))));
 
     LOG.info("Registered /community commands.");
   }
 
   /** Helper to check permission for command source. */
-  private static boolean hasPermission(ServerCommandSource src, String node) {
+  private static boolean hasPermission(ServerCommandSource src, PermissionNode node) {
     if (src.getPlayer() != null) {
       return PermissionManager.has(src.getPlayer(), node);
     }
@@ -8,6 +8,7 @@ import net.minecraft.util.Formatting;
 import org.github.shatterz.sentinelcore.config.ConfigManager;
 import org.github.shatterz.sentinelcore.config.CoreConfig;
 import org.github.shatterz.sentinelcore.log.SentinelLogger;
+import org.github.shatterz.sentinelcore.perm.PermissionManager;
 import org.github.shatterz.sentinelcore.perm.RoleContext;
 import org.github.shatterz.sentinelcore.perm.RoleContextManager;
 import org.slf4j.Logger;
@@ -39,6 +40,17 @@ public final class NameFormatter {
     if (player == null) {
       return;
     }
+    updateDisplayName(player, CommunityPrefixManager.getSelectedPrefix(player.getUuid()));
+  }
+
+  /**
+   * Same as {@link #updateDisplayName(ServerPlayerEntity)}, with the community prefix selection
+   * already loaded (e.g. by the login prefetch).
+   */
+  public static void updateDisplayName(ServerPlayerEntity player, String communityId) {
+    if (player == null) {
+      return;
+    }
 
     CoreConfig config = ConfigManager.get();
     if (config.community == null || !config.community.enabled) {
@@ -48,14 +60,15 @@ public final class NameFormatter {
     }
 
     UUID uuid = player.getUuid();
-    RoleContext ctx = RoleContextManager.get(uuid);
+    // Read the state once; every part of the name is derived from this snapshot. A change after
+    // this point marks the context changed, which renders the name again.
+    RoleContext.Snapshot ctx = RoleContextManager.get(uuid).snapshot();
 
     MutableText displayName = Text.empty();
     MutableText prefixOnly = Text.empty();
     boolean hasAnyPrefix = false;
 
     // 1. Community prefix (if selected)
-    String communityId = CommunityPrefixManager.getSelectedPrefix(uuid);
     LOG.info("Player {} community prefix: {}", player.getName().getString(), communityId);
 
     if (communityId != null && config.community.prefixes.containsKey(communityId)) {
@@ -70,7 +83,7 @@ public final class NameFormatter {
     // 2. Team prefix (if eligible)
     if (config.community.teamPrefix != null
         && config.community.teamPrefix.enabled
-        && isEligibleForTeamPrefix(ctx.getGroup(), config.community.teamPrefix)) {
+        && isEligibleForTeamPrefix(ctx.group(), config.community.teamPrefix)) {
       MutableText teamText =
           formatTeamPrefix(config.community.teamPrefix, config.community.formatting);
       displayName.append(teamText);
@@ -79,10 +92,10 @@ public final class NameFormatter {
       LOG.info(
           "Added team prefix [Team] for {} (group: {})",
           player.getName().getString(),
-          ctx.getGroup());
+          ctx.group());
     } else {
       // Helpful diagnostics to understand why team prefix didn't render
-      String g = ctx != null ? ctx.getGroup() : "<null>";
+      String g = ctx != null ? ctx.group() : "<null>";
       boolean enabled = config.community.teamPrefix != null && config.community.teamPrefix.enabled;
       LOG.info(
           "Team prefix not applied for {} (group='{}', enabled={}, appliesTo={})",
@@ -224,13 +237,22 @@ public final class NameFormatter {
     return text;
   }
 
-  /** Checks if a group is eligible for the team prefix. */
+  /**
+   * Checks if a group is eligible for the team prefix: it is one of the listed groups or inherits
+   * one, per the backend's role graph. Takes the group from the caller's snapshot, never the live
+   * context.
+   */
   private static boolean isEligibleForTeamPrefix(
       String group, CoreConfig.Community.TeamPrefix teamCfg) {
     if (group == null || teamCfg.appliesTo == null) {
       return false;
     }
-    return teamCfg.appliesTo.contains(group);
+    for (String listed : teamCfg.appliesTo) {
+      if (PermissionManager.groupInherits(group, listed)) {
+        return true;
+      }
+    }
+    return false;
   }
 
   /**
@@ -1,12 +1,13 @@
 package org.github.shatterz.sentinelcore.names;
 
-import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
-import net.minecraft.server.network.ServerPlayerEntity;
 import org.github.shatterz.sentinelcore.log.SentinelLogger;
 import org.github.shatterz.sentinelcore.perm.events.PermissionContextChangedCallback;
 import org.slf4j.Logger;
 
-/** Listens for player join and permission context changes to update display names in real-time. */
+/**
+ * Listens for permission context changes to update display names in real-time. The join-time name
+ * is applied by {@code PlayerConnectionListener} from the login prefetch.
+ */
 public final class NameUpdateListener {
   private static final Logger LOG = SentinelLogger.root();
 
@@ -14,22 +15,15 @@ public final class NameUpdateListener {
 
   /** Register event listeners for automatic display name updates. */
   public static void register() {
-    // Update display name on player join
-    ServerPlayConnectionEvents.JOIN.register(
-        (handler, sender, server) -> {
-          ServerPlayerEntity player = handler.getPlayer();
-          NameFormatter.updateDisplayName(player);
-          LOG.debug("Updated display name for {} on join.", player.getName().getString());
-        });
-
-    // Update display name when permission context changes (group change, mod-mode toggle, etc.)
+    // Update display name when permission context changes (group change, mod-mode toggle, etc.);
+    // events are coalesced per tick, so this runs at most once per player per tick
     PermissionContextChangedCallback.EVENT.register(
-        (player, changeType) -> {
+        (player, changes) -> {
           NameFormatter.updateDisplayName(player);
           LOG.debug(
               "Updated display name for {} due to context change: {}",
               player.getName().getString(),
-              changeType);
+              changes);
         });
 
     LOG.info("Name update listener registered.");
@@ -0,0 +1,34 @@
+package org.github.shatterz.sentinelcore.perm;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking companion to {@link PermissionService}. A backend implements both interfaces; the
+ * futures of a backend with local state complete immediately, while a backend that does I/O (SQL
+ * storage, a network-synced backend) completes them from its own threads.
+ *
+ * <p>Backends that only implement {@link PermissionService} are adapted by {@link Perms#async()},
+ * which runs the blocking calls on a background executor so they still never block the caller.
+ */
+public interface AsyncPermissionService {
+  CompletableFuture<Boolean> checkAsync(UUID subject, String node, Map<String, String> ctx);
+
+  default CompletableFuture<Boolean> checkAsync(
+      UUID subject, PermissionNode node, Map<String, String> ctx) {
+    return checkAsync(subject, node.name(), ctx);
+  }
+
+  /** Primary group/role for a player; completes with "default" if not found. */
+  CompletableFuture<String> getGroupAsync(UUID subject);
+
+  /** Set the primary group/role; completes once the backend has accepted the change. */
+  CompletableFuture<Void> setGroupAsync(UUID subject, String group);
+
+  /** All groups a player inherits from (including their primary group). */
+  CompletableFuture<List<String>> getInheritedGroupsAsync(UUID subject);
+
+  CompletableFuture<Boolean> groupExistsAsync(String group);
+}
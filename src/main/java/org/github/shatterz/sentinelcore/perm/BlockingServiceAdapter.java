@@ -0,0 +1,61 @@
+package org.github.shatterz.sentinelcore.perm;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * {@link AsyncPermissionService} view of a backend that only offers the blocking SPI. Each call
+ * runs on a small shared daemon pool, so a slow backend delays the future, not the caller.
+ */
+final class BlockingServiceAdapter implements AsyncPermissionService {
+  private static final ExecutorService EXECUTOR =
+      Executors.newFixedThreadPool(
+          2,
+          r -> {
+            Thread t = new Thread(r, "SentinelCore-PermIO");
+            t.setDaemon(true);
+            return t;
+          });
+
+  private final PermissionService svc;
+
+  BlockingServiceAdapter(PermissionService svc) {
+    this.svc = svc;
+  }
+
+  @Override
+  public CompletableFuture<Boolean> checkAsync(
+      UUID subject, String node, Map<String, String> ctx) {
+    return CompletableFuture.supplyAsync(() -> svc.check(subject, node, ctx), EXECUTOR);
+  }
+
+  @Override
+  public CompletableFuture<Boolean> checkAsync(
+      UUID subject, PermissionNode node, Map<String, String> ctx) {
+    return CompletableFuture.supplyAsync(() -> svc.check(subject, node, ctx), EXECUTOR);
+  }
+
+  @Override
+  public CompletableFuture<String> getGroupAsync(UUID subject) {
+    return CompletableFuture.supplyAsync(() -> svc.getGroup(subject), EXECUTOR);
+  }
+
+  @Override
+  public CompletableFuture<Void> setGroupAsync(UUID subject, String group) {
+    return CompletableFuture.runAsync(() -> svc.setGroup(subject, group), EXECUTOR);
+  }
+
+  @Override
+  public CompletableFuture<List<String>> getInheritedGroupsAsync(UUID subject) {
+    return CompletableFuture.supplyAsync(() -> svc.getInheritedGroups(subject), EXECUTOR);
+  }
+
+  @Override
+  public CompletableFuture<Boolean> groupExistsAsync(String group) {
+    return CompletableFuture.supplyAsync(() -> svc.groupExists(group), EXECUTOR);
+  }
+}
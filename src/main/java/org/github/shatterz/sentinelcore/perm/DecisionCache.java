@@ -0,0 +1,170 @@
+package org.github.shatterz.sentinelcore.perm;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Small bounded cache of permission decisions, one instance per {@link RoleContext}.
+ *
+ * <p>Entries are stamped with {@link #stamp()} taken before the decision was computed: the global
+ * generation plus this cache's own epoch; {@link RoleContext#decisionStamp()} adds the player's
+ * snapshot version on top. Changes that can affect everyone (backend install, a LuckPerms group
+ * change in bridge mode) call {@link #invalidateAll()}, which bumps the generation; a reload or
+ * LuckPerms mirror delta touching some players' roles, or a timed grant ending, calls {@link
+ * #invalidate()} on those players' caches only, and a change to the player's own state (group, op,
+ * mod-mode, context) publishes a new snapshot. Any of these changes the stamp, stale entries are
+ * then ignored on the next lookup, and no listener ever has to walk the per-player caches. All
+ * three counters only grow, so the stamp never returns to an earlier value.
+ *
+ * <p>The cache is direct-mapped by node hash: a lookup is one array read and a string compare, and
+ * a colliding store simply replaces the previous entry.
+ *
+ * <p>Decisions still being resolved in the background are tracked per node and stamp, so callers
+ * that miss while one is pending share it instead of asking the backend again. The entry is dropped
+ * when the resolve completes; a stamp change lets the next miss start a fresh one.
+ */
+public final class DecisionCache {
+  /** Returned by {@link #lookup} when there is no valid entry for the node. */
+  static final int MISS = -1;
+
+  private static final int SIZE = 64; // power of two
+  private static final AtomicLong GENERATION = new AtomicLong();
+  private static final LongAdder HITS = new LongAdder();
+  private static final LongAdder MISSES = new LongAdder();
+
+  private final Entry[] slots = new Entry[SIZE];
+  private final AtomicLong epoch = new AtomicLong();
+  private final ConcurrentHashMap<String, Pending> pending = new ConcurrentHashMap<>();
+
+  private static final class Entry {
+    final String node;
+    final long stamp;
+    final boolean allowed;
+
+    Entry(String node, long stamp, boolean allowed) {
+      this.node = node;
+      this.stamp = stamp;
+      this.allowed = allowed;
+    }
+  }
+
+  /** A background resolve of one node, started under {@code stamp}. */
+  private static final class Pending {
+    final long stamp;
+    final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+    Pending(long stamp) {
+      this.stamp = stamp;
+    }
+  }
+
+  DecisionCache() {}
+
+  /** Invalidate every cached decision of every player. */
+  public static void invalidateAll() {
+    GENERATION.incrementAndGet();
+  }
+
+  /** Current generation; capture it before computing a decision that will be stored. */
+  public static long generation() {
+    return GENERATION.get();
+  }
+
+  public static long hits() {
+    return HITS.sum();
+  }
+
+  public static long misses() {
+    return MISSES.sum();
+  }
+
+  /** Fraction of lookups answered from cache, or 0 if nothing was looked up yet. */
+  public static double hitRatio() {
+    long h = HITS.sum();
+    long total = h + MISSES.sum();
+    return total == 0 ? 0.0 : (double) h / total;
+  }
+
+  /** Reset the hit/miss counters (does not invalidate entries). */
+  public static void resetStats() {
+    HITS.reset();
+    MISSES.reset();
+  }
+
+  /** Current validity stamp; capture it before computing a decision that will be stored. */
+  long stamp() {
+    return GENERATION.get() + epoch.get();
+  }
+
+  /** Invalidate the cached decisions of this cache only. */
+  void invalidate() {
+    epoch.incrementAndGet();
+  }
+
+  /** @return 1 if allowed, 0 if denied, or {@link #MISS} when no entry for {@code stamp} exists */
+  int lookup(String node, long stamp) {
+    Entry e = slots[slot(node)];
+    if (e != null && e.stamp == stamp && e.node.equals(node)) {
+      HITS.increment();
+      return e.allowed ? 1 : 0;
+    }
+    MISSES.increment();
+    return MISS;
+  }
+
+  void store(String node, long stamp, boolean allowed) {
+    int i = slot(node);
+    Entry e = slots[i];
+    // a late answer resolved before an invalidation must not replace the current one
+    if (e != null && e.stamp > stamp && e.node.equals(node)) return;
+    slots[i] = new Entry(node, stamp, allowed);
+  }
+
+  /**
+   * The pending resolve of {@code node} under {@code stamp}, or one started now with {@code
+   * resolver}. The resolver is expected to {@link #store} its answer before its future completes.
+   */
+  CompletableFuture<Boolean> resolveOnce(
+      String node, long stamp, Supplier<CompletableFuture<Boolean>> resolver) {
+    Pending[] started = new Pending[1];
+    Pending p =
+        pending.compute(
+            node,
+            (k, cur) -> {
+              if (cur != null && cur.stamp == stamp) return cur;
+              return started[0] = new Pending(stamp);
+            });
+    if (started[0] == null) {
+      return p.future;
+    }
+    CompletableFuture<Boolean> answer;
+    try {
+      answer = resolver.get();
+    } catch (RuntimeException e) {
+      answer = CompletableFuture.failedFuture(e);
+    }
+    answer.whenComplete(
+        (allowed, e) -> {
+          pending.remove(node, p);
+          if (e != null) {
+            p.future.completeExceptionally(e);
+          } else {
+            p.future.complete(allowed);
+          }
+        });
+    return p.future;
+  }
+
+  /** Number of resolves still pending for this cache. */
+  int pendingCount() {
+    return pending.size();
+  }
+
+  private static int slot(String node) {
+    int h = node.hashCode();
+    return (h ^ (h >>> 16)) & (SIZE - 1);
+  }
+}
@@ -0,0 +1,71 @@
+package org.github.shatterz.sentinelcore.perm;
+
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import me.lucko.fabric.api.permissions.v0.OfflinePermissionCheckEvent;
+import me.lucko.fabric.api.permissions.v0.PermissionCheckEvent;
+import net.fabricmc.fabric.api.util.TriState;
+import net.minecraft.command.CommandSource;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.server.network.ServerPlayerEntity;
+import org.github.shatterz.sentinelcore.config.ConfigManager;
+import org.github.shatterz.sentinelcore.config.CoreConfig;
+import org.github.shatterz.sentinelcore.log.SentinelCategories;
+import org.github.shatterz.sentinelcore.log.SentinelLogger;
+import org.slf4j.Logger;
+
+/**
+ * Answers fabric-permissions-api checks from other mods with SentinelCore's own engine, so the
+ * whole server shares one set of roles and one set of cached decisions.
+ *
+ * <p>Player checks go through {@link PermissionManager#grantedByRoles}, cached per player like
+ * SentinelCore's own checks: the player's roles in their {@link RoleContext} (group, world,
+ * mod-mode) and timed grants apply, but SentinelCore's op bypass does not. An op is only granted a
+ * foreign node by their roles, and the calling mod's own op-level fallback (e.g. level 4 for a node
+ * checked with {@code Permissions.check(src, node, 4)}) still decides the rest. A granted node is
+ * {@link TriState#TRUE}. A node SentinelCore does not grant is {@link TriState#DEFAULT}, unless
+ * {@code permissions.fabricApiAuthoritative} is set, in which case it is {@link TriState#FALSE}.
+ * Console and command-block sources are never answered.
+ */
+public final class FabricPermissionsProvider {
+  private static final Logger LOG = SentinelLogger.cat(SentinelCategories.PERM);
+
+  private FabricPermissionsProvider() {}
+
+  public static void register() {
+    PermissionCheckEvent.EVENT.register(FabricPermissionsProvider::check);
+    OfflinePermissionCheckEvent.EVENT.register(FabricPermissionsProvider::checkOffline);
+    LOG.info("Registered as fabric-permissions-api provider");
+  }
+
+  private static TriState check(CommandSource source, String permission) {
+    CoreConfig.Permissions cfg = config();
+    if (!cfg.fabricApiProvider || !(source instanceof ServerCommandSource src)) {
+      return TriState.DEFAULT;
+    }
+    if (!(src.getEntity() instanceof ServerPlayerEntity player)) {
+      return TriState.DEFAULT;
+    }
+    return toTriState(PermissionManager.grantedByRoles(player, permission), cfg);
+  }
+
+  private static CompletableFuture<TriState> checkOffline(UUID uuid, String permission) {
+    CoreConfig.Permissions cfg = config();
+    if (!cfg.fabricApiProvider) {
+      return CompletableFuture.completedFuture(TriState.DEFAULT);
+    }
+    // offline contexts live in the bounded LRU, so this never pins every player asked about
+    return PermissionManager.grantedByRolesAsync(uuid, permission)
+        .thenApply(ok -> toTriState(ok, cfg));
+  }
+
+  private static TriState toTriState(boolean granted, CoreConfig.Permissions cfg) {
+    if (granted) return TriState.TRUE;
+    return cfg.fabricApiAuthoritative ? TriState.FALSE : TriState.DEFAULT;
+  }
+
+  private static CoreConfig.Permissions config() {
+    CoreConfig.Permissions p = ConfigManager.get().permissions;
+    return p != null ? p : new CoreConfig.Permissions();
+  }
+}
@@ -7,17 +7,46 @@ import static net.minecraft.server.command.CommandManager.literal;
 
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.command.argument.EntityArgumentType;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.text.Text;
 import org.github.shatterz.sentinelcore.audit.AuditManager;
 import org.github.shatterz.sentinelcore.config.ConfigManager;
+import org.github.shatterz.sentinelcore.log.SentinelCategories;
+import org.github.shatterz.sentinelcore.log.SentinelLogger;
+import org.github.shatterz.sentinelcore.perm.transfer.PermissionExporter;
+import org.github.shatterz.sentinelcore.perm.transfer.PermissionImporter;
+import org.github.shatterz.sentinelcore.perm.transfer.TransferFormat;
+import org.slf4j.Logger;
 
 public final class PermCommands {
+  private static final int STATS_TOP_NODES = 10;
+  private static final long MAX_GRANT_DAYS = 3650;
+
+  private static final Logger LOG = SentinelLogger.cat(SentinelCategories.PERM);
+  // bulk imports and exports run one at a time, off the server thread
+  private static final ExecutorService TRANSFER =
+      Executors.newSingleThreadExecutor(
+          r -> {
+            Thread t = new Thread(r, "SentinelCore-Transfer");
+            t.setDaemon(true);
+            return t;
+          });
+
   private PermCommands() {}
 
   /** Register commands via Fabric’s v2 command callback. */
@@ -42,7 +71,9 @@ public final class PermCommands {
                           }
                           String node = ctx.getArgument("node", String.class);
                           UUID uuid = player.getUuid();
-                          boolean ok = Perms.check(uuid, node, Map.of());
+                          Map<String, String> context =
+                              RoleContextManager.get(player).getContextFlags();
+                          boolean ok = Perms.check(uuid, node, context);
                           src.sendFeedback(() -> Text.literal("perm(" + node + ") = " + ok), false);
                           return ok ? 1 : 0;
                         }));
@@ -82,63 +113,504 @@ public final class PermCommands {
                 argument("player", EntityArgumentType.player())
                     .then(
                         argument("role", word())
+                            .executes(
+                                ctx ->
+                                    assignRole(
+                                        ctx.getSource(),
+                                        EntityArgumentType.getPlayer(ctx, "player"),
+                                        ctx.getArgument("role", String.class)))));
+
+    // /sccore perm grant <player> node <node> <duration> | role <role> <duration>
+    LiteralArgumentBuilder<ServerCommandSource> grantNodeCmd =
+        literal("node")
+            .then(
+                argument("node", word())
+                    .then(
+                        argument("duration", word())
+                            .executes(
+                                ctx ->
+                                    grantNode(
+                                        ctx.getSource(),
+                                        EntityArgumentType.getPlayer(ctx, "player"),
+                                        ctx.getArgument("node", String.class),
+                                        ctx.getArgument("duration", String.class)))));
+    LiteralArgumentBuilder<ServerCommandSource> grantRoleCmd =
+        literal("role")
+            .then(
+                argument("role", word())
+                    .then(
+                        argument("duration", word())
+                            .executes(
+                                ctx ->
+                                    grantRole(
+                                        ctx.getSource(),
+                                        EntityArgumentType.getPlayer(ctx, "player"),
+                                        ctx.getArgument("role", String.class),
+                                        ctx.getArgument("duration", String.class)))));
+    LiteralArgumentBuilder<ServerCommandSource> grantCmd =
+        literal("grant")
+            .requires(src -> src.hasPermissionLevel(3))
+            .then(
+                argument("player", EntityArgumentType.player())
+                    .then(grantNodeCmd)
+                    .then(grantRoleCmd));
+
+    // /sccore perm revoke <player> node <node> | role
+    LiteralArgumentBuilder<ServerCommandSource> revokeCmd =
+        literal("revoke")
+            .requires(src -> src.hasPermissionLevel(3))
+            .then(
+                argument("player", EntityArgumentType.player())
+                    .then(
+                        literal("node")
+                            .then(
+                                argument("node", word())
+                                    .executes(
+                                        ctx -> {
+                                          ServerPlayerEntity target =
+                                              EntityArgumentType.getPlayer(ctx, "player");
+                                          String node = ctx.getArgument("node", String.class);
+                                          return revoked(
+                                              ctx.getSource(),
+                                              target,
+                                              "node '" + node + "'",
+                                              TimedGrants.revokeNode(target.getUuid(), node));
+                                        })))
+                    .then(
+                        literal("role")
                             .executes(
                                 ctx -> {
-                                  ServerCommandSource src = ctx.getSource();
                                   ServerPlayerEntity target =
                                       EntityArgumentType.getPlayer(ctx, "player");
-                                  String role = ctx.getArgument("role", String.class);
-                                  boolean ok = ConfigManager.setUserRole(target.getUuid(), role);
-                                  if (ok) {
-                                    // Immediately set runtime group to avoid race with reload,
-                                    // then refresh context and update display name
-                                    org.github.shatterz.sentinelcore.perm.PermissionManager
-                                        .setGroup(target.getUuid(), role);
-                                    org.github.shatterz.sentinelcore.perm.PermissionManager
-                                        .refreshContext(target.getUuid());
-                                    org.github.shatterz.sentinelcore.names.NameFormatter
-                                        .updateDisplayName(target);
-
-                                    src.sendFeedback(
-                                        () ->
-                                            Text.literal(
-                                                "Assigned role '"
-                                                    + role
-                                                    + "' to "
-                                                    + target.getName().getString()
-                                                    + "."),
-                                        true);
-                                    // audit admin action
-                                    if (src.getPlayer() != null) {
-                                      var p = src.getPlayer();
-                                      AuditManager.logAdminCommand(
-                                          p.getUuid(),
-                                          p.getName().getString(),
-                                          "/sccore perm role "
-                                              + target.getName().getString()
-                                              + " "
-                                              + role,
-                                          java.util.Map.of(
-                                              "type",
-                                              "role_assign",
-                                              "target",
-                                              target.getUuid().toString()));
-                                    }
-                                    return 1;
-                                  } else {
-                                    src.sendError(
-                                        Text.literal("Failed to assign role. See console."));
-                                    return 0;
-                                  }
+                                  return revoked(
+                                      ctx.getSource(),
+                                      target,
+                                      "role",
+                                      TimedGrants.revokeRole(target.getUuid()));
                                 })));
 
+    // /sccore perm grants <player>
+    LiteralArgumentBuilder<ServerCommandSource> grantsCmd =
+        literal("grants")
+            .requires(src -> src.hasPermissionLevel(3))
+            .then(
+                argument("player", EntityArgumentType.player())
+                    .executes(
+                        ctx -> {
+                          ServerPlayerEntity target = EntityArgumentType.getPlayer(ctx, "player");
+                          String name = target.getName().getString();
+                          List<TimedGrants.Grant> grants = TimedGrants.grantsOf(target.getUuid());
+                          if (grants.isEmpty()) {
+                            ctx.getSource()
+                                .sendFeedback(
+                                    () -> Text.literal(name + " has no timed grants."), false);
+                            return 0;
+                          }
+                          long now = System.currentTimeMillis();
+                          for (TimedGrants.Grant g : grants) {
+                            String line =
+                                String.format(
+                                    "  %s %s, %s left%s",
+                                    g.kind().name().toLowerCase(),
+                                    g.value(),
+                                    formatDuration(g.expiresAt() - now),
+                                    g.previous() != null ? ", then " + g.previous() : "");
+                            ctx.getSource().sendFeedback(() -> Text.literal(line), false);
+                          }
+                          return grants.size();
+                        }));
+
+    // /sccore perm import|export <csv|ndjson|luckperms> <file>
+    LiteralArgumentBuilder<ServerCommandSource> importCmd =
+        literal("import")
+            .requires(src -> src.hasPermissionLevel(3))
+            .then(
+                argument("format", word())
+                    .then(
+                        argument("file", word())
+                            .executes(
+                                ctx ->
+                                    transfer(
+                                        ctx.getSource(),
+                                        true,
+                                        ctx.getArgument("format", String.class),
+                                        ctx.getArgument("file", String.class)))));
+    LiteralArgumentBuilder<ServerCommandSource> exportCmd =
+        literal("export")
+            .requires(src -> src.hasPermissionLevel(3))
+            .then(
+                argument("format", word())
+                    .then(
+                        argument("file", word())
+                            .executes(
+                                ctx ->
+                                    transfer(
+                                        ctx.getSource(),
+                                        false,
+                                        ctx.getArgument("format", String.class),
+                                        ctx.getArgument("file", String.class)))));
+
+    // /sccore perm cache
+    LiteralArgumentBuilder<ServerCommandSource> cacheCmd =
+        literal("cache")
+            .requires(src -> src.hasPermissionLevel(3))
+            .executes(
+                ctx -> {
+                  long hits = DecisionCache.hits();
+                  long misses = DecisionCache.misses();
+                  String msg =
+                      String.format(
+                          "Decision cache: hits=%d misses=%d ratio=%.1f%% generation=%d",
+                          hits,
+                          misses,
+                          DecisionCache.hitRatio() * 100.0,
+                          DecisionCache.generation());
+                  String contexts =
+                      String.format(
+                          "Role contexts: online=%d offline=%d/%d hits=%d misses=%d evictions=%d",
+                          RoleContextManager.onlineCount(),
+                          RoleContextManager.offlineCount(),
+                          RoleContextManager.offlineCapacity(),
+                          RoleContextManager.offlineHits(),
+                          RoleContextManager.offlineMisses(),
+                          RoleContextManager.offlineEvictions());
+                  ctx.getSource().sendFeedback(() -> Text.literal(msg), false);
+                  ctx.getSource().sendFeedback(() -> Text.literal(contexts), false);
+                  return 1;
+                });
+
+    // /sccore perm stats [reset]
+    LiteralArgumentBuilder<ServerCommandSource> statsCmd =
+        literal("stats")
+            .requires(src -> src.hasPermissionLevel(3))
+            .executes(
+                ctx -> {
+                  for (String line : statsReport()) {
+                    ctx.getSource().sendFeedback(() -> Text.literal(line), false);
+                  }
+                  return 1;
+                })
+            .then(
+                literal("reset")
+                    .executes(
+                        ctx -> {
+                          PermissionMetrics.reset();
+                          DecisionCache.resetStats();
+                          ctx.getSource()
+                              .sendFeedback(() -> Text.literal("Permission stats reset."), true);
+                          return 1;
+                        }));
+
     // /sccore perm ...
     LiteralArgumentBuilder<ServerCommandSource> permRoot =
-        literal("perm").then(testCmd).then(reloadCmd).then(roleCmd);
+        literal("perm")
+            .then(testCmd)
+            .then(reloadCmd)
+            .then(roleCmd)
+            .then(grantCmd)
+            .then(revokeCmd)
+            .then(grantsCmd)
+            .then(importCmd)
+            .then(exportCmd)
+            .then(cacheCmd)
+            .then(statsCmd);
 
     // /sccore ...
     LiteralArgumentBuilder<ServerCommandSource> root = literal("sccore").then(permRoot);
 
     dispatcher.register(root);
   }
+
+  /**
+   * Assign a role through the active backend, which persists it (the memory backend appends to its
+   * user role store). Feedback and audit follow on the server thread once the backend has accepted
+   * the change; the command itself returns immediately. The display name is refreshed by the
+   * group-change event.
+   */
+  private static int assignRole(ServerCommandSource src, ServerPlayerEntity target, String role) {
+    if (!PermissionManager.groupExists(role)) {
+      src.sendError(Text.literal("Unknown role '" + role + "'."));
+      return 0;
+    }
+    String targetName = target.getName().getString();
+    PermissionManager.setGroupAsync(target.getUuid(), role)
+        .whenCompleteAsync(
+            (v, err) -> {
+              if (err != null) {
+                src.sendError(Text.literal("Failed to assign role. See console."));
+                return;
+              }
+              src.sendFeedback(
+                  () -> Text.literal("Assigned role '" + role + "' to " + targetName + "."), true);
+              // audit admin action
+              if (src.getPlayer() != null) {
+                var p = src.getPlayer();
+                AuditManager.logAdminCommand(
+                    p.getUuid(),
+                    p.getName().getString(),
+                    "/sccore perm role " + targetName + " " + role,
+                    java.util.Map.of("type", "role_assign", "target", target.getUuid().toString()));
+              }
+            },
+            src.getServer());
+    return 1;
+  }
+
+  private static int grantNode(
+      ServerCommandSource src, ServerPlayerEntity target, String node, String duration) {
+    if (TimedGrants.normalizeNode(node) == null) {
+      src.sendError(Text.literal("Timed grants take a single node; wildcards are not supported."));
+      return 0;
+    }
+    long millis = parseDuration(duration);
+    if (millis <= 0) {
+      src.sendError(Text.literal("Invalid duration '" + duration + "' (e.g. 10m, 2h, 1d12h)."));
+      return 0;
+    }
+    TimedGrants.grantNode(target.getUuid(), node, millis);
+    String targetName = target.getName().getString();
+    src.sendFeedback(
+        () ->
+            Text.literal(
+                "Granted '" + node + "' to " + targetName + " for " + formatDuration(millis) + "."),
+        true);
+    auditGrant(src, target, "node", node, duration);
+    return 1;
+  }
+
+  /** Like {@link #assignRole}, but the previous role is restored when the duration runs out. */
+  private static int grantRole(
+      ServerCommandSource src, ServerPlayerEntity target, String role, String duration) {
+    long millis = parseDuration(duration);
+    if (millis <= 0) {
+      src.sendError(Text.literal("Invalid duration '" + duration + "' (e.g. 10m, 2h, 1d12h)."));
+      return 0;
+    }
+    if (!PermissionManager.groupExists(role)) {
+      src.sendError(Text.literal("Unknown role '" + role + "'."));
+      return 0;
+    }
+    String targetName = target.getName().getString();
+    TimedGrants.grantRole(target.getUuid(), role, millis)
+        .whenCompleteAsync(
+            (g, err) -> {
+              if (err != null) {
+                src.sendError(Text.literal("Failed to grant role. See console."));
+                return;
+              }
+              src.sendFeedback(
+                  () ->
+                      Text.literal(
+                          "Granted role '"
+                              + role
+                              + "' to "
+                              + targetName
+                              + " for "
+                              + formatDuration(millis)
+                              + " (then back to '"
+                              + g.previous()
+                              + "')."),
+                  true);
+              auditGrant(src, target, "role", role, duration);
+            },
+            src.getServer());
+    return 1;
+  }
+
+  /**
+   * Run a bulk import or export on the transfer thread; files live in the config directory.
+   * Progress and the result are reported back on the server thread.
+   */
+  private static int transfer(
+      ServerCommandSource src, boolean isImport, String formatName, String fileName) {
+    TransferFormat format = TransferFormat.parse(formatName);
+    if (format == null) {
+      src.sendError(Text.literal("Unknown format '" + formatName + "' (csv, ndjson, luckperms)."));
+      return 0;
+    }
+    Path dir = FabricLoader.getInstance().getConfigDir().resolve("sentinelcore").normalize();
+    Path file = dir.resolve(fileName).normalize();
+    if (!file.startsWith(dir)) {
+      src.sendError(Text.literal("File must be inside " + dir + "."));
+      return 0;
+    }
+    if (isImport && !Files.isRegularFile(file)) {
+      src.sendError(Text.literal("No such file: " + file));
+      return 0;
+    }
+    MinecraftServer server = src.getServer();
+    String verb = isImport ? "Import" : "Export";
+    src.sendFeedback(() -> Text.literal(verb + " of " + file.getFileName() + " started."), true);
+    CompletableFuture.runAsync(
+        () -> {
+          String summary;
+          try {
+            if (isImport) {
+              PermissionImporter.Result r =
+                  PermissionImporter.run(
+                      file,
+                      format,
+                      (records, read, total) -> {
+                        long pct = total > 0 ? read * 100 / total : 100;
+                        String line = "  ... " + records + " records (" + pct + "%)";
+                        server.execute(() -> src.sendFeedback(() -> Text.literal(line), false));
+                      });
+              summary = importSummary(r);
+            } else {
+              long records = PermissionExporter.run(file, format);
+              summary = "Exported " + records + " record(s) to " + file.getFileName() + ".";
+            }
+          } catch (IOException | RuntimeException e) {
+            LOG.error("{} of {} failed", verb, file, e);
+            String msg = verb + " failed: " + e.getMessage();
+            server.execute(() -> src.sendError(Text.literal(msg)));
+            return;
+          }
+          server.execute(
+              () -> {
+                src.sendFeedback(() -> Text.literal(summary), true);
+                if (src.getPlayer() != null) {
+                  var p = src.getPlayer();
+                  AuditManager.logAdminCommand(
+                      p.getUuid(),
+                      p.getName().getString(),
+                      "/sccore perm " + verb.toLowerCase() + " " + formatName + " " + fileName,
+                      java.util.Map.of(
+                          "type", "perm_" + verb.toLowerCase(), "file", file.toString()));
+                }
+              });
+        },
+        TRANSFER);
+    return 1;
+  }
+
+  private static String importSummary(PermissionImporter.Result r) {
+    String unknown = r.unknownRoles().isEmpty() ? "" : "; unknown roles " + r.unknownRoles();
+    return String.format(
+        "Imported %d role(s) and %d assignment(s) (%d changed, %d skipped) in %d ms%s",
+        r.roles(), r.assignments(), r.changed(), r.skipped(), r.millis(), unknown);
+  }
+
+  private static int revoked(
+      ServerCommandSource src, ServerPlayerEntity target, String what, boolean removed) {
+    String targetName = target.getName().getString();
+    if (!removed) {
+      src.sendError(Text.literal(targetName + " has no timed " + what + " grant."));
+      return 0;
+    }
+    src.sendFeedback(() -> Text.literal("Revoked timed " + what + " of " + targetName + "."), true);
+    return 1;
+  }
+
+  private static void auditGrant(
+      ServerCommandSource src, ServerPlayerEntity target, String kind, String value, String dur) {
+    if (src.getPlayer() != null) {
+      var p = src.getPlayer();
+      AuditManager.logAdminCommand(
+          p.getUuid(),
+          p.getName().getString(),
+          "/sccore perm grant " + target.getName().getString() + " " + kind + " " + value,
+          java.util.Map.of(
+              "type",
+              "timed_grant",
+              "target",
+              target.getUuid().toString(),
+              "duration",
+              dur));
+    }
+  }
+
+  /**
+   * Parse durations like {@code 90s}, {@code 10m}, {@code 2h} or {@code 1d12h}.
+   *
+   * @return milliseconds, or -1 if malformed or longer than {@link #MAX_GRANT_DAYS} days
+   */
+  static long parseDuration(String text) {
+    long total = 0;
+    long amount = -1;
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (c >= '0' && c <= '9') {
+        amount = (amount < 0 ? 0 : amount) * 10 + (c - '0');
+        if (amount > MAX_GRANT_DAYS * 86_400L) return -1;
+        continue;
+      }
+      long unit =
+          switch (Character.toLowerCase(c)) {
+            case 's' -> 1_000L;
+            case 'm' -> 60_000L;
+            case 'h' -> 3_600_000L;
+            case 'd' -> 86_400_000L;
+            case 'w' -> 604_800_000L;
+            default -> -1L;
+          };
+      if (unit < 0 || amount < 0) return -1;
+      total += amount * unit;
+      if (total > MAX_GRANT_DAYS * 86_400_000L) return -1;
+      amount = -1;
+    }
+    return amount < 0 ? total : -1;
+  }
+
+  /** The two largest non-zero units, e.g. {@code 1d 2h} or {@code 5m 3s}. */
+  static String formatDuration(long millis) {
+    long s = Math.max(0, (millis + 999) / 1000);
+    long[] sizes = {86_400, 3_600, 60, 1};
+    String[] names = {"d", "h", "m", "s"};
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < sizes.length; i++) {
+      long n = s / sizes[i];
+      s %= sizes[i];
+      if (n == 0) {
+        if (sb.length() > 0) break;
+        continue;
+      }
+      if (sb.length() > 0) sb.append(' ');
+      sb.append(n).append(names[i]);
+      if (sb.indexOf(" ") >= 0) break;
+    }
+    return sb.length() > 0 ? sb.toString() : "0s";
+  }
+
+  /** Totals, busiest nodes and per-backend latency, one chat line each. */
+  private static List<String> statsReport() {
+    List<String> lines = new ArrayList<>();
+    lines.add(
+        String.format(
+            "Permission checks: total=%d allow=%d deny=%d op-bypass=%d cached=%d",
+            PermissionMetrics.totalChecks(),
+            PermissionMetrics.total(PermissionMetrics.Outcome.ALLOW),
+            PermissionMetrics.total(PermissionMetrics.Outcome.DENY),
+            PermissionMetrics.total(PermissionMetrics.Outcome.OP_BYPASS),
+            PermissionMetrics.totalCacheHits()));
+
+    lines.add("Top nodes:");
+    for (PermissionMetrics.NodeStats n : PermissionMetrics.top(STATS_TOP_NODES)) {
+      if (n.checks() == 0) break;
+      lines.add(
+          String.format(
+              "  %s checks=%d allow=%d deny=%d op-bypass=%d cached=%d",
+              n.node(),
+              n.checks(),
+              n.count(PermissionMetrics.Outcome.ALLOW),
+              n.count(PermissionMetrics.Outcome.DENY),
+              n.count(PermissionMetrics.Outcome.OP_BYPASS),
+              n.cacheHits()));
+    }
+
+    lines.add("Backend latency:");
+    for (PermissionMetrics.Latency l : PermissionMetrics.backends()) {
+      if (l.count() == 0) continue;
+      lines.add(
+          String.format(
+              "  %s n=%d mean=%.1fus p50<=%.1fus p99<=%.1fus max=%.1fus",
+              l.backend(),
+              l.count(),
+              l.meanNanos() / 1000.0,
+              l.percentileNanos(0.50) / 1000.0,
+              l.percentileNanos(0.99) / 1000.0,
+              l.maxNanos() / 1000.0));
+    }
+    return lines;
+  }
 }
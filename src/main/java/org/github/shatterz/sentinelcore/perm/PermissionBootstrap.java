@@ -1,26 +1,48 @@
 package org.github.shatterz.sentinelcore.perm;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.loader.api.FabricLoader;
 import org.github.shatterz.sentinelcore.config.ConfigManager;
 import org.github.shatterz.sentinelcore.config.CoreConfig;
 import org.github.shatterz.sentinelcore.log.SentinelCategories;
 import org.github.shatterz.sentinelcore.log.SentinelLogger;
+import org.github.shatterz.sentinelcore.perm.events.ContextChangeDispatcher;
+import org.github.shatterz.sentinelcore.perm.events.LoginPrefetch;
+import org.github.shatterz.sentinelcore.perm.events.PermissionContextChangedCallback;
+import org.github.shatterz.sentinelcore.perm.luckperms.LuckPermsEventListener;
 import org.github.shatterz.sentinelcore.perm.luckperms.LuckPermsService;
 import org.github.shatterz.sentinelcore.perm.memory.MemoryPermissionService;
+import org.github.shatterz.sentinelcore.perm.memory.UserRoleStore;
 import org.slf4j.Logger;
 
 public final class PermissionBootstrap {
   private static final Logger LOG = SentinelLogger.cat(SentinelCategories.PERM);
+  private static final String USERS_FILE = "user-roles.log";
   private static PermissionService current;
+  private static UserRoleStore users;
 
   private PermissionBootstrap() {}
 
   public static void init() {
-    installFor(ConfigManager.get());
-    // re-install service when config changes
-    ConfigManager.init(cfg -> installFor(cfg));
+    // re-install service when config changes; a listener rather than the init callback, which any
+    // later ConfigManager.init call (e.g. the feature flags) would replace
+    ConfigManager.addReloadListener(PermissionBootstrap::installFor);
+    ConfigManager.init(null); // loads the config file and runs the listener
+    if (current == null) {
+      installFor(ConfigManager.get()); // config could not be loaded; run on defaults
+    }
+    ServerLifecycleEvents.SERVER_STOPPING.register(
+        s -> {
+          if (users != null) users.flush();
+        });
   }
 
-  private static void installFor(CoreConfig cfg) {
+  private static synchronized void installFor(CoreConfig cfg) {
     String backend =
         (cfg.permissions != null && cfg.permissions.backend != null)
             ? cfg.permissions.backend
@@ -28,54 +50,142 @@ public final class PermissionBootstrap {
 
     if ("memory".equalsIgnoreCase(backend)) {
       MemoryPermissionService mem =
-          (current instanceof MemoryPermissionService m) ? m : new MemoryPermissionService(cfg);
+          (current instanceof MemoryPermissionService m)
+              ? m
+              : new MemoryPermissionService(cfg, userRoles(cfg));
       if (mem != current) {
+        detachLuckPerms();
         current = mem;
         Perms.install(current);
+        LOG.info("Using permission backend: memory");
       } else {
-        mem.reload(cfg);
+        // same backend: only players whose roles changed need fresh decisions
+        refreshAffected(mem.reload(cfg));
+        return;
       }
-      LOG.info("Using permission backend: memory");
 
     } else if ("luckperms".equalsIgnoreCase(backend)
         || "luckperms-bridge".equalsIgnoreCase(backend)) {
       // Bridge mode - query LuckPerms directly
-      LuckPermsService lp = new LuckPermsService(LuckPermsService.Mode.BRIDGE);
-      if (lp.isAvailable()) {
-        current = lp;
-        Perms.install(current);
-        // TODO: Uncomment once LuckPermsEventListener is fully implemented
-        // LuckPermsEventListener.register(lp);
-        LOG.info("Using permission backend: luckperms (bridge mode)");
-      } else {
-        LOG.warn("LuckPerms not available, falling back to memory backend");
-        fallbackToMemory(cfg);
-      }
+      installLuckPerms(cfg, LuckPermsService.Mode.BRIDGE);
 
     } else if ("luckperms-mirror".equalsIgnoreCase(backend)) {
       // Mirror mode - cache LuckPerms data
-      LuckPermsService lp = new LuckPermsService(LuckPermsService.Mode.MIRROR);
-      if (lp.isAvailable()) {
-        current = lp;
-        Perms.install(current);
-        // TODO: Uncomment once LuckPermsEventListener is fully implemented
-        // LuckPermsEventListener.register(lp);
-        LOG.info("Using permission backend: luckperms (mirror mode)");
-      } else {
-        LOG.warn("LuckPerms not available, falling back to memory backend");
-        fallbackToMemory(cfg);
-      }
+      installLuckPerms(cfg, LuckPermsService.Mode.MIRROR);
 
     } else {
       // Unknown backend, fallback to memory
       LOG.warn("Unknown permission backend '{}', using memory.", backend);
       fallbackToMemory(cfg);
     }
+
+    // roles or backend may have changed; drop every cached decision
+    DecisionCache.invalidateAll();
+  }
+
+  private static void installLuckPerms(CoreConfig cfg, LuckPermsService.Mode mode) {
+    // keep the running service (and its mirror) across config reloads that keep the mode
+    if (current instanceof LuckPermsService running && running.getMode() == mode) {
+      return;
+    }
+    LuckPermsService lp = new LuckPermsService(mode);
+    if (lp.isAvailable()) {
+      detachLuckPerms();
+      current = lp;
+      Perms.install(current);
+      LuckPermsEventListener.register(lp);
+      LOG.info("Using permission backend: luckperms ({} mode)", mode.name().toLowerCase());
+    } else {
+      LOG.warn("LuckPerms not available, falling back to memory backend");
+      fallbackToMemory(cfg);
+    }
   }
 
   private static void fallbackToMemory(CoreConfig cfg) {
-    MemoryPermissionService mem = new MemoryPermissionService(cfg);
+    MemoryPermissionService mem = new MemoryPermissionService(cfg, userRoles(cfg));
+    detachLuckPerms();
     current = mem;
     Perms.install(current);
   }
+
+  /**
+   * The memory backend's assignment store, opened on first use. The first time it is created, the
+   * legacy {@code permissions.userRoles} config entries are migrated into it once.
+   */
+  private static UserRoleStore userRoles(CoreConfig cfg) {
+    if (users != null) return users;
+    Path file =
+        FabricLoader.getInstance().getConfigDir().resolve("sentinelcore").resolve(USERS_FILE);
+    boolean fresh = !Files.exists(file);
+    try {
+      users = UserRoleStore.open(file);
+    } catch (IOException e) {
+      LOG.error("Failed to open {}; role assignments will not be persisted", file, e);
+      users = UserRoleStore.inMemory();
+      fresh = true;
+    }
+    Map<String, String> legacy = cfg.permissions != null ? cfg.permissions.userRoles : null;
+    if (legacy != null && !legacy.isEmpty()) {
+      if (fresh) {
+        int migrated = users.importAll(legacy);
+        LOG.info("Migrated {} role assignment(s) from the config into {}", migrated, file);
+      } else {
+        LOG.warn(
+            "Ignoring {} permissions.userRoles entries in the config; assignments live in {}",
+            legacy.size(),
+            file);
+      }
+    }
+    return users;
+  }
+
+  /**
+   * Refresh tracked players after a change applied outside a config reload, such as a bulk import
+   * of role assignments.
+   */
+  public static synchronized void refresh(PermissionChanges changes) {
+    if (current != null) refreshAffected(changes);
+  }
+
+  /**
+   * Invalidate cached decisions of the tracked players a reload touched and report the change for
+   * online players, so their display names are refreshed at the end of the tick. Everyone else
+   * keeps their caches.
+   *
+   * <p>A context is affected through the group the backend now resolves for it, or for online
+   * players the group installed at join. Offline contexts never get a group installed, so their own
+   * group is always "default" and cannot be used.
+   */
+  private static void refreshAffected(PermissionChanges changes) {
+    if (changes.isEmpty()) {
+      LOG.debug("Permission reload changed nothing");
+      return;
+    }
+    LoginPrefetch.rolesChanged();
+    int refreshed = 0;
+    for (RoleContext ctx : RoleContextManager.all()) {
+      UUID uuid = ctx.getUuid();
+      boolean online = RoleContextManager.isOnline(uuid);
+      String group = current.getGroup(uuid);
+      if (!changes.affects(uuid, group) && !(online && changes.affects(uuid, ctx.getGroup()))) {
+        continue;
+      }
+      ctx.invalidateDecisions();
+      if (!online) continue;
+      if (!group.equals(ctx.getGroup())) {
+        RoleContextManager.setGroup(uuid, group);
+      }
+      ContextChangeDispatcher.mark(
+          uuid, PermissionContextChangedCallback.ChangeType.PERMISSION_CHANGED);
+      refreshed++;
+    }
+    LOG.info("Permission reload ({}) refreshed {} player(s)", changes, refreshed);
+  }
+
+  /** Drop LuckPerms subscriptions of the service being replaced (only loaded if LP was in use). */
+  private static void detachLuckPerms() {
+    if (current instanceof LuckPermsService) {
+      LuckPermsEventListener.unregister();
+    }
+  }
 }
@@ -0,0 +1,54 @@
+package org.github.shatterz.sentinelcore.perm;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * What a backend reload actually changed, so only the players it touches have their cached
+ * decisions and display names refreshed.
+ */
+public final class PermissionChanges {
+  public static final PermissionChanges NONE = new PermissionChanges(Set.of(), Set.of(), false);
+  public static final PermissionChanges EVERYONE = new PermissionChanges(Set.of(), Set.of(), true);
+
+  private final Set<String> roles;
+  private final Set<UUID> subjects;
+  private final boolean everyone;
+
+  /**
+   * @param roles changed roles plus every role inheriting them, directly or transitively
+   * @param subjects players whose role assignment changed
+   * @param everyone whether every player may be affected (e.g. the default role changed)
+   */
+  public PermissionChanges(Set<String> roles, Set<UUID> subjects, boolean everyone) {
+    this.roles = Set.copyOf(roles);
+    this.subjects = Set.copyOf(subjects);
+    this.everyone = everyone;
+  }
+
+  public Set<String> roles() {
+    return roles;
+  }
+
+  public Set<UUID> subjects() {
+    return subjects;
+  }
+
+  public boolean everyone() {
+    return everyone;
+  }
+
+  public boolean isEmpty() {
+    return !everyone && roles.isEmpty() && subjects.isEmpty();
+  }
+
+  /** Whether a player holding {@code group} may see different decisions after the change. */
+  public boolean affects(UUID subject, String group) {
+    return everyone || subjects.contains(subject) || (group != null && roles.contains(group));
+  }
+
+  @Override
+  public String toString() {
+    return everyone ? "everyone" : "roles=" + roles + ", subjects=" + subjects.size();
+  }
+}
@@ -1,9 +1,15 @@
 package org.github.shatterz.sentinelcore.perm;
 
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import net.minecraft.server.network.ServerPlayerEntity;
 import org.github.shatterz.sentinelcore.log.SentinelCategories;
 import org.github.shatterz.sentinelcore.log.SentinelLogger;
@@ -23,51 +29,295 @@ public final class PermissionManager {
    * status, and underlying permission service.
    */
   public static boolean has(ServerPlayerEntity player, String node) {
-    return has(player.getUuid(), node, buildContext(player));
+    return cachedHas(RoleContextManager.get(player), node, PermissionNode.lookup(node));
+  }
+
+  /** Check a pre-registered node for a player; answered from the backend's per-node state. */
+  public static boolean has(ServerPlayerEntity player, PermissionNode node) {
+    return cachedHas(RoleContextManager.get(player), node.name(), node);
   }
 
   /** Check if a player has a permission node with custom context. */
   public static boolean has(UUID uuid, String node, Map<String, String> context) {
-    // Check underlying permission service
-    boolean hasPermission = Perms.check(uuid, node, context);
+    PermissionNode handle = PermissionNode.lookup(node);
+    if (handle != null) {
+      return has(uuid, handle, context);
+    }
+
+    // Check underlying permission service, then temporary grants
+    boolean hasPermission = Perms.check(uuid, node, context) || TimedGrants.hasNode(uuid, node);
 
     if (hasPermission) {
-      LOG.debug("Permission check ALLOW: {} -> {}", uuid, node);
+      PermissionMetrics.record(node, null, PermissionMetrics.Outcome.ALLOW);
+      if (LOG.isDebugEnabled()) LOG.debug("Permission check ALLOW: {} -> {}", uuid, node);
       return true;
     }
 
     // Check if player is op (ops bypass permission checks for certain nodes)
     RoleContext ctx = RoleContextManager.get(uuid);
     if (ctx.isOp() && shouldOpBypass(node)) {
-      LOG.debug("Permission check ALLOW (op bypass): {} -> {}", uuid, node);
+      PermissionMetrics.record(node, null, PermissionMetrics.Outcome.OP_BYPASS);
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Permission check ALLOW (op bypass): {} -> {}", uuid, node);
+      }
+      return true;
+    }
+
+    PermissionMetrics.record(node, null, PermissionMetrics.Outcome.DENY);
+    if (LOG.isDebugEnabled()) LOG.debug("Permission check DENY: {} -> {}", uuid, node);
+    return false;
+  }
+
+  /** Check a pre-registered node with custom context. */
+  public static boolean has(UUID uuid, PermissionNode node, Map<String, String> context) {
+    if (Perms.check(uuid, node, context) || TimedGrants.hasNode(uuid, node.name())) {
+      PermissionMetrics.record(node.name(), node, PermissionMetrics.Outcome.ALLOW);
+      if (LOG.isDebugEnabled()) LOG.debug("Permission check ALLOW: {} -> {}", uuid, node);
+      return true;
+    }
+
+    // op-bypass eligibility was computed once when the node was registered
+    RoleContext ctx = RoleContextManager.get(uuid);
+    if (ctx.isOp() && node.opBypass()) {
+      PermissionMetrics.record(node.name(), node, PermissionMetrics.Outcome.OP_BYPASS);
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Permission check ALLOW (op bypass): {} -> {}", uuid, node);
+      }
       return true;
     }
 
-    LOG.debug("Permission check DENY: {} -> {}", uuid, node);
+    PermissionMetrics.record(node.name(), node, PermissionMetrics.Outcome.DENY);
+    if (LOG.isDebugEnabled()) LOG.debug("Permission check DENY: {} -> {}", uuid, node);
     return false;
   }
 
   /** Check if a player has a permission node (UUID-only version). */
   public static boolean has(UUID uuid, String node) {
-    RoleContext ctx = RoleContextManager.get(uuid);
-    return has(uuid, node, ctx.getContextFlags());
+    return cachedHas(RoleContextManager.get(uuid), node, PermissionNode.lookup(node));
   }
 
-  /** Build context map from player's RoleContext. */
-  private static Map<String, String> buildContext(ServerPlayerEntity player) {
+  /** Check a pre-registered node (UUID-only version). */
+  public static boolean has(UUID uuid, PermissionNode node) {
+    return cachedHas(RoleContextManager.get(uuid), node.name(), node);
+  }
+
+  /**
+   * Whether the player's roles or timed grants give {@code node}, ignoring the op bypass. This is
+   * the answer for other mods, whose own op-level fallback still decides for ops. Answers are
+   * cached per player under the same {@link RoleContext#decisionStamp()} as {@link #has} decisions,
+   * but apart from them since the bypass is left out. They are not counted per node, since such
+   * nodes are often built per item, warp or player.
+   */
+  public static boolean grantedByRoles(ServerPlayerEntity player, String node) {
     RoleContext ctx = RoleContextManager.get(player);
-    Map<String, String> context = new HashMap<>(ctx.getContextFlags());
+    long stamp = ctx.decisionStamp();
+    int cached = ctx.roleDecisions().lookup(node, stamp);
+    if (cached != DecisionCache.MISS) {
+      return cached == 1;
+    }
+    PermissionNode handle = PermissionNode.lookup(node);
+    Map<String, String> context = ctx.getContextFlags();
+    UUID uuid = ctx.getUuid();
+    boolean backend =
+        handle != null ? Perms.check(uuid, handle, context) : Perms.check(uuid, node, context);
+    boolean granted = backend || TimedGrants.hasNode(uuid, node);
+    ctx.roleDecisions().store(node, stamp, granted);
+    return granted;
+  }
+
+  /** Non-blocking {@link #grantedByRoles} for a player who may be offline. */
+  public static CompletableFuture<Boolean> grantedByRolesAsync(UUID uuid, String node) {
+    RoleContext ctx = RoleContextManager.get(uuid);
+    long stamp = ctx.decisionStamp();
+    int cached = ctx.roleDecisions().lookup(node, stamp);
+    if (cached != DecisionCache.MISS) {
+      return CompletableFuture.completedFuture(cached == 1);
+    }
+    return ctx.roleDecisions()
+        .resolveOnce(
+            node,
+            stamp,
+            () -> {
+              PermissionNode handle = PermissionNode.lookup(node);
+              Map<String, String> context = ctx.getContextFlags();
+              CompletableFuture<Boolean> answer =
+                  handle != null
+                      ? Perms.checkAsync(uuid, handle, context)
+                      : Perms.checkAsync(uuid, node, context);
+              return answer.thenApply(
+                  backend -> {
+                    boolean granted = backend || TimedGrants.hasNode(uuid, node);
+                    ctx.roleDecisions().store(node, stamp, granted);
+                    return granted;
+                  });
+            });
+  }
+
+  /**
+   * Batch check for one player, e.g. to build a per-player command view or a permission dump. Bit
+   * {@link PermissionNode#id()} is set for every granted node, op bypasses and timed grants
+   * included.
+   */
+  public static BitSet checkAll(UUID uuid, Collection<PermissionNode> nodes) {
+    RoleContext ctx = RoleContextManager.get(uuid);
+    BitSet granted = Perms.checkAll(uuid, nodes, ctx.getContextFlags());
+    for (PermissionNode node : nodes) {
+      if ((ctx.isOp() && node.opBypass()) || TimedGrants.hasNode(uuid, node.name())) {
+        granted.set(node.id());
+      }
+    }
+    return granted;
+  }
+
+  /** Batch check for one online player. */
+  public static BitSet checkAll(ServerPlayerEntity player, Collection<PermissionNode> nodes) {
+    return checkAll(player.getUuid(), nodes);
+  }
+
+  /**
+   * Batch check of one node for many players. Players are grouped by their current context flags so
+   * the backend answers each group in a single pass.
+   */
+  public static Set<UUID> checkMany(Collection<UUID> uuids, PermissionNode node) {
+    Map<Map<String, String>, List<UUID>> byContext = new HashMap<>();
+    Set<UUID> granted = new HashSet<>();
+    for (UUID uuid : uuids) {
+      RoleContext ctx = RoleContextManager.get(uuid);
+      if ((ctx.isOp() && node.opBypass()) || TimedGrants.hasNode(uuid, node.name())) {
+        granted.add(uuid);
+        continue;
+      }
+      byContext.computeIfAbsent(ctx.getContextFlags(), k -> new ArrayList<>()).add(uuid);
+    }
+    byContext.forEach((context, group) -> granted.addAll(Perms.checkMany(group, node, context)));
+    return granted;
+  }
 
-    // Add world context
-    String worldId = player.getEntityWorld().getRegistryKey().getValue().toString();
-    context.put("world", worldId);
+  /**
+   * Non-blocking check: completes immediately on a cache hit or op bypass, otherwise when the
+   * backend answers (the answer is cached for the next call).
+   */
+  public static CompletableFuture<Boolean> hasAsync(UUID uuid, PermissionNode node) {
+    return hasAsync(RoleContextManager.get(uuid), node.name(), node);
+  }
 
-    return context;
+  public static CompletableFuture<Boolean> hasAsync(UUID uuid, String node) {
+    return hasAsync(RoleContextManager.get(uuid), node, PermissionNode.lookup(node));
+  }
+
+  /**
+   * Cached-or-default check for hot paths in front of a slow backend: answers from the player's
+   * decision cache when it holds a current entry, otherwise returns {@code fallback} right away and
+   * resolves the decision in the background so a later call hits the cache.
+   */
+  public static boolean hasCachedOrDefault(UUID uuid, PermissionNode node, boolean fallback) {
+    return cachedOrDefault(RoleContextManager.get(uuid), node.name(), node, fallback);
+  }
+
+  public static boolean hasCachedOrDefault(
+      ServerPlayerEntity player, PermissionNode node, boolean fallback) {
+    return cachedOrDefault(RoleContextManager.get(player), node.name(), node, fallback);
+  }
+
+  public static boolean hasCachedOrDefault(UUID uuid, String node, boolean fallback) {
+    return cachedOrDefault(
+        RoleContextManager.get(uuid), node, PermissionNode.lookup(node), fallback);
+  }
+
+  private static CompletableFuture<Boolean> hasAsync(
+      RoleContext ctx, String node, PermissionNode handle) {
+    if (ctx.isOp() && opBypass(node, handle)) {
+      PermissionMetrics.record(node, handle, PermissionMetrics.Outcome.OP_BYPASS);
+      return CompletableFuture.completedFuture(true);
+    }
+    long stamp = ctx.decisionStamp();
+    int cached = ctx.decisions().lookup(node, stamp);
+    if (cached != DecisionCache.MISS) {
+      PermissionMetrics.recordCacheHit(node, handle, cached == 1);
+      return CompletableFuture.completedFuture(cached == 1);
+    }
+    return resolveAsync(ctx, node, handle, stamp);
+  }
+
+  private static boolean cachedOrDefault(
+      RoleContext ctx, String node, PermissionNode handle, boolean fallback) {
+    if (ctx.isOp() && opBypass(node, handle)) {
+      PermissionMetrics.record(node, handle, PermissionMetrics.Outcome.OP_BYPASS);
+      return true;
+    }
+    long stamp = ctx.decisionStamp();
+    int cached = ctx.decisions().lookup(node, stamp);
+    if (cached != DecisionCache.MISS) {
+      PermissionMetrics.recordCacheHit(node, handle, cached == 1);
+      return cached == 1;
+    }
+    resolveAsync(ctx, node, handle, stamp);
+    return fallback;
+  }
+
+  /**
+   * Ask the backend without blocking and cache the answer under {@code stamp}. A miss while the
+   * same decision is already being resolved shares that resolve rather than queueing another check.
+   */
+  private static CompletableFuture<Boolean> resolveAsync(
+      RoleContext ctx, String node, PermissionNode handle, long stamp) {
+    return ctx.decisions()
+        .resolveOnce(node, stamp, () -> checkAndStore(ctx, node, handle, stamp))
+        .exceptionally(
+            e -> {
+              LOG.warn("Async permission check failed: {} -> {}", ctx.getUuid(), node, e);
+              return false;
+            });
+  }
+
+  private static CompletableFuture<Boolean> checkAndStore(
+      RoleContext ctx, String node, PermissionNode handle, long stamp) {
+    Map<String, String> context = ctx.getContextFlags();
+    CompletableFuture<Boolean> answer =
+        handle != null
+            ? Perms.checkAsync(ctx.getUuid(), handle, context)
+            : Perms.checkAsync(ctx.getUuid(), node, context);
+    return answer.thenApply(
+        backend -> {
+          boolean allowed = backend || TimedGrants.hasNode(ctx.getUuid(), node);
+          ctx.decisions().store(node, stamp, allowed);
+          PermissionMetrics.record(
+              node,
+              handle,
+              allowed ? PermissionMetrics.Outcome.ALLOW : PermissionMetrics.Outcome.DENY);
+          return allowed;
+        });
+  }
+
+  private static boolean opBypass(String node, PermissionNode handle) {
+    return handle != null ? handle.opBypass() : shouldOpBypass(node);
+  }
+
+  /**
+   * Answer from the context's decision cache, resolving and storing on a miss. {@code handle} is
+   * null for unregistered nodes. The backend receives the context's live immutable flag view (kept
+   * current on join, world change and mode toggles), so a cache hit allocates nothing.
+   */
+  private static boolean cachedHas(RoleContext ctx, String node, PermissionNode handle) {
+    long stamp = ctx.decisionStamp();
+    int cached = ctx.decisions().lookup(node, stamp);
+    if (cached != DecisionCache.MISS) {
+      PermissionMetrics.recordCacheHit(node, handle, cached == 1);
+      return cached == 1;
+    }
+    Map<String, String> context = ctx.getContextFlags();
+    boolean result =
+        handle != null
+            ? has(ctx.getUuid(), handle, context)
+            : has(ctx.getUuid(), node, context);
+    ctx.decisions().store(node, stamp, result);
+    return result;
   }
 
   /**
    * Determine if op status should bypass permission check for this node. By default, ops bypass
-   * most checks, but you can add exceptions here.
+   * most checks, but you can add exceptions here. Registered nodes use {@link
+   * PermissionNode#opBypass()} instead, which is computed once at registration.
    */
   private static boolean shouldOpBypass(String node) {
     // Ops should NOT bypass certain dangerous operations
@@ -98,15 +348,109 @@ public final class PermissionManager {
     }
   }
 
+  /** Non-blocking {@link #getGroup}. */
+  public static CompletableFuture<String> getGroupAsync(UUID uuid) {
+    return Perms.getGroupAsync(uuid);
+  }
+
+  /**
+   * Group currently held by the player's RoleContext (installed at join). It is re-read from the
+   * backend in the background once after anything that can change it (an invalidation or a change
+   * to the player's state), and never while such a re-read is still running. A player without a
+   * context gets "default" and no context is created; use {@link #getGroupAsync} for them.
+   */
+  public static String getGroupCachedOrDefault(UUID uuid) {
+    RoleContext ctx = RoleContextManager.getIfPresent(uuid);
+    if (ctx == null) {
+      return "default";
+    }
+    long stamp = ctx.decisionStamp();
+    if (ctx.claimGroupRefresh(stamp)) {
+      Perms.getGroupAsync(uuid)
+          .whenComplete(
+              (group, e) -> {
+                if (e != null) {
+                  ctx.releaseGroupRefresh(stamp);
+                  LOG.warn("Async group refresh failed for {}", uuid, e);
+                } else if (group != null && !group.equals(ctx.getGroup())) {
+                  RoleContextManager.setGroup(uuid, group);
+                }
+              });
+    }
+    return ctx.getGroup();
+  }
+
+  /** Non-blocking {@link #setGroup}; the RoleContext is updated once the backend accepted it. */
+  public static CompletableFuture<Void> setGroupAsync(UUID uuid, String group) {
+    return Perms.setGroupAsync(uuid, group)
+        .thenRun(() -> RoleContextManager.setGroup(uuid, group));
+  }
+
+  /** Non-blocking {@link #getInheritedGroups}; served from the RoleContext cache when current. */
+  public static CompletableFuture<List<String>> getInheritedGroupsAsync(UUID uuid) {
+    RoleContext ctx = RoleContextManager.getIfPresent(uuid);
+    List<String> cached = ctx != null ? ctx.getCachedInheritedGroups() : null;
+    if (cached != null) {
+      return CompletableFuture.completedFuture(cached);
+    }
+    long stamp = ctx != null ? ctx.decisionStamp() : 0;
+    return Perms.getInheritedGroupsAsync(uuid)
+        .thenApply(
+            groups -> {
+              if (ctx != null) {
+                ctx.cacheInheritedGroups(groups, stamp);
+              }
+              return groups;
+            });
+  }
+
   /** Get all groups a player inherits from. */
   public static List<String> getInheritedGroups(UUID uuid) {
     PermissionService svc = getService();
     if (svc != null) {
-      return svc.getInheritedGroups(uuid);
+      // online players keep the resolved list until the next invalidation
+      RoleContext ctx = RoleContextManager.getIfPresent(uuid);
+      List<String> cached = ctx != null ? ctx.getCachedInheritedGroups() : null;
+      if (cached != null) {
+        return cached;
+      }
+      long stamp = ctx != null ? ctx.decisionStamp() : 0;
+      List<String> groups = svc.getInheritedGroups(uuid);
+      if (ctx != null) {
+        ctx.cacheInheritedGroups(groups, stamp);
+      }
+      return groups;
     }
     return List.of("default");
   }
 
+  /**
+   * Whether the player is in {@code group}, directly or through inheritance. Served from the
+   * RoleContext's inherited groups when current, otherwise by the backend (a bit test for locally
+   * compiled roles).
+   */
+  public static boolean inGroup(UUID uuid, String group) {
+    if (group == null) return false;
+    PermissionService svc = getService();
+    if (svc == null) {
+      return "default".equals(group);
+    }
+    RoleContext ctx = RoleContextManager.getIfPresent(uuid);
+    List<String> cached = ctx != null ? ctx.getCachedInheritedGroups() : null;
+    return cached != null ? cached.contains(group) : svc.inGroup(uuid, group);
+  }
+
+  /**
+   * Whether {@code group} is {@code parent} or inherits it, answered from the backend's role graph
+   * (a bit test for locally compiled roles). Unlike {@link #inGroup} it takes a group the caller
+   * already read, not a player, so it never consults the player's live context.
+   */
+  public static boolean groupInherits(String group, String parent) {
+    if (group == null || parent == null) return false;
+    PermissionService svc = getService();
+    return group.equals(parent) || svc != null && svc.groupInherits(group, parent);
+  }
+
   /** Check if a group exists. */
   public static boolean groupExists(String group) {
     PermissionService svc = getService();
@@ -0,0 +1,240 @@
+package org.github.shatterz.sentinelcore.perm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters for permission checks, recorded at the {@link PermissionManager#has} and {@link
+ * Perms#check} boundary.
+ *
+ * <p>Every node gets its own {@link NodeStats}. The counters are {@link LongAdder}s, which stripe
+ * updates across cells under contention, so recording is a few uncontended adds. Registered nodes
+ * find their stats by id, so recording them never touches a map. Unregistered node strings get
+ * their own stats up to {@value #MAX_UNREGISTERED} distinct names; beyond that they are counted
+ * together under {@value #OTHER}, so mods building node names per item, warp or player cannot grow
+ * the table without bound. Backend latency goes into a log2-bucketed {@link Latency} histogram per
+ * backend name.
+ */
+public final class PermissionMetrics {
+  /** How a check was answered. */
+  public enum Outcome {
+    ALLOW,
+    DENY,
+    OP_BYPASS
+  }
+
+  static final int MAX_UNREGISTERED = 1024;
+  static final String OTHER = "<other>";
+
+  private static final Map<String, NodeStats> BY_NAME = new ConcurrentHashMap<>();
+  private static final AtomicInteger UNREGISTERED = new AtomicInteger();
+  private static final NodeStats OTHER_STATS = new NodeStats(OTHER);
+  private static volatile NodeStats[] BY_ID = new NodeStats[0];
+  private static final Map<String, Latency> BACKENDS = new ConcurrentHashMap<>();
+
+  private PermissionMetrics() {}
+
+  /** Counters of one permission node. */
+  public static final class NodeStats {
+    private final String node;
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder[] outcomes = {new LongAdder(), new LongAdder(), new LongAdder()};
+
+    NodeStats(String node) {
+      this.node = node;
+    }
+
+    public String node() {
+      return node;
+    }
+
+    public long checks() {
+      return checks.sum();
+    }
+
+    /** Checks answered from a player's decision cache (op bypasses there count as allow). */
+    public long cacheHits() {
+      return cacheHits.sum();
+    }
+
+    public long count(Outcome outcome) {
+      return outcomes[outcome.ordinal()].sum();
+    }
+
+    void record(Outcome outcome) {
+      checks.increment();
+      outcomes[outcome.ordinal()].increment();
+    }
+
+    void reset() {
+      checks.reset();
+      cacheHits.reset();
+      for (LongAdder a : outcomes) a.reset();
+    }
+  }
+
+  /**
+   * Latency histogram with power-of-two nanosecond buckets: bucket {@code b} holds samples in
+   * {@code [2^(b-1), 2^b)}. Percentiles are reported as the upper bound of their bucket.
+   */
+  public static final class Latency {
+    private static final int BUCKETS = 40; // up to ~9 minutes
+
+    private final String backend;
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    Latency(String backend) {
+      this.backend = backend;
+      for (int i = 0; i < BUCKETS; i++) buckets[i] = new LongAdder();
+    }
+
+    public void record(long nanos) {
+      if (nanos < 0) nanos = 0;
+      buckets[Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos))].increment();
+      count.increment();
+      totalNanos.add(nanos);
+      maxNanos.accumulate(nanos);
+    }
+
+    public String backend() {
+      return backend;
+    }
+
+    public long count() {
+      return count.sum();
+    }
+
+    public double meanNanos() {
+      long n = count.sum();
+      return n == 0 ? 0.0 : (double) totalNanos.sum() / n;
+    }
+
+    public long maxNanos() {
+      return maxNanos.get();
+    }
+
+    /**
+     * Upper bound (in nanoseconds) of the bucket holding the {@code p} quantile, 0 < p <= 1, capped
+     * at the largest recorded sample.
+     */
+    public long percentileNanos(double p) {
+      long[] snapshot = new long[BUCKETS];
+      long total = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        snapshot[i] = buckets[i].sum();
+        total += snapshot[i];
+      }
+      if (total == 0) return 0;
+      long rank = (long) Math.ceil(p * total);
+      long seen = 0;
+      for (int i = 0; i < BUCKETS; i++) {
+        seen += snapshot[i];
+        if (seen >= rank) return i == 0 ? 0 : Math.min(1L << i, maxNanos.get());
+      }
+      return maxNanos.get();
+    }
+
+    void reset() {
+      for (LongAdder b : buckets) b.reset();
+      count.reset();
+      totalNanos.reset();
+      maxNanos.reset();
+    }
+  }
+
+  /** Record a check answered by resolution (backend call or op bypass). */
+  public static void record(String node, PermissionNode handle, Outcome outcome) {
+    stats(node, handle).record(outcome);
+  }
+
+  /** Record a check answered from a decision cache. */
+  public static void recordCacheHit(String node, PermissionNode handle, boolean allowed) {
+    NodeStats s = stats(node, handle);
+    s.cacheHits.increment();
+    s.record(allowed ? Outcome.ALLOW : Outcome.DENY);
+  }
+
+  /** Latency histogram for a backend; the caller should keep the reference. */
+  public static Latency backend(String name) {
+    return BACKENDS.computeIfAbsent(name, Latency::new);
+  }
+
+  public static Collection<Latency> backends() {
+    return List.copyOf(BACKENDS.values());
+  }
+
+  /** The {@code limit} nodes with the most checks, busiest first. */
+  public static List<NodeStats> top(int limit) {
+    List<NodeStats> all = new ArrayList<>(BY_NAME.values());
+    all.sort(Comparator.comparingLong(NodeStats::checks).reversed());
+    return all.subList(0, Math.min(limit, all.size()));
+  }
+
+  public static long totalChecks() {
+    long total = 0;
+    for (NodeStats s : BY_NAME.values()) total += s.checks();
+    return total;
+  }
+
+  public static long total(Outcome outcome) {
+    long total = 0;
+    for (NodeStats s : BY_NAME.values()) total += s.count(outcome);
+    return total;
+  }
+
+  public static long totalCacheHits() {
+    long total = 0;
+    for (NodeStats s : BY_NAME.values()) total += s.cacheHits();
+    return total;
+  }
+
+  /** Zero every counter and histogram (nodes and backends stay registered). */
+  public static void reset() {
+    BY_NAME.values().forEach(NodeStats::reset);
+    BACKENDS.values().forEach(Latency::reset);
+  }
+
+  private static NodeStats stats(String node, PermissionNode handle) {
+    if (handle != null) {
+      NodeStats[] byId = BY_ID;
+      int id = handle.id();
+      if (id < byId.length && byId[id] != null) return byId[id];
+      return registerHandle(handle);
+    }
+    NodeStats s = BY_NAME.get(node);
+    if (s != null) return s;
+    if (UNREGISTERED.get() >= MAX_UNREGISTERED) {
+      BY_NAME.putIfAbsent(OTHER, OTHER_STATS);
+      return OTHER_STATS;
+    }
+    return BY_NAME.computeIfAbsent(
+        node,
+        n -> {
+          UNREGISTERED.incrementAndGet();
+          return new NodeStats(n);
+        });
+  }
+
+  private static synchronized NodeStats registerHandle(PermissionNode handle) {
+    NodeStats[] byId = BY_ID;
+    int id = handle.id();
+    if (id < byId.length && byId[id] != null) return byId[id];
+    NodeStats s = BY_NAME.computeIfAbsent(handle.name(), NodeStats::new);
+    NodeStats[] grown = id < byId.length ? byId.clone() : Arrays.copyOf(byId, id + 1);
+    grown[id] = s;
+    BY_ID = grown;
+    return s;
+  }
+}
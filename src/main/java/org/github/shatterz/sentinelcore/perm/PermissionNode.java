@@ -0,0 +1,88 @@
+package org.github.shatterz.sentinelcore.perm;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interned handle for a permission node known at startup.
+ *
+ * <p>Subsystems register their nodes once as constants, e.g. {@code static final PermissionNode
+ * BYPASS = PermissionNode.of("sentinelcore.spawnprot.bypass")}. Every registered node gets a dense
+ * integer id so backends can precompute per-role bitsets and answer a check with a single bit test.
+ * Anything that is only known at runtime can keep using plain strings; those go through the
+ * backend's general (trie) path.
+ */
+public final class PermissionNode {
+  private static final Map<String, PermissionNode> BY_NAME = new ConcurrentHashMap<>();
+  private static volatile PermissionNode[] BY_ID = new PermissionNode[0];
+
+  private final String name;
+  private final int id;
+  private final boolean opBypass;
+
+  private PermissionNode(String name, int id) {
+    this.name = name;
+    this.id = id;
+    // Ops should NOT bypass certain dangerous operations
+    this.opBypass = !name.contains(".admin.dangerous");
+  }
+
+  /** Register (or fetch the already registered) handle for {@code name}. */
+  public static PermissionNode of(String name) {
+    if (name == null || name.isEmpty()) {
+      throw new IllegalArgumentException("Permission node must not be empty");
+    }
+    PermissionNode existing = BY_NAME.get(name);
+    if (existing != null) return existing;
+    synchronized (PermissionNode.class) {
+      String key = name.toLowerCase(Locale.ROOT);
+      existing = BY_NAME.get(key);
+      if (existing == null) {
+        PermissionNode[] ids = BY_ID;
+        existing = new PermissionNode(key, ids.length);
+        PermissionNode[] grown = Arrays.copyOf(ids, ids.length + 1);
+        grown[existing.id] = existing;
+        BY_NAME.put(key, existing);
+        BY_ID = grown;
+      }
+      if (!key.equals(name)) BY_NAME.put(name, existing);
+      return existing;
+    }
+  }
+
+  /** Registered handle for {@code name}, or null if nobody registered it. Never registers. */
+  public static PermissionNode lookup(String name) {
+    return name != null ? BY_NAME.get(name) : null;
+  }
+
+  /** Registered handle with the given id. */
+  public static PermissionNode byId(int id) {
+    return BY_ID[id];
+  }
+
+  /** Number of registered nodes; ids are {@code 0 .. count() - 1}. */
+  public static int count() {
+    return BY_ID.length;
+  }
+
+  /** Lowercased node string. */
+  public String name() {
+    return name;
+  }
+
+  public int id() {
+    return id;
+  }
+
+  /** Whether a denied check on this node may still pass for ops (precomputed at registration). */
+  public boolean opBypass() {
+    return opBypass;
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+}
@@ -1,12 +1,49 @@
 package org.github.shatterz.sentinelcore.perm;
 
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 public interface PermissionService {
   boolean check(UUID subject, String node, Map<String, String> ctx);
 
+  /**
+   * Check a pre-registered node. Backends with per-node compiled state override this; the default
+   * goes through the string path.
+   */
+  default boolean check(UUID subject, PermissionNode node, Map<String, String> ctx) {
+    return check(subject, node.name(), ctx);
+  }
+
+  /**
+   * Check several registered nodes for one subject. Bit {@link PermissionNode#id()} of the result
+   * is set for every granted node. Backends override this to resolve the subject only once.
+   */
+  default BitSet checkAll(UUID subject, Collection<PermissionNode> nodes, Map<String, String> ctx) {
+    BitSet granted = new BitSet();
+    for (PermissionNode node : nodes) {
+      if (check(subject, node, ctx)) granted.set(node.id());
+    }
+    return granted;
+  }
+
+  /**
+   * Check one registered node for many subjects evaluated in the same context; returns the subjects
+   * that are granted. Backends override this to decide once per distinct role or subject data.
+   */
+  default Set<UUID> checkMany(
+      Collection<UUID> subjects, PermissionNode node, Map<String, String> ctx) {
+    Set<UUID> granted = new HashSet<>();
+    for (UUID subject : subjects) {
+      if (check(subject, node, ctx)) granted.add(subject);
+    }
+    return granted;
+  }
+
   String name();
 
   /**
@@ -22,6 +59,22 @@ public interface PermissionService {
   /** Get all groups a player inherits from (including their primary group). */
   List<String> getInheritedGroups(UUID subject);
 
+  /**
+   * Whether the player is in {@code group}, directly or through inheritance. Backends with a
+   * precomputed role closure override this; the default searches {@link #getInheritedGroups}.
+   */
+  default boolean inGroup(UUID subject, String group) {
+    return group != null && getInheritedGroups(subject).contains(group);
+  }
+
+  /**
+   * Whether {@code group} is {@code parent} or inherits it, directly or transitively. Backends that
+   * know the role graph override this; the default only recognises the group itself.
+   */
+  default boolean groupInherits(String group, String parent) {
+    return group != null && group.equals(parent);
+  }
+
   /** Check if a group exists in the permission system. */
   boolean groupExists(String group);
 }
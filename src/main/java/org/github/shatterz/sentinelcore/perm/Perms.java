@@ -1,8 +1,14 @@
 package org.github.shatterz.sentinelcore.perm;
 
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicReference;
 import org.github.shatterz.sentinelcore.log.SentinelCategories;
 import org.github.shatterz.sentinelcore.log.SentinelLogger;
@@ -11,10 +17,17 @@ import org.slf4j.Logger;
 public final class Perms {
   private static final Logger LOG = SentinelLogger.cat(SentinelCategories.PERM);
   private static final AtomicReference<PermissionService> IMPL = new AtomicReference<>();
+  private static final AtomicReference<AsyncPermissionService> ASYNC = new AtomicReference<>();
+  private static volatile PermissionMetrics.Latency latency = PermissionMetrics.backend("<none>");
 
   private Perms() {}
 
   public static void install(PermissionService svc) {
+    latency = PermissionMetrics.backend(svc != null ? svc.name() : "<none>");
+    ASYNC.set(
+        svc == null
+            ? null
+            : svc instanceof AsyncPermissionService a ? a : new BlockingServiceAdapter(svc));
     IMPL.set(svc);
     LOG.info("PermissionService installed: {}", svc != null ? svc.name() : "<none>");
   }
@@ -22,13 +35,101 @@ public final class Perms {
   public static boolean check(UUID subject, String node, Map<String, String> ctx) {
     PermissionService svc = IMPL.get();
     if (svc == null) return false;
-    return svc.check(subject, node, ctx != null ? ctx : Collections.emptyMap());
+    long start = System.nanoTime();
+    boolean allowed = svc.check(subject, node, ctx != null ? ctx : Collections.emptyMap());
+    latency.record(System.nanoTime() - start);
+    return allowed;
   }
 
   public static boolean check(UUID subject, String node) {
     return check(subject, node, Collections.emptyMap());
   }
 
+  public static boolean check(UUID subject, PermissionNode node, Map<String, String> ctx) {
+    PermissionService svc = IMPL.get();
+    if (svc == null) return false;
+    long start = System.nanoTime();
+    boolean allowed = svc.check(subject, node, ctx != null ? ctx : Collections.emptyMap());
+    latency.record(System.nanoTime() - start);
+    return allowed;
+  }
+
+  public static boolean check(UUID subject, PermissionNode node) {
+    return check(subject, node, Collections.emptyMap());
+  }
+
+  /** Batch check: bit {@link PermissionNode#id()} is set for every granted node. */
+  public static BitSet checkAll(
+      UUID subject, Collection<PermissionNode> nodes, Map<String, String> ctx) {
+    PermissionService svc = IMPL.get();
+    if (svc == null) return new BitSet();
+    return svc.checkAll(subject, nodes, ctx != null ? ctx : Collections.emptyMap());
+  }
+
+  public static BitSet checkAll(UUID subject, Collection<PermissionNode> nodes) {
+    return checkAll(subject, nodes, Collections.emptyMap());
+  }
+
+  /** Batch check: the subjects granted {@code node} in the given context. */
+  public static Set<UUID> checkMany(
+      Collection<UUID> subjects, PermissionNode node, Map<String, String> ctx) {
+    PermissionService svc = IMPL.get();
+    if (svc == null) return new HashSet<>();
+    return svc.checkMany(subjects, node, ctx != null ? ctx : Collections.emptyMap());
+  }
+
+  public static Set<UUID> checkMany(Collection<UUID> subjects, PermissionNode node) {
+    return checkMany(subjects, node, Collections.emptyMap());
+  }
+
+  public static CompletableFuture<Boolean> checkAsync(
+      UUID subject, String node, Map<String, String> ctx) {
+    AsyncPermissionService svc = ASYNC.get();
+    if (svc == null) return CompletableFuture.completedFuture(false);
+    return svc.checkAsync(subject, node, ctx != null ? ctx : Collections.emptyMap());
+  }
+
+  public static CompletableFuture<Boolean> checkAsync(
+      UUID subject, PermissionNode node, Map<String, String> ctx) {
+    AsyncPermissionService svc = ASYNC.get();
+    if (svc == null) return CompletableFuture.completedFuture(false);
+    return svc.checkAsync(subject, node, ctx != null ? ctx : Collections.emptyMap());
+  }
+
+  public static CompletableFuture<String> getGroupAsync(UUID subject) {
+    AsyncPermissionService svc = ASYNC.get();
+    if (svc == null) return CompletableFuture.completedFuture("default");
+    return svc.getGroupAsync(subject);
+  }
+
+  public static CompletableFuture<Void> setGroupAsync(UUID subject, String group) {
+    AsyncPermissionService svc = ASYNC.get();
+    if (svc == null) return CompletableFuture.completedFuture(null);
+    return svc.setGroupAsync(subject, group);
+  }
+
+  public static CompletableFuture<List<String>> getInheritedGroupsAsync(UUID subject) {
+    AsyncPermissionService svc = ASYNC.get();
+    if (svc == null) return CompletableFuture.completedFuture(List.of("default"));
+    return svc.getInheritedGroupsAsync(subject);
+  }
+
+  public static CompletableFuture<Boolean> groupExistsAsync(String group) {
+    AsyncPermissionService svc = ASYNC.get();
+    if (svc == null) return CompletableFuture.completedFuture(false);
+    return svc.groupExistsAsync(group);
+  }
+
+  /**
+   * Non-blocking view of the current service: the service itself if it implements {@link
+   * AsyncPermissionService}, otherwise an adapter running its blocking calls off-thread.
+   *
+   * @return the async view, or null if no service is installed
+   */
+  public static AsyncPermissionService async() {
+    return ASYNC.get();
+  }
+
   /**
    * Get the current permission service instance.
    *
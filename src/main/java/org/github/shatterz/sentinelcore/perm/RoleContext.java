@@ -1,98 +1,272 @@
 package org.github.shatterz.sentinelcore.perm;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Stores per-player state for permission evaluation. Tracks group, op status, mod-mode, vanish, and
  * context flags.
+ *
+ * <p>The state is held in an immutable, versioned {@link Snapshot}. Every change builds a new
+ * snapshot with the next version and publishes it with a single volatile write (writers are
+ * serialized), so any thread can read a consistent view without locking, and the context flags can
+ * be handed straight to the backend without copying. The version is part of {@link
+ * #decisionStamp()}: a state change makes this player's cached decisions stale without an explicit
+ * invalidation.
  */
 public final class RoleContext {
   private final UUID uuid;
-  private String group;
-  private boolean isOp;
-  private boolean modMode;
-  private boolean vanished;
-  private final Map<String, String> contextFlags;
+  private final DecisionCache decisions = new DecisionCache();
+  private final DecisionCache roleDecisions = new DecisionCache();
+  private volatile Snapshot state = Snapshot.INITIAL;
+  private volatile InheritedGroups inherited;
+  private final AtomicLong groupRefresh = new AtomicLong(-1); // stamp of the last group re-read
+
+  /** Immutable state of one player; {@link #version()} grows with every change. */
+  public static final class Snapshot {
+    static final Snapshot INITIAL = new Snapshot(0, "default", false, false, false, Map.of());
+
+    private final long version;
+    private final String group;
+    private final boolean op;
+    private final boolean modMode;
+    private final boolean vanished;
+    private final Map<String, String> contextFlags;
+
+    private Snapshot(
+        long version,
+        String group,
+        boolean op,
+        boolean modMode,
+        boolean vanished,
+        Map<String, String> contextFlags) {
+      this.version = version;
+      this.group = group;
+      this.op = op;
+      this.modMode = modMode;
+      this.vanished = vanished;
+      this.contextFlags = contextFlags;
+    }
+
+    public long version() {
+      return version;
+    }
+
+    public String group() {
+      return group;
+    }
+
+    public boolean isOp() {
+      return op;
+    }
+
+    public boolean isModMode() {
+      return modMode;
+    }
+
+    public boolean isVanished() {
+      return vanished;
+    }
+
+    /** Immutable context flags. */
+    public Map<String, String> contextFlags() {
+      return contextFlags;
+    }
+
+    @Override
+    public String toString() {
+      return "v"
+          + version
+          + ", group='"
+          + group
+          + '\''
+          + ", isOp="
+          + op
+          + ", modMode="
+          + modMode
+          + ", vanished="
+          + vanished
+          + ", contextFlags="
+          + contextFlags;
+    }
+  }
+
+  /** Inherited groups as resolved by the backend at a given decision stamp. */
+  private static final class InheritedGroups {
+    final List<String> groups;
+    final long stamp;
+
+    InheritedGroups(List<String> groups, long stamp) {
+      this.groups = groups;
+      this.stamp = stamp;
+    }
+  }
 
   public RoleContext(UUID uuid) {
     this.uuid = uuid;
-    this.group = "default";
-    this.isOp = false;
-    this.modMode = false;
-    this.vanished = false;
-    this.contextFlags = new HashMap<>();
   }
 
   public UUID getUuid() {
     return uuid;
   }
 
+  /** Current state; read it once when several fields must agree with each other. */
+  public Snapshot snapshot() {
+    return state;
+  }
+
   public String getGroup() {
-    return group;
+    return state.group;
+  }
+
+  public synchronized void setGroup(String group) {
+    Snapshot s = state;
+    String next = group != null ? group : "default";
+    if (next.equals(s.group)) return;
+    state = new Snapshot(s.version + 1, next, s.op, s.modMode, s.vanished, s.contextFlags);
+  }
+
+  /**
+   * Claim the background re-read of the group from the backend for {@code stamp}. Succeeds once per
+   * stamp, so the group is re-read only after something changed and never twice at the same time.
+   */
+  boolean claimGroupRefresh(long stamp) {
+    long last = groupRefresh.get();
+    return last != stamp && groupRefresh.compareAndSet(last, stamp);
+  }
+
+  /** Give up a claim whose re-read failed, so the next call retries it. */
+  void releaseGroupRefresh(long stamp) {
+    groupRefresh.compareAndSet(stamp, -1);
+  }
+
+  /**
+   * Inherited groups cached for this player, or null if none were cached or anything that can
+   * change them (backend reload, role assignment, a state change) happened since.
+   */
+  public List<String> getCachedInheritedGroups() {
+    InheritedGroups cached = inherited;
+    return cached != null && cached.stamp == decisionStamp() ? cached.groups : null;
+  }
+
+  /**
+   * Cache inherited groups resolved by the backend.
+   *
+   * @param stamp {@link #decisionStamp()} captured before resolving them
+   */
+  public void cacheInheritedGroups(List<String> groups, long stamp) {
+    inherited = groups != null ? new InheritedGroups(List.copyOf(groups), stamp) : null;
+  }
+
+  /**
+   * Validity stamp of this player's cached decisions and inherited groups: the decision cache's
+   * stamp plus the snapshot version. It changes whenever this player or everyone is invalidated, or
+   * this player's state changes; all parts only grow, so it never returns to an earlier value.
+   */
+  public long decisionStamp() {
+    return decisions.stamp() + state.version;
   }
 
-  public void setGroup(String group) {
-    this.group = group != null ? group : "default";
+  /** Drop this player's cached decisions and inherited groups, leaving other players' intact. */
+  public void invalidateDecisions() {
+    decisions.invalidate();
   }
 
   public boolean isOp() {
-    return isOp;
+    return state.op;
   }
 
-  public void setOp(boolean op) {
-    this.isOp = op;
+  public synchronized void setOp(boolean op) {
+    Snapshot s = state;
+    if (s.op == op) return;
+    state = new Snapshot(s.version + 1, s.group, op, s.modMode, s.vanished, s.contextFlags);
   }
 
   public boolean isModMode() {
-    return modMode;
+    return state.modMode;
   }
 
-  public void setModMode(boolean modMode) {
-    this.modMode = modMode;
-    updateContextFlag("modmode", String.valueOf(modMode));
+  public synchronized void setModMode(boolean modMode) {
+    Snapshot s = state;
+    if (s.modMode == modMode) return;
+    state =
+        new Snapshot(
+            s.version + 1,
+            s.group,
+            s.op,
+            modMode,
+            s.vanished,
+            withFlag(s.contextFlags, "modmode", String.valueOf(modMode)));
   }
 
   public boolean isVanished() {
-    return vanished;
+    return state.vanished;
   }
 
-  public void setVanished(boolean vanished) {
-    this.vanished = vanished;
-    updateContextFlag("vanished", String.valueOf(vanished));
+  public synchronized void setVanished(boolean vanished) {
+    Snapshot s = state;
+    if (s.vanished == vanished) return;
+    state =
+        new Snapshot(
+            s.version + 1,
+            s.group,
+            s.op,
+            s.modMode,
+            vanished,
+            withFlag(s.contextFlags, "vanished", String.valueOf(vanished)));
   }
 
+  /** Immutable view of the current context flags; safe to keep and pass to other threads. */
   public Map<String, String> getContextFlags() {
-    return Collections.unmodifiableMap(contextFlags);
+    return state.contextFlags;
   }
 
-  public void updateContextFlag(String key, String value) {
-    if (value == null) {
-      contextFlags.remove(key);
-    } else {
-      contextFlags.put(key, value);
+  public synchronized void updateContextFlag(String key, String value) {
+    Snapshot s = state;
+    if (Objects.equals(s.contextFlags.get(key), value)) {
+      return;
     }
+    // context feeds into this player's permission decisions; the new version makes them stale
+    state =
+        new Snapshot(
+            s.version + 1,
+            s.group,
+            s.op,
+            s.modMode,
+            s.vanished,
+            withFlag(s.contextFlags, key, value));
   }
 
   public void setWorldContext(String worldId) {
     updateContextFlag("world", worldId);
   }
 
+  /** Per-player cache of resolved permission decisions. */
+  DecisionCache decisions() {
+    return decisions;
+  }
+
+  /**
+   * Per-player cache of decisions made from roles and timed grants alone, without the op bypass.
+   * Entries are stored and looked up under {@link #decisionStamp()}, so they go stale together
+   * with {@link #decisions()}.
+   */
+  DecisionCache roleDecisions() {
+    return roleDecisions;
+  }
+
+  private static Map<String, String> withFlag(Map<String, String> flags, String key, String value) {
+    Map<String, String> next = new HashMap<>(flags);
+    if (value == null) {
+      next.remove(key);
+    } else {
+      next.put(key, value);
+    }
+    return Map.copyOf(next);
+  }
+
   @Override
   public String toString() {
-    return "RoleContext{"
-        + "uuid="
-        + uuid
-        + ", group='"
-        + group
-        + '\''
-        + ", isOp="
-        + isOp
-        + ", modMode="
-        + modMode
-        + ", vanished="
-        + vanished
-        + ", contextFlags="
-        + contextFlags
-        + '}';
+    return "RoleContext{" + "uuid=" + uuid + ", " + state + '}';
   }
 }
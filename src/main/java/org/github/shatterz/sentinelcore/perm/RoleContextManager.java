@@ -1,27 +1,60 @@
 package org.github.shatterz.sentinelcore.perm;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import net.minecraft.server.network.ServerPlayerEntity;
 import org.github.shatterz.sentinelcore.log.SentinelCategories;
 import org.github.shatterz.sentinelcore.log.SentinelLogger;
+import org.github.shatterz.sentinelcore.perm.events.ContextChangeDispatcher;
+import org.github.shatterz.sentinelcore.perm.events.LoginPrefetch;
 import org.github.shatterz.sentinelcore.perm.events.PermissionContextChangedCallback;
 import org.slf4j.Logger;
 
 /**
- * Manages RoleContext instances for all online players. Provides methods to get, update, and remove
- * player contexts.
+ * Manages RoleContext instances. Online players live in a registry that is populated on join
+ * ({@link #join}) and cleared on disconnect ({@link #remove}). Lookups for anyone else (offline
+ * UUIDs from commands, audits or backend events) get a transient context from a size-bounded,
+ * access-ordered cache, so referencing a UUID once no longer pins its context for the lifetime of
+ * the server.
  */
 public final class RoleContextManager {
   private static final Logger LOG = SentinelLogger.cat(SentinelCategories.PERM);
-  private static final Map<UUID, RoleContext> contexts = new ConcurrentHashMap<>();
+  private static final int OFFLINE_CAPACITY = 1024;
+  private static final Map<UUID, RoleContext> online = new ConcurrentHashMap<>();
+  private static final OfflineCache offline = new OfflineCache();
+
+  /** LRU of offline contexts; every access goes through its monitor. */
+  private static final class OfflineCache extends LinkedHashMap<UUID, RoleContext> {
+    long hits;
+    long misses;
+    long evictions;
+
+    OfflineCache() {
+      super(64, 0.75f, true);
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<UUID, RoleContext> eldest) {
+      if (size() <= OFFLINE_CAPACITY) return false;
+      evictions++;
+      return true;
+    }
+  }
 
   private RoleContextManager() {}
 
-  /** Get or create a RoleContext for the given player. */
+  /**
+   * Context for the given player: the online one if they are connected, otherwise a cached offline
+   * context (created on first use and dropped once it is the least recently used of {@value
+   * #OFFLINE_CAPACITY}).
+   */
   public static RoleContext get(UUID uuid) {
-    return contexts.computeIfAbsent(uuid, RoleContext::new);
+    RoleContext ctx = online.get(uuid);
+    return ctx != null ? ctx : getOffline(uuid);
   }
 
   /** Get or create a RoleContext for the given player. */
@@ -29,8 +62,99 @@ public final class RoleContextManager {
     return get(player.getUuid());
   }
 
-  /** Update the group for a player. */
+  private static RoleContext getOffline(UUID uuid) {
+    synchronized (offline) {
+      // re-check under the lock: join() moves players to the registry while holding it
+      RoleContext ctx = online.get(uuid);
+      if (ctx != null) return ctx;
+      ctx = offline.get(uuid);
+      if (ctx != null) {
+        offline.hits++;
+        return ctx;
+      }
+      offline.misses++;
+      ctx = new RoleContext(uuid);
+      offline.put(uuid, ctx);
+      return ctx;
+    }
+  }
+
+  /**
+   * Register a joining player with a fresh context, replacing any offline one (whose decisions were
+   * made without the player's world and op state).
+   */
+  public static RoleContext join(UUID uuid) {
+    RoleContext ctx = new RoleContext(uuid);
+    synchronized (offline) {
+      offline.remove(uuid);
+      online.put(uuid, ctx);
+    }
+    return ctx;
+  }
+
+  /** Existing RoleContext for the player (online or cached offline), or null; never creates one. */
+  public static RoleContext getIfPresent(UUID uuid) {
+    if (uuid == null) return null;
+    RoleContext ctx = online.get(uuid);
+    if (ctx != null) return ctx;
+    synchronized (offline) {
+      return offline.get(uuid);
+    }
+  }
+
+  /** Whether the player has an online context. */
+  public static boolean isOnline(UUID uuid) {
+    return uuid != null && online.containsKey(uuid);
+  }
+
+  /** Snapshot of every tracked context, online players first. */
+  public static List<RoleContext> all() {
+    List<RoleContext> all = new ArrayList<>(online.values());
+    synchronized (offline) {
+      all.addAll(offline.values());
+    }
+    return all;
+  }
+
+  public static int onlineCount() {
+    return online.size();
+  }
+
+  public static int offlineCount() {
+    synchronized (offline) {
+      return offline.size();
+    }
+  }
+
+  public static int offlineCapacity() {
+    return OFFLINE_CAPACITY;
+  }
+
+  public static long offlineHits() {
+    synchronized (offline) {
+      return offline.hits;
+    }
+  }
+
+  public static long offlineMisses() {
+    synchronized (offline) {
+      return offline.misses;
+    }
+  }
+
+  /** Offline contexts dropped to stay within {@link #offlineCapacity()}. */
+  public static long offlineEvictions() {
+    synchronized (offline) {
+      return offline.evictions;
+    }
+  }
+
+  /**
+   * Update the group for a player. The context's new snapshot version makes only this player's
+   * cached decisions stale.
+   */
   public static void setGroup(UUID uuid, String group) {
+    LoginPrefetch.subjectChanged(uuid); // before applying; see LoginPrefetch
     RoleContext ctx = get(uuid);
     String oldGroup = ctx.getGroup();
     ctx.setGroup(group);
@@ -62,26 +186,25 @@ public final class RoleContextManager {
     fireEvent(uuid, PermissionContextChangedCallback.ChangeType.VANISH_CHANGED);
   }
 
-  /** Remove a player's context (e.g., on disconnect). */
+  /** Remove a player's online context (on disconnect). */
   public static void remove(UUID uuid) {
-    RoleContext removed = contexts.remove(uuid);
+    RoleContext removed = online.remove(uuid);
     if (removed != null) {
       LOG.debug("Removed RoleContext for {}", uuid);
     }
   }
 
-  /** Clear all contexts (e.g., on server shutdown). */
+  /** Clear all contexts, online and offline (e.g., on server shutdown). */
   public static void clear() {
-    contexts.clear();
+    online.clear();
+    synchronized (offline) {
+      offline.clear();
+    }
     LOG.info("Cleared all RoleContexts");
   }
 
-  /** Fire a permission context changed event. */
+  /** Queue a permission context changed event; dispatched once per player at end of tick. */
   private static void fireEvent(UUID uuid, PermissionContextChangedCallback.ChangeType changeType) {
-    // Try to find the player and fire the event
-    // Note: This requires access to the server instance, which we'll need to handle
-    // For now, we'll just log that we would fire the event
-    LOG.debug("Would fire {} event for player {}", changeType, uuid);
-    // TODO: Fire actual event when player instance is available
+    ContextChangeDispatcher.mark(uuid, changeType);
   }
 }
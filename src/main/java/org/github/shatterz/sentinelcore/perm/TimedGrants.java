@@ -0,0 +1,409 @@
+package org.github.shatterz.sentinelcore.perm;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.server.MinecraftServer;
+import org.github.shatterz.sentinelcore.log.SentinelCategories;
+import org.github.shatterz.sentinelcore.log.SentinelLogger;
+import org.github.shatterz.sentinelcore.perm.events.ContextChangeDispatcher;
+import org.github.shatterz.sentinelcore.perm.events.PermissionContextChangedCallback;
+import org.slf4j.Logger;
+
+/**
+ * Time-limited grants: a permission node, or a role, held until a deadline.
+ *
+ * <p>Node grants are consulted by {@link PermissionManager} after the backend denies, for every
+ * backend. They are single exact nodes, matched case-insensitively like registered {@link
+ * PermissionNode}s; wildcards are not accepted, since a grant is looked up by name rather than
+ * through the roles' permission trie. A role grant assigns the role through the backend and
+ * remembers the role to return to; when it ends, the previous role is restored unless the player's
+ * role was changed in the meantime.
+ *
+ * <p>Deadlines are wall-clock times, persisted to {@code timed-grants.tsv} so grants survive
+ * restarts, and enforced by a {@link TimerWheel} advanced once per server tick: pending grants cost
+ * nothing until they are due, however many there are. Starting or ending a grant invalidates the
+ * player's cached decisions and reports a {@link PermissionContextChangedCallback} change.
+ */
+public final class TimedGrants {
+  private static final Logger LOG = SentinelLogger.cat(SentinelCategories.PERM);
+  private static final String FILE = "timed-grants.tsv";
+  private static final long TICK_MILLIS = 50; // wheel resolution: one server tick
+
+  public enum Kind {
+    NODE,
+    ROLE
+  }
+
+  /** One grant. Immutable apart from its wheel handle. */
+  public static final class Grant {
+    final UUID subject;
+    final Kind kind;
+    final String value;
+    final long expiresAt;
+    final String previous;
+    TimerWheel.Timer<Grant> timer; // guarded by LOCK
+
+    Grant(UUID subject, Kind kind, String value, long expiresAt, String previous) {
+      this.subject = subject;
+      this.kind = kind;
+      this.value = value;
+      this.expiresAt = expiresAt;
+      this.previous = previous;
+    }
+
+    public UUID subject() {
+      return subject;
+    }
+
+    public Kind kind() {
+      return kind;
+    }
+
+    /** The granted node or role. */
+    public String value() {
+      return value;
+    }
+
+    /** Epoch millis at which the grant ends. */
+    public long expiresAt() {
+      return expiresAt;
+    }
+
+    /** Role to restore when a role grant ends; null for node grants. */
+    public String previous() {
+      return previous;
+    }
+  }
+
+  private static final Object LOCK = new Object();
+  private static final Map<UUID, Map<String, Grant>> NODES = new ConcurrentHashMap<>();
+  private static final Map<UUID, Grant> ROLES = new ConcurrentHashMap<>();
+  private static final List<Grant> DUE = new ArrayList<>(); // guarded by LOCK
+  private static final TimerWheel<Grant> WHEEL =
+      new TimerWheel<>(System.currentTimeMillis() / TICK_MILLIS); // guarded by LOCK
+  private static final AtomicBoolean SAVE_QUEUED = new AtomicBoolean();
+  private static Path file;
+  private static ExecutorService writer;
+
+  private TimedGrants() {}
+
+  /** Load persisted grants and start ticking them from the server loop. */
+  public static void init() {
+    file = FabricLoader.getInstance().getConfigDir().resolve("sentinelcore").resolve(FILE);
+    writer =
+        Executors.newSingleThreadExecutor(
+            r -> {
+              Thread t = new Thread(r, "SentinelCore-Grants");
+              t.setDaemon(true);
+              return t;
+            });
+    load();
+    ServerTickEvents.END_SERVER_TICK.register(TimedGrants::tick);
+    ServerLifecycleEvents.SERVER_STOPPING.register(s -> flush());
+  }
+
+  /** Whether {@code subject} holds an unexpired grant of {@code node}, ignoring case. */
+  public static boolean hasNode(UUID subject, String node) {
+    if (NODES.isEmpty() || subject == null || node == null) return false;
+    Map<String, Grant> grants = NODES.get(subject);
+    // toLowerCase returns the same instance for the usual already-lowercase node
+    return grants != null && grants.containsKey(node.toLowerCase(Locale.ROOT));
+  }
+
+  /**
+   * The form a node grant is stored under: lowercased, or null if {@code node} cannot be granted
+   * (empty, containing whitespace, or a wildcard).
+   */
+  public static String normalizeNode(String node) {
+    if (node == null || node.isEmpty() || node.indexOf('*') >= 0) return null;
+    if (node.chars().anyMatch(Character::isWhitespace)) return null;
+    return node.toLowerCase(Locale.ROOT);
+  }
+
+  /** Active grants of one player, roles first. */
+  public static List<Grant> grantsOf(UUID subject) {
+    List<Grant> out = new ArrayList<>();
+    Grant role = ROLES.get(subject);
+    if (role != null) out.add(role);
+    Map<String, Grant> nodes = NODES.get(subject);
+    if (nodes != null) out.addAll(nodes.values());
+    return out;
+  }
+
+  /** Number of grants waiting to expire. */
+  public static int pending() {
+    synchronized (LOCK) {
+      return WHEEL.size();
+    }
+  }
+
+  /**
+   * Grant {@code node} for {@code millis}; re-granting a held node replaces its deadline.
+   *
+   * @throws IllegalArgumentException if the node cannot be granted (see {@link #normalizeNode})
+   */
+  public static Grant grantNode(UUID subject, String node, long millis) {
+    String name = normalizeNode(node);
+    if (name == null) {
+      throw new IllegalArgumentException("Cannot grant node '" + node + "'");
+    }
+    Grant g = new Grant(subject, Kind.NODE, name, System.currentTimeMillis() + millis, null);
+    synchronized (LOCK) {
+      Grant old = NODES.computeIfAbsent(subject, k -> new ConcurrentHashMap<>()).put(name, g);
+      if (old != null) WHEEL.cancel(old.timer);
+      g.timer = WHEEL.schedule(g, deadlineTick(g.expiresAt));
+    }
+    save();
+    invalidate(subject);
+    return g;
+  }
+
+  /**
+   * Assign {@code role} for {@code millis}. Replacing a running role grant keeps the role that was
+   * held before the first one, so the player still returns to their permanent role.
+   *
+   * @return completes once the backend accepted the assignment
+   */
+  public static CompletableFuture<Grant> grantRole(UUID subject, String role, long millis) {
+    long expiresAt = System.currentTimeMillis() + millis;
+    return Perms.getGroupAsync(subject)
+        .thenCompose(
+            current -> {
+              Grant g;
+              synchronized (LOCK) {
+                Grant old = ROLES.get(subject);
+                g =
+                    new Grant(
+                        subject, Kind.ROLE, role, expiresAt, old != null ? old.previous : current);
+                if (old != null) WHEEL.cancel(old.timer);
+                ROLES.put(subject, g);
+                g.timer = WHEEL.schedule(g, deadlineTick(expiresAt));
+              }
+              save();
+              return PermissionManager.setGroupAsync(subject, role).thenApply(v -> g);
+            });
+  }
+
+  /**
+   * End a node grant early.
+   *
+   * @return whether the player held it
+   */
+  public static boolean revokeNode(UUID subject, String node) {
+    String name = normalizeNode(node);
+    if (name == null) return false;
+    Grant g;
+    synchronized (LOCK) {
+      Map<String, Grant> nodes = NODES.get(subject);
+      g = nodes != null ? nodes.get(name) : null;
+      if (g == null) return false;
+      WHEEL.cancel(g.timer);
+      detach(g);
+    }
+    save();
+    ended(g);
+    return true;
+  }
+
+  /**
+   * End a role grant early, restoring the previous role.
+   *
+   * @return whether the player had one
+   */
+  public static boolean revokeRole(UUID subject) {
+    Grant g;
+    synchronized (LOCK) {
+      g = ROLES.get(subject);
+      if (g == null) return false;
+      WHEEL.cancel(g.timer);
+      detach(g);
+    }
+    save();
+    ended(g);
+    return true;
+  }
+
+  /** Advance the wheel to the current time and end every grant that became due. */
+  private static void tick(MinecraftServer server) {
+    long now = System.currentTimeMillis() / TICK_MILLIS;
+    List<Grant> due;
+    synchronized (LOCK) {
+      if (now <= WHEEL.now()) return;
+      WHEEL.advance(now, DUE::add);
+      if (DUE.isEmpty()) return;
+      for (Grant g : DUE) detach(g);
+      due = new ArrayList<>(DUE);
+      DUE.clear();
+    }
+    save();
+    for (Grant g : due) {
+      LOG.info(
+          "Timed {} grant '{}' of {} expired", g.kind.name().toLowerCase(), g.value, g.subject);
+      ended(g);
+    }
+  }
+
+  /** Remove an ended grant from the lookup maps (under LOCK). */
+  private static void detach(Grant g) {
+    if (g.kind == Kind.ROLE) {
+      ROLES.remove(g.subject, g);
+      return;
+    }
+    Map<String, Grant> nodes = NODES.get(g.subject);
+    if (nodes != null && nodes.remove(g.value, g) && nodes.isEmpty()) {
+      NODES.remove(g.subject, nodes);
+    }
+  }
+
+  /**
+   * Apply the end of a grant: drop cached decisions or restore the role. Restoring goes through
+   * {@link RoleContextManager#setGroup}, which reports the group change itself.
+   */
+  private static void ended(Grant g) {
+    if (g.kind == Kind.NODE) {
+      invalidate(g.subject);
+      return;
+    }
+    // only undo our own assignment; a role set by hand in the meantime stays
+    Perms.getGroupAsync(g.subject)
+        .thenCompose(
+            current ->
+                g.value.equals(current)
+                    ? PermissionManager.setGroupAsync(g.subject, g.previous)
+                    : CompletableFuture.<Void>completedFuture(null))
+        .whenComplete(
+            (v, err) -> {
+              if (err != null) {
+                LOG.error("Failed to restore role of {} to '{}'", g.subject, g.previous, err);
+              }
+            });
+  }
+
+  /** Drop the player's cached decisions and tell listeners their permissions changed. */
+  private static void invalidate(UUID subject) {
+    RoleContext ctx = RoleContextManager.getIfPresent(subject);
+    if (ctx != null) ctx.invalidateDecisions();
+    ContextChangeDispatcher.mark(
+        subject, PermissionContextChangedCallback.ChangeType.PERMISSION_CHANGED);
+  }
+
+  /** First wheel tick at or after {@code millis}, so a grant never ends early. */
+  private static long deadlineTick(long millis) {
+    return Math.floorDiv(millis + TICK_MILLIS - 1, TICK_MILLIS);
+  }
+
+  /** Queue a rewrite of the grants file; changes arriving before it runs share the write. */
+  private static void save() {
+    if (writer != null && SAVE_QUEUED.compareAndSet(false, true)) {
+      writer.execute(TimedGrants::write);
+    }
+  }
+
+  /** Wait until every change made so far is on disk. */
+  public static void flush() {
+    if (writer == null) return;
+    try {
+      CompletableFuture.runAsync(() -> {}, writer).get(5, TimeUnit.SECONDS);
+    } catch (Exception e) {
+      LOG.warn("Timed out flushing {}", file, e);
+    }
+  }
+
+  /** One line per grant: uuid, kind, value, expiry millis and, for roles, the previous role. */
+  private static void write() {
+    SAVE_QUEUED.set(false);
+    StringBuilder sb = new StringBuilder();
+    for (Grant g : ROLES.values()) {
+      line(sb, g).append('\t').append(g.previous).append('\n');
+    }
+    for (Map<String, Grant> nodes : NODES.values()) {
+      for (Grant g : nodes.values()) line(sb, g).append('\n');
+    }
+    Path tmp = file.resolveSibling(FILE + ".tmp");
+    try {
+      Files.createDirectories(file.getParent());
+      try (FileChannel out =
+          FileChannel.open(
+              tmp,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.WRITE,
+              StandardOpenOption.TRUNCATE_EXISTING)) {
+        ByteBuffer buf = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+        while (buf.hasRemaining()) {
+          out.write(buf);
+        }
+        out.force(true);
+      }
+      Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      LOG.error("Failed to save timed grants to {}", file, e);
+    }
+  }
+
+  private static StringBuilder line(StringBuilder sb, Grant g) {
+    return sb.append(g.subject)
+        .append('\t')
+        .append(g.kind.name())
+        .append('\t')
+        .append(g.value)
+        .append('\t')
+        .append(g.expiresAt);
+  }
+
+  /** Reschedule persisted grants; any that ran out while the server was down end on first tick. */
+  private static void load() {
+    if (!Files.exists(file)) return;
+    int loaded = 0;
+    try (BufferedReader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = r.readLine()) != null) {
+        String[] f = line.split("\t", -1);
+        try {
+          UUID subject = UUID.fromString(f[0]);
+          Kind kind = Kind.valueOf(f[1]);
+          // node grants written before names were normalized may be mixed-case
+          String value = kind == Kind.NODE ? normalizeNode(f[2]) : f[2];
+          if (value == null) throw new IllegalArgumentException(f[2]);
+          Grant g =
+              new Grant(
+                  subject, kind, value, Long.parseLong(f[3]), kind == Kind.ROLE ? f[4] : null);
+          synchronized (LOCK) {
+            if (kind == Kind.ROLE) {
+              ROLES.put(subject, g);
+            } else {
+              NODES.computeIfAbsent(subject, k -> new ConcurrentHashMap<>()).put(g.value, g);
+            }
+            g.timer = WHEEL.schedule(g, deadlineTick(g.expiresAt));
+          }
+          loaded++;
+        } catch (RuntimeException e) {
+          LOG.warn("Skipping malformed timed grant in {}: {}", file, line);
+        }
+      }
+    } catch (IOException e) {
+      LOG.error("Failed to load timed grants from {}", file, e);
+    }
+    LOG.info("Loaded {} timed grant(s) from {}", loaded, file);
+  }
+}
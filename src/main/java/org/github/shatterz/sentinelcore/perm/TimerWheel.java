@@ -0,0 +1,168 @@
+package org.github.shatterz.sentinelcore.perm;
+
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timer wheel: {@value #LEVELS} levels of {@value #SLOTS} slots, level {@code n}
+ * covering {@code 64^n} ticks per slot. Scheduling and cancelling are O(1); advancing by one tick
+ * fires one slot and, every 64 ticks, redistributes one slot of the next level down. A timer is
+ * touched at most once per level on its way to firing, so thousands of pending timers cost nothing
+ * on ticks where none of them is due, and a long gap (a stalled server) is crossed slot by slot
+ * rather than tick by tick.
+ *
+ * <p>Five levels cover 2^30 ticks; later deadlines park in the top level and are re-filed whenever
+ * their slot comes round. Not thread-safe: callers serialize access.
+ *
+ * @param <T> payload handed to the expiry consumer
+ */
+public final class TimerWheel<T> {
+  private static final int BITS = 6;
+  private static final int SLOTS = 1 << BITS;
+  private static final int MASK = SLOTS - 1;
+  private static final int LEVELS = 5;
+
+  private final Timer<T>[][] wheel;
+  private final int[] pending = new int[LEVELS];
+  private long now;
+  private int size;
+
+  /** Handle for a scheduled payload; pass it to {@link #cancel} to unschedule. */
+  public static final class Timer<T> {
+    final T value;
+    final long deadline;
+    Timer<T> prev;
+    Timer<T> next;
+    int level = -1; // -1 while not scheduled
+
+    Timer(T value, long deadline) {
+      this.value = value;
+      this.deadline = deadline;
+    }
+
+    public T value() {
+      return value;
+    }
+
+    public long deadline() {
+      return deadline;
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  public TimerWheel(long startTick) {
+    this.now = startTick;
+    this.wheel = new Timer[LEVELS][];
+    for (int level = 0; level < LEVELS; level++) {
+      Timer<T>[] slots = new Timer[SLOTS];
+      for (int i = 0; i < SLOTS; i++) {
+        // sentinel heads of circular lists, so linking and unlinking never branch on emptiness
+        Timer<T> head = new Timer<>(null, Long.MIN_VALUE);
+        head.prev = head;
+        head.next = head;
+        slots[i] = head;
+      }
+      wheel[level] = slots;
+    }
+  }
+
+  /** Last tick that was processed; every timer with a deadline up to here has fired. */
+  public long now() {
+    return now;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /** Schedule {@code value} to fire at {@code deadline}; past deadlines fire on the next tick. */
+  public Timer<T> schedule(T value, long deadline) {
+    Timer<T> t = new Timer<>(value, Math.max(deadline, now + 1));
+    insert(t);
+    size++;
+    return t;
+  }
+
+  /** @return whether the timer was still pending */
+  public boolean cancel(Timer<T> t) {
+    if (t == null || t.level < 0) return false;
+    unlink(t);
+    size--;
+    return true;
+  }
+
+  /** Process every tick up to and including {@code tick}, handing due payloads to {@code fired}. */
+  public void advance(long tick, Consumer<? super T> fired) {
+    while (now < tick) {
+      if (size == 0) {
+        now = tick; // nothing pending: skip the idle ticks outright
+        return;
+      }
+      int lowest = 0;
+      while (pending[lowest] == 0) lowest++;
+      if (lowest > 0) {
+        // nothing can fire before the lowest occupied level's next slot boundary: jump there
+        long boundary = ((now >>> (BITS * lowest)) + 1) << (BITS * lowest);
+        now = Math.min(tick, boundary - 1);
+        if (now == tick) return;
+      }
+      now++;
+      // when a level's lower digits roll over to zero, its current slot moves down a level
+      for (int level = 1; level < LEVELS; level++) {
+        if ((now & ((1L << (BITS * level)) - 1)) != 0) break;
+        cascade(level, (int) ((now >>> (BITS * level)) & MASK));
+      }
+      Timer<T> head = wheel[0][(int) (now & MASK)];
+      while (head.next != head) {
+        Timer<T> t = head.next;
+        unlink(t);
+        size--;
+        fired.accept(t.value);
+      }
+    }
+  }
+
+  private void cascade(int level, int slot) {
+    Timer<T> head = wheel[level][slot];
+    Timer<T> t = head.next;
+    head.prev = head;
+    head.next = head;
+    while (t != head) {
+      Timer<T> next = t.next;
+      pending[level]--;
+      insert(t);
+      t = next;
+    }
+  }
+
+  /** File under the highest digit in which the deadline differs from {@link #now}. */
+  private void insert(Timer<T> t) {
+    int level = 0;
+    while (level < LEVELS - 1
+        && (t.deadline >>> (BITS * (level + 1))) != (now >>> (BITS * (level + 1)))) {
+      level++;
+    }
+    int slot;
+    if (t.deadline - now >= 1L << (BITS * LEVELS)) {
+      // beyond the wheel: park in the top slot that comes round last, then re-file from there
+      slot = (int) (((now >>> (BITS * level)) - 1) & MASK);
+    } else {
+      slot = (int) ((t.deadline >>> (BITS * level)) & MASK);
+    }
+    Timer<T> head = wheel[level][slot];
+    t.prev = head.prev;
+    t.next = head;
+    head.prev.next = t;
+    head.prev = t;
+    t.level = level;
+    pending[level]++;
+  }
+
+  private void unlink(Timer<T> t) {
+    t.prev.next = t.next;
+    t.next.prev = t.prev;
+    t.prev = null;
+    t.next = null;
+    pending[t.level]--;
+    t.level = -1;
+  }
+}
@@ -0,0 +1,63 @@
+package org.github.shatterz.sentinelcore.perm.events;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import org.github.shatterz.sentinelcore.log.SentinelCategories;
+import org.github.shatterz.sentinelcore.log.SentinelLogger;
+import org.slf4j.Logger;
+
+/**
+ * Per-tick coalescing buffer for {@link PermissionContextChangedCallback}.
+ *
+ * <p>Changes may be reported from any thread; each one ORs its {@link
+ * PermissionContextChangedCallback.ChangeType#bit()} into a mask per player. At the end of every
+ * server tick the masks are drained and listeners run once per online player with everything that
+ * changed, so a reload or bulk import touching a player several times still resends their name and
+ * scoreboard packets only once. Changes for players who are offline by then are dropped.
+ */
+public final class ContextChangeDispatcher {
+  private static final Logger LOG = SentinelLogger.cat(SentinelCategories.PERM);
+  private static final Map<UUID, Integer> PENDING = new ConcurrentHashMap<>();
+
+  private ContextChangeDispatcher() {}
+
+  public static void register() {
+    ServerTickEvents.END_SERVER_TICK.register(ContextChangeDispatcher::dispatch);
+    ServerLifecycleEvents.SERVER_STOPPED.register(s -> PENDING.clear());
+  }
+
+  /** Record a change; listeners see it at the end of the current (or next) tick. */
+  public static void mark(UUID uuid, PermissionContextChangedCallback.ChangeType type) {
+    if (uuid != null) {
+      PENDING.merge(uuid, type.bit(), (a, b) -> a | b);
+    }
+  }
+
+  /** Players with changes waiting for the end of the tick. */
+  public static int pending() {
+    return PENDING.size();
+  }
+
+  private static void dispatch(MinecraftServer server) {
+    if (PENDING.isEmpty()) return;
+    for (UUID uuid : PENDING.keySet()) {
+      // remove() takes the mask atomically: a change racing with this lands in the next tick
+      Integer mask = PENDING.remove(uuid);
+      if (mask == null) continue;
+      ServerPlayerEntity player = server.getPlayerManager().getPlayer(uuid);
+      if (player == null) continue;
+      try {
+        PermissionContextChangedCallback.EVENT
+            .invoker()
+            .onContextChanged(player, PermissionContextChangedCallback.ChangeType.fromMask(mask));
+      } catch (RuntimeException e) {
+        LOG.error("Permission context listener failed for {}", uuid, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,177 @@
+package org.github.shatterz.sentinelcore.perm.events;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.github.shatterz.sentinelcore.log.SentinelCategories;
+import org.github.shatterz.sentinelcore.log.SentinelLogger;
+import org.github.shatterz.sentinelcore.names.CommunityPrefixManager;
+import org.github.shatterz.sentinelcore.perm.DecisionCache;
+import org.github.shatterz.sentinelcore.perm.Perms;
+import org.slf4j.Logger;
+
+/**
+ * Resolves per-player state while the player is still in the login phase, so JOIN only installs a
+ * finished result instead of querying backends on the server thread.
+ *
+ * <p>{@link #start} is called from {@code ServerLoginConnectionEvents.QUERY_START}: the group and
+ * inherited groups are requested through the async permission SPI, and the community prefix
+ * selection is loaded on a small daemon pool, all concurrently. The login waits for {@link
+ * #loginBarrier} (bounded by {@link #LOGIN_WAIT_SECONDS}), which only delays that connection, never
+ * the tick. Every part falls back to a default on failure, so the returned futures never complete
+ * exceptionally.
+ *
+ * <p>The group can change between the prefetch and JOIN: an assignment made while the player logs
+ * in, a reload, or (in MIRROR mode) LuckPerms loading the user only after the prefetch read the
+ * mirror. Each connecting player has a version that {@link #subjectChanged} and {@link
+ * #rolesChanged} bump, and JOIN installs a result only while {@link #isCurrent} holds; otherwise it
+ * {@link #reload}s.
+ */
+public final class LoginPrefetch {
+  private static final Logger LOG = SentinelLogger.cat(SentinelCategories.PERM);
+  private static final long LOGIN_WAIT_SECONDS = 5;
+
+  private static final ExecutorService EXECUTOR =
+      Executors.newFixedThreadPool(
+          2,
+          r -> {
+            Thread t = new Thread(r, "SentinelCore-Prefetch");
+            t.setDaemon(true);
+            return t;
+          });
+  private static final Map<UUID, CompletableFuture<Result>> PENDING = new ConcurrentHashMap<>();
+  // players between prefetch and install; anything that may change their group bumps the counter
+  private static final Map<UUID, AtomicLong> VERSIONS = new ConcurrentHashMap<>();
+
+  private LoginPrefetch() {}
+
+  /** Everything JOIN needs to set up a player. */
+  public static final class Result {
+    public final String group;
+    public final List<String> inheritedGroups;
+    public final String communityPrefix;
+
+    /** Decision-cache generation captured before loading (see {@link #isCurrent}). */
+    public final long generation;
+
+    /** The player's version captured before loading (see {@link #isCurrent}). */
+    public final long version;
+
+    Result(
+        String group,
+        List<String> inheritedGroups,
+        String communityPrefix,
+        long generation,
+        long version) {
+      this.group = group;
+      this.inheritedGroups = inheritedGroups;
+      this.communityPrefix = communityPrefix;
+      this.generation = generation;
+      this.version = version;
+    }
+  }
+
+  /** Start (or join an already running) prefetch for a connecting player. */
+  public static CompletableFuture<Result> start(UUID uuid) {
+    return PENDING.computeIfAbsent(uuid, LoginPrefetch::load);
+  }
+
+  /**
+   * Future for the login synchronizer: completes with the prefetch or after the login wait limit,
+   * whichever comes first, so a slow backend cannot hold the connection forever.
+   */
+  public static CompletableFuture<Void> loginBarrier(UUID uuid) {
+    return start(uuid)
+        .<Void>thenApply(r -> null)
+        .completeOnTimeout(null, LOGIN_WAIT_SECONDS, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Hand the prefetch for a joining player over to the caller. Starts one if the login phase did
+   * not (e.g. the integrated server); the result may still be in flight.
+   */
+  public static CompletableFuture<Result> take(UUID uuid) {
+    CompletableFuture<Result> pending = PENDING.remove(uuid);
+    return pending != null ? pending : load(uuid);
+  }
+
+  /** Load again, for a result that is no longer {@link #isCurrent}. */
+  public static CompletableFuture<Result> reload(UUID uuid) {
+    return load(uuid);
+  }
+
+  /**
+   * Whether nothing that could change the player's group or inherited groups happened since {@code
+   * result} was loaded.
+   */
+  public static boolean isCurrent(UUID uuid, Result result) {
+    AtomicLong version = VERSIONS.get(uuid);
+    return version != null
+        && version.get() == result.version
+        && DecisionCache.generation() == result.generation;
+  }
+
+  /**
+   * The player's group may have changed. Call before applying the change, so a JOIN installing an
+   * older result either sees the bump or is overwritten by the change.
+   */
+  public static void subjectChanged(UUID uuid) {
+    AtomicLong version = uuid != null ? VERSIONS.get(uuid) : null;
+    if (version != null) version.incrementAndGet();
+  }
+
+  /** Roles changed, so any connecting player's groups may have. */
+  public static void rolesChanged() {
+    VERSIONS.values().forEach(AtomicLong::incrementAndGet);
+  }
+
+  /** The joined player's result is installed; later changes go to their online context. */
+  public static void finish(UUID uuid) {
+    VERSIONS.remove(uuid);
+  }
+
+  /** Drop a prefetch whose player never made it to JOIN. */
+  public static void discard(UUID uuid) {
+    if (uuid != null) {
+      PENDING.remove(uuid);
+      VERSIONS.remove(uuid);
+    }
+  }
+
+  private static CompletableFuture<Result> load(UUID uuid) {
+    long generation = DecisionCache.generation();
+    long version = VERSIONS.computeIfAbsent(uuid, k -> new AtomicLong()).get();
+    CompletableFuture<String> group = guard(uuid, "group", Perms.getGroupAsync(uuid), "default");
+    CompletableFuture<List<String>> inherited =
+        guard(
+            uuid,
+            "inherited groups",
+            Perms.getInheritedGroupsAsync(uuid).thenApply(List::copyOf),
+            List.of("default"));
+    CompletableFuture<String> prefix =
+        guard(
+            uuid,
+            "community prefix",
+            CompletableFuture.supplyAsync(
+                () -> CommunityPrefixManager.getSelectedPrefix(uuid), EXECUTOR),
+            null);
+    return CompletableFuture.allOf(group, inherited, prefix)
+        .thenApply(
+            v -> new Result(group.join(), inherited.join(), prefix.join(), generation, version));
+  }
+
+  private static <T> CompletableFuture<T> guard(
+      UUID uuid, String what, CompletableFuture<T> future, T fallback) {
+    return future.exceptionally(
+        e -> {
+          LOG.warn("Prefetch of {} for {} failed, using default", what, uuid, e);
+          return fallback;
+        });
+  }
+}
@@ -1,5 +1,7 @@
 package org.github.shatterz.sentinelcore.perm.events;
 
+import java.util.EnumSet;
+import java.util.Set;
 import net.fabricmc.fabric.api.event.Event;
 import net.fabricmc.fabric.api.event.EventFactory;
 import net.minecraft.server.network.ServerPlayerEntity;
@@ -7,31 +9,60 @@ import net.minecraft.server.network.ServerPlayerEntity;
 /**
  * Event fired when a player's permission context changes. This includes group changes, op status
  * changes, mod-mode toggles, etc.
+ *
+ * <p>Changes are coalesced per tick by {@link ContextChangeDispatcher}: a listener is called at
+ * most once per player per tick, with every kind of change that happened during it.
  */
 public interface PermissionContextChangedCallback {
   Event<PermissionContextChangedCallback> EVENT =
       EventFactory.createArrayBacked(
           PermissionContextChangedCallback.class,
           (listeners) ->
-              (player, changeType) -> {
+              (player, changes) -> {
                 for (PermissionContextChangedCallback listener : listeners) {
-                  listener.onContextChanged(player, changeType);
+                  listener.onContextChanged(player, changes);
                 }
               });
 
   /**
-   * Called when a player's permission context changes.
+   * Called at the end of a tick in which the player's permission context changed.
    *
    * @param player the player whose context changed
-   * @param changeType the type of change that occurred
+   * @param changes the kinds of change that occurred (never empty, unmodifiable)
    */
-  void onContextChanged(ServerPlayerEntity player, ChangeType changeType);
+  void onContextChanged(ServerPlayerEntity player, Set<ChangeType> changes);
 
   enum ChangeType {
     GROUP_CHANGED,
     OP_CHANGED,
     MODMODE_CHANGED,
     VANISH_CHANGED,
-    PERMISSION_CHANGED
+    PERMISSION_CHANGED;
+
+    private static final ChangeType[] VALUES = values();
+    private static final Set<ChangeType>[] SETS = sets();
+
+    /** Bit of this type in a change mask. */
+    public int bit() {
+      return 1 << ordinal();
+    }
+
+    /** Shared unmodifiable set for a change mask, so dispatching allocates nothing. */
+    public static Set<ChangeType> fromMask(int mask) {
+      return SETS[mask & (SETS.length - 1)];
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<ChangeType>[] sets() {
+      Set<ChangeType>[] sets = new Set[1 << VALUES.length];
+      for (int mask = 0; mask < sets.length; mask++) {
+        EnumSet<ChangeType> set = EnumSet.noneOf(ChangeType.class);
+        for (ChangeType type : VALUES) {
+          if ((mask & type.bit()) != 0) set.add(type);
+        }
+        sets[mask] = Set.copyOf(set);
+      }
+      return sets;
+    }
   }
 }
@@ -1,32 +1,52 @@
 package org.github.shatterz.sentinelcore.perm.events;
 
+import com.mojang.authlib.GameProfile;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import net.fabricmc.fabric.api.entity.event.v1.ServerEntityWorldChangeEvents;
+import net.fabricmc.fabric.api.entity.event.v1.ServerPlayerEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerLoginConnectionEvents;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.minecraft.server.network.ServerLoginNetworkHandler;
+import net.minecraft.server.network.ServerPlayerEntity;
 import org.github.shatterz.sentinelcore.log.SentinelCategories;
 import org.github.shatterz.sentinelcore.log.SentinelLogger;
+import org.github.shatterz.sentinelcore.mixin.ServerLoginNetworkHandlerAccessor;
 import org.github.shatterz.sentinelcore.names.NameFormatter;
-import org.github.shatterz.sentinelcore.perm.PermissionManager;
+import org.github.shatterz.sentinelcore.perm.RoleContext;
 import org.github.shatterz.sentinelcore.perm.RoleContextManager;
 import org.slf4j.Logger;
 
-/** Listens for player join/leave events to manage RoleContexts. */
+/**
+ * Listens for player login/join/leave events to manage RoleContexts. Backend lookups happen during
+ * login via {@link LoginPrefetch}; JOIN only installs the result.
+ */
 public final class PlayerConnectionListener {
   private static final Logger LOG = SentinelLogger.cat(SentinelCategories.PERM);
 
   private PlayerConnectionListener() {}
 
   public static void register() {
-    // Player join - create and initialize RoleContext
+    // Login phase - resolve group/prefix data off-thread before the player enters the world
+    ServerLoginConnectionEvents.QUERY_START.register(
+        (handler, server, sender, synchronizer) -> {
+          UUID uuid = profileId(handler);
+          if (uuid != null) {
+            synchronizer.waitFor(LoginPrefetch.loginBarrier(uuid));
+          }
+        });
+
+    ServerLoginConnectionEvents.DISCONNECT.register(
+        (handler, server) -> LoginPrefetch.discard(profileId(handler)));
+
+    // Player join - create and initialize RoleContext from the prefetched state
     ServerPlayConnectionEvents.JOIN.register(
         (handler, sender, server) -> {
           var player = handler.getPlayer();
           var uuid = player.getUuid();
 
-          // Initialize RoleContext
-          var ctx = RoleContextManager.get(uuid);
-
-          // Load group from permission service
-          String group = PermissionManager.getGroup(uuid);
-          ctx.setGroup(group);
+          // Register the player's RoleContext in the online registry
+          var ctx = RoleContextManager.join(uuid);
 
           // Check op status (use hasPermissionLevel as a proxy for op status)
           boolean isOp = player.hasPermissionLevel(2); // Level 2 = operator
@@ -36,11 +56,29 @@ public final class PlayerConnectionListener {
           String worldId = player.getEntityWorld().getRegistryKey().getValue().toString();
           ctx.setWorldContext(worldId);
 
-          // Ensure display name is applied after context is fully initialized (group/op/world)
-          NameFormatter.updateDisplayName(player);
+          // Normally finished during login; if not, install it once it arrives
+          CompletableFuture<LoginPrefetch.Result> prefetch = LoginPrefetch.take(uuid);
+          LoginPrefetch.Result ready = prefetch.getNow(null);
+          if (ready != null) {
+            install(player, ctx, ready);
+          } else {
+            LOG.debug("Prefetch for {} still running at join", player.getName().getString());
+            installLater(player, ctx, prefetch);
+          }
+        });
+
+    // Dimension change - keep the world context flag current for contextual permission rules
+    ServerEntityWorldChangeEvents.AFTER_PLAYER_CHANGE_WORLD.register(
+        (player, origin, destination) -> {
+          String worldId = destination.getRegistryKey().getValue().toString();
+          RoleContextManager.get(player).setWorldContext(worldId);
+        });
 
-          LOG.info(
-              "Player {} joined - initialized RoleContext: {}", player.getName().getString(), ctx);
+    // Respawn can also move the player to another dimension (e.g. dying in the End)
+    ServerPlayerEvents.AFTER_RESPAWN.register(
+        (oldPlayer, newPlayer, alive) -> {
+          String worldId = newPlayer.getEntityWorld().getRegistryKey().getValue().toString();
+          RoleContextManager.get(newPlayer).setWorldContext(worldId);
         });
 
     // Player leave - cleanup RoleContext
@@ -49,10 +87,54 @@ public final class PlayerConnectionListener {
           var player = handler.getPlayer();
           var uuid = player.getUuid();
 
+          LoginPrefetch.discard(uuid);
           RoleContextManager.remove(uuid);
           LOG.debug("Player {} left - removed RoleContext", player.getName().getString());
         });
 
     LOG.info("Player connection listeners registered");
   }
+
+  /** UUID of the profile being logged in, or null before authentication finished. */
+  private static UUID profileId(ServerLoginNetworkHandler handler) {
+    GameProfile profile = ((ServerLoginNetworkHandlerAccessor) handler).sentinelcore$getProfile();
+    return profile != null ? profile.id() : null;
+  }
+
+  private static void installLater(
+      ServerPlayerEntity player, RoleContext ctx, CompletableFuture<LoginPrefetch.Result> pending) {
+    pending.thenAcceptAsync(
+        result -> {
+          if (!player.isDisconnected()) {
+            install(player, ctx, result);
+          }
+        },
+        player.getEntityWorld().getServer());
+  }
+
+  /**
+   * Install a prefetch on the server thread. The group is set first and the result checked after:
+   * a change racing with the install bumps the player's version before it applies, so either the
+   * check fails and the state is resolved again, or the change lands after ours.
+   */
+  private static void install(
+      ServerPlayerEntity player, RoleContext ctx, LoginPrefetch.Result prefetched) {
+    UUID uuid = player.getUuid();
+    ctx.setGroup(prefetched.group);
+    long stamp = ctx.decisionStamp();
+    if (!LoginPrefetch.isCurrent(uuid, prefetched)) {
+      // assigned, reloaded or (MIRROR) loaded by LuckPerms while logging in
+      LOG.debug("Prefetch for {} went stale during login; resolving again", uuid);
+      installLater(player, ctx, LoginPrefetch.reload(uuid));
+      return;
+    }
+    LoginPrefetch.finish(uuid);
+    // what the backend resolves for this group; valid until the context next changes
+    ctx.cacheInheritedGroups(prefetched.inheritedGroups, stamp);
+
+    // Ensure display name is applied after context is fully initialized (group/op/world)
+    NameFormatter.updateDisplayName(player, prefetched.communityPrefix);
+
+    LOG.info("Player {} joined - initialized RoleContext: {}", player.getName().getString(), ctx);
+  }
 }
@@ -0,0 +1,175 @@
+package org.github.shatterz.sentinelcore.perm.luckperms;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import net.luckperms.api.LuckPerms;
+import net.luckperms.api.LuckPermsProvider;
+import net.luckperms.api.cacheddata.CachedPermissionData;
+import net.luckperms.api.context.ImmutableContextSet;
+import net.luckperms.api.model.group.Group;
+import net.luckperms.api.model.user.User;
+import net.luckperms.api.node.NodeType;
+import net.luckperms.api.node.types.InheritanceNode;
+import net.luckperms.api.query.QueryOptions;
+import org.github.shatterz.sentinelcore.perm.PermissionNode;
+
+/**
+ * Direct LuckPerms API calls used by BRIDGE mode (and by MIRROR mode for writes). Kept out of
+ * {@link LuckPermsService} so that class still loads when LuckPerms is not installed.
+ */
+final class LuckPermsBridge {
+  private LuckPermsBridge() {}
+
+  /** The LuckPerms API, or null while LuckPerms has not finished enabling. */
+  static LuckPerms api() {
+    try {
+      return LuckPermsProvider.get();
+    } catch (IllegalStateException notLoaded) {
+      return null;
+    }
+  }
+
+  /** A user LuckPerms already has loaded, or null; never triggers a blocking load. */
+  static User loadedUser(UUID subject) {
+    LuckPerms api = api();
+    return api != null && subject != null ? api.getUserManager().getUser(subject) : null;
+  }
+
+  /**
+   * Cached permission data of a loaded user for the given context, or null if LuckPerms has not
+   * loaded the user (bridge mode never triggers a blocking load).
+   */
+  static CachedPermissionData permissionData(UUID subject, Map<String, String> ctx) {
+    User user = loadedUser(subject);
+    return user != null ? permissionData(user, ctx) : null;
+  }
+
+  static CachedPermissionData permissionData(User user, Map<String, String> ctx) {
+    if (ctx == null || ctx.isEmpty()) {
+      return user.getCachedData().getPermissionData();
+    }
+    ImmutableContextSet.Builder contexts = ImmutableContextSet.builder();
+    ctx.forEach(contexts::add);
+    return user.getCachedData().getPermissionData(QueryOptions.contextual(contexts.build()));
+  }
+
+  static boolean check(UUID subject, String node, Map<String, String> ctx) {
+    CachedPermissionData data = permissionData(subject, ctx);
+    return data != null && data.checkPermission(node).asBoolean();
+  }
+
+  /** One cached-data lookup for the subject, then one LuckPerms lookup per node. */
+  static BitSet checkAll(UUID subject, Collection<PermissionNode> nodes, Map<String, String> ctx) {
+    BitSet granted = new BitSet();
+    CachedPermissionData data = permissionData(subject, ctx);
+    if (data == null) return granted;
+    for (PermissionNode node : nodes) {
+      if (data.checkPermission(node.name()).asBoolean()) granted.set(node.id());
+    }
+    return granted;
+  }
+
+  static Set<UUID> checkMany(
+      Collection<UUID> subjects, PermissionNode node, Map<String, String> ctx) {
+    Set<UUID> granted = new HashSet<>();
+    for (UUID subject : subjects) {
+      CachedPermissionData data = permissionData(subject, ctx);
+      if (data != null && data.checkPermission(node.name()).asBoolean()) granted.add(subject);
+    }
+    return granted;
+  }
+
+  /**
+   * The user, loading it through LuckPerms' own storage threads if it is not loaded yet. Completes
+   * exceptionally if LuckPerms is not enabled.
+   */
+  static CompletableFuture<User> userAsync(UUID subject) {
+    LuckPerms api = api();
+    if (api == null) {
+      return CompletableFuture.failedFuture(new IllegalStateException("LuckPerms not loaded"));
+    }
+    User loaded = api.getUserManager().getUser(subject);
+    return loaded != null
+        ? CompletableFuture.completedFuture(loaded)
+        : api.getUserManager().loadUser(subject);
+  }
+
+  static CompletableFuture<Boolean> checkAsync(UUID subject, String node, Map<String, String> ctx) {
+    return userAsync(subject)
+        .thenApply(user -> permissionData(user, ctx).checkPermission(node).asBoolean());
+  }
+
+  static CompletableFuture<String> primaryGroupAsync(UUID subject) {
+    return userAsync(subject).thenApply(User::getPrimaryGroup);
+  }
+
+  static CompletableFuture<List<String>> inheritedGroupsAsync(UUID subject) {
+    return userAsync(subject).thenApply(LuckPermsBridge::inheritedGroups);
+  }
+
+  static CompletableFuture<Boolean> groupExistsAsync(String group) {
+    LuckPerms api = api();
+    if (api == null) return CompletableFuture.completedFuture(false);
+    if (api.getGroupManager().getGroup(group) != null) {
+      return CompletableFuture.completedFuture(true);
+    }
+    return api.getGroupManager().loadGroup(group).thenApply(Optional::isPresent);
+  }
+
+  static String primaryGroup(UUID subject) {
+    User user = loadedUser(subject);
+    return user != null ? user.getPrimaryGroup() : null;
+  }
+
+  static List<String> inheritedGroups(UUID subject) {
+    User user = loadedUser(subject);
+    return user != null ? inheritedGroups(user) : List.of();
+  }
+
+  private static List<String> inheritedGroups(User user) {
+    return user.getInheritedGroups(user.getQueryOptions()).stream().map(Group::getName).toList();
+  }
+
+  /** Whether a loaded group is {@code parent} or inherits it; never triggers a blocking load. */
+  static boolean groupInherits(String group, String parent) {
+    LuckPerms api = api();
+    Group g = api != null && group != null ? api.getGroupManager().getGroup(group) : null;
+    if (g == null || parent == null) return false;
+    if (g.getName().equals(parent)) return true;
+    for (Group inherited : g.getInheritedGroups(g.getQueryOptions())) {
+      if (inherited.getName().equals(parent)) return true;
+    }
+    return false;
+  }
+
+  static boolean groupExists(String group) {
+    LuckPerms api = api();
+    return api != null && api.getGroupManager().getGroup(group) != null;
+  }
+
+  /**
+   * Make {@code group} the user's only parent and primary group. LuckPerms loads, modifies and
+   * saves the user asynchronously; the mirror picks the change up from the resulting events.
+   */
+  static CompletableFuture<Void> setPrimaryGroup(UUID subject, String group) {
+    LuckPerms api = api();
+    if (api == null) {
+      return CompletableFuture.failedFuture(new IllegalStateException("LuckPerms not loaded"));
+    }
+    return api.getUserManager()
+        .modifyUser(
+            subject,
+            user -> {
+              user.data().clear(NodeType.INHERITANCE::matches);
+              user.data().add(InheritanceNode.builder(group).build());
+              user.setPrimaryGroup(group);
+            });
+  }
+}
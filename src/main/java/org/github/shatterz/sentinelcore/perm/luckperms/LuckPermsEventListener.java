@@ -1,58 +1,52 @@
 package org.github.shatterz.sentinelcore.perm.luckperms;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.luckperms.api.LuckPerms;
+import net.luckperms.api.event.EventBus;
+import net.luckperms.api.event.EventSubscription;
+import net.luckperms.api.event.group.GroupDataRecalculateEvent;
+import net.luckperms.api.event.user.UserDataRecalculateEvent;
 import org.github.shatterz.sentinelcore.log.SentinelCategories;
 import org.github.shatterz.sentinelcore.log.SentinelLogger;
+import org.github.shatterz.sentinelcore.perm.DecisionCache;
+import org.github.shatterz.sentinelcore.perm.RoleContext;
+import org.github.shatterz.sentinelcore.perm.RoleContextManager;
+import org.github.shatterz.sentinelcore.perm.events.LoginPrefetch;
 import org.slf4j.Logger;
 
 /**
  * Event listener for LuckPerms events. Synchronizes LuckPerms data with SentinelCore's RoleContext
  * system.
  *
- * <p>TODO: Implement actual LuckPerms event listeners once LP API is added to dependencies.
- *
- * <p>Required LuckPerms Events:
- *
  * <ul>
- *   <li>UserDataRecalculateEvent - Update RoleContext when user perms recalculated
- *   <li>GroupDataRecalculateEvent - Invalidate caches when group data changes
- *   <li>UserFirstLoginEvent - Initialize RoleContext for new users
- *   <li>NodeAddEvent / NodeRemoveEvent - Real-time permission updates
+ *   <li>MIRROR: loads the {@link LuckPermsMirror} once, then applies node add/remove/clear, user
+ *       and group recalculation, load/unload and create/delete events as deltas (see {@link
+ *       LuckPermsMirrorSync}).
+ *   <li>BRIDGE: UserDataRecalculateEvent updates the player's RoleContext group and both
+ *       recalculation events invalidate cached decisions.
  * </ul>
  *
- * <p>Implementation Example:
- *
- * <pre>{@code
- * import net.luckperms.api.LuckPerms;
- * import net.luckperms.api.event.EventBus;
- * import net.luckperms.api.event.user.UserDataRecalculateEvent;
- *
- * public static void register(LuckPerms api) {
- *   EventBus eventBus = api.getEventBus();
- *
- *   eventBus.subscribe(UserDataRecalculateEvent.class, event -> {
- *     UUID uuid = event.getUser().getUniqueId();
- *     String newGroup = event.getUser().getPrimaryGroup();
- *     RoleContextManager.setGroup(uuid, newGroup);
- *   });
- *
- *   // Subscribe to other events...
- * }
- * }</pre>
+ * <p>LuckPerms on Fabric enables while the server starts, after mods initialize. If its API is not
+ * available yet, registration is deferred to {@code SERVER_STARTED}.
  */
 public final class LuckPermsEventListener {
   private static final Logger LOG = SentinelLogger.cat(SentinelCategories.PERM);
-  private static boolean registered = false;
+  private static final List<EventSubscription<?>> subscriptions = new ArrayList<>();
+  private static volatile boolean registered = false;
+  private static boolean startHookInstalled = false;
+  private static LuckPermsService pending;
 
   private LuckPermsEventListener() {}
 
   /**
    * Register LuckPerms event listeners.
    *
-   * <p>TODO: Implement once LuckPerms API is available
-   *
    * @param luckPermsService the LP service instance (to check mode, etc.)
    */
-  public static void register(LuckPermsService luckPermsService) {
+  public static synchronized void register(LuckPermsService luckPermsService) {
     if (registered) {
       LOG.warn("LuckPerms event listeners already registered");
       return;
@@ -63,36 +57,65 @@ public final class LuckPermsEventListener {
       return;
     }
 
-    // TODO: Get LuckPerms API instance
-    // LuckPerms api = LuckPermsProvider.get();
-    // EventBus eventBus = api.getEventBus();
-
-    // TODO: Subscribe to UserDataRecalculateEvent
-    // eventBus.subscribe(UserDataRecalculateEvent.class, event -> {
-    //   UUID uuid = event.getUser().getUniqueId();
-    //   String newGroup = event.getUser().getPrimaryGroup();
-    //   RoleContextManager.setGroup(uuid, newGroup);
-    // });
-
-    // TODO: Subscribe to GroupDataRecalculateEvent
-    // eventBus.subscribe(GroupDataRecalculateEvent.class, event -> {
-    //   LOG.info("LuckPerms group {} data recalculated", event.getGroup().getName());
-    //   // Invalidate caches if in mirror mode
-    // });
+    LuckPerms api = LuckPermsBridge.api();
+    if (api == null) {
+      pending = luckPermsService;
+      if (!startHookInstalled) {
+        startHookInstalled = true;
+        ServerLifecycleEvents.SERVER_STARTED.register(server -> registerPending());
+      }
+      LOG.info("LuckPerms not enabled yet; event listeners will register on server start");
+      return;
+    }
 
-    // TODO: Subscribe to NodeAddEvent / NodeRemoveEvent for real-time updates
+    if (luckPermsService.getMode() == LuckPermsService.Mode.MIRROR) {
+      LuckPermsMirrorSync sync = new LuckPermsMirrorSync(api, luckPermsService.getMirror());
+      // subscribe first so no delta between the copy and the subscription is lost
+      subscriptions.addAll(sync.subscribe());
+      sync.loadAll();
+    } else {
+      EventBus eventBus = api.getEventBus();
+      subscriptions.add(
+          eventBus.subscribe(
+              UserDataRecalculateEvent.class,
+              event -> {
+                UUID uuid = event.getUser().getUniqueId();
+                String newGroup = event.getUser().getPrimaryGroup();
+                LoginPrefetch.subjectChanged(uuid);
+                DecisionCache.invalidateAll();
+                RoleContext ctx = RoleContextManager.getIfPresent(uuid);
+                if (ctx != null && !newGroup.equals(ctx.getGroup())) {
+                  RoleContextManager.setGroup(uuid, newGroup);
+                }
+              }));
+      subscriptions.add(
+          eventBus.subscribe(
+              GroupDataRecalculateEvent.class, event -> DecisionCache.invalidateAll()));
+    }
 
     registered = true;
     LOG.info("LuckPerms event listeners registered (mode: {})", luckPermsService.getMode());
   }
 
+  private static synchronized void registerPending() {
+    LuckPermsService service = pending;
+    pending = null;
+    if (service != null) {
+      register(service);
+    }
+  }
+
   /** Unregister all event listeners. */
-  public static void unregister() {
+  public static synchronized void unregister() {
+    pending = null;
     if (!registered) {
       return;
     }
 
-    // TODO: Unsubscribe from LuckPerms events
+    for (EventSubscription<?> subscription : subscriptions) {
+      subscription.close();
+    }
+    subscriptions.clear();
 
     registered = false;
     LOG.info("LuckPerms event listeners unregistered");
@@ -0,0 +1,246 @@
+package org.github.shatterz.sentinelcore.perm.luckperms;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.github.shatterz.sentinelcore.config.CoreConfig;
+import org.github.shatterz.sentinelcore.perm.PermissionNode;
+import org.github.shatterz.sentinelcore.perm.memory.RoleTable;
+
+/**
+ * Local copy of LuckPerms users and groups, compiled into the same {@link RoleTable} the memory
+ * backend uses.
+ *
+ * <p>Groups become roles of the same name. A user with own permission nodes (or more than one
+ * parent) becomes a synthetic role {@code user/<uuid>} that inherits the user's parents; a user
+ * with a single parent and no own nodes simply points at that group. Updates are plain data (no
+ * LuckPerms types), so the mirror can be fed by {@link LuckPermsMirrorSync} or by a test double.
+ *
+ * <p>Writers (LuckPerms event threads) serialize on this object and publish a new {@link State};
+ * checks only read the volatile state and never call into LuckPerms.
+ */
+public final class LuckPermsMirror {
+  /** LuckPerms group names cannot contain '/', so synthetic user roles never clash with groups. */
+  static final String USER_ROLE_PREFIX = "user/";
+
+  public static final String DEFAULT_GROUP = "default";
+
+  /** Plain-data view of one LuckPerms user. */
+  public static final class UserData {
+    final String primaryGroup;
+    final CoreConfig.Role own;
+
+    /**
+     * @param primaryGroup the user's primary group
+     * @param own the user's own nodes; {@code inherits} holds the user's parent groups
+     */
+    public UserData(String primaryGroup, CoreConfig.Role own) {
+      this.primaryGroup = primaryGroup != null ? primaryGroup : DEFAULT_GROUP;
+      this.own = own;
+    }
+  }
+
+  private static final class State {
+    static final State EMPTY = new State(RoleTable.EMPTY, Map.of(), Map.of());
+
+    final RoleTable table;
+    final Map<UUID, String> effectiveRole;
+    final Map<UUID, String> primaryGroup;
+
+    State(RoleTable table, Map<UUID, String> effectiveRole, Map<UUID, String> primaryGroup) {
+      this.table = table;
+      this.effectiveRole = effectiveRole;
+      this.primaryGroup = primaryGroup;
+    }
+
+    String roleOf(UUID subject) {
+      String role = subject != null ? effectiveRole.get(subject) : null;
+      return role != null ? role : DEFAULT_GROUP;
+    }
+  }
+
+  private volatile State state = State.EMPTY;
+
+  /** Replace the whole mirror (initial load). */
+  public synchronized void load(Map<String, CoreConfig.Role> groups, Map<UUID, UserData> users) {
+    Map<String, CoreConfig.Role> defs = new HashMap<>(groups);
+    Map<UUID, String> effective = new HashMap<>();
+    Map<UUID, String> primary = new HashMap<>();
+    users.forEach(
+        (uuid, data) -> {
+          primary.put(uuid, data.primaryGroup);
+          String single = singleParent(data.own);
+          if (single != null) {
+            effective.put(uuid, single);
+          } else {
+            defs.put(userRole(uuid), data.own);
+            effective.put(uuid, userRole(uuid));
+          }
+        });
+    state = new State(RoleTable.compile(defs), Map.copyOf(effective), Map.copyOf(primary));
+  }
+
+  /**
+   * Insert or replace a group. Only the group and the roles inheriting it are recompiled.
+   *
+   * @return whether anything changed
+   */
+  public synchronized boolean putGroup(String group, CoreConfig.Role def) {
+    State s = state;
+    RoleTable table = s.table.withChanges(Map.of(group, def), List.of());
+    if (table == s.table) return false;
+    state = new State(table, s.effectiveRole, s.primaryGroup);
+    return true;
+  }
+
+  /** @return whether the group was mirrored */
+  public synchronized boolean removeGroup(String group) {
+    State s = state;
+    RoleTable table = s.table.withChanges(Map.of(), List.of(group));
+    if (table == s.table) return false;
+    state = new State(table, s.effectiveRole, s.primaryGroup);
+    return true;
+  }
+
+  /**
+   * Insert or replace a user's data. Only the user's synthetic role (if any) is recompiled.
+   *
+   * @return whether anything changed
+   */
+  public synchronized boolean putUser(UUID subject, UserData data) {
+    State s = state;
+    String role = userRole(subject);
+    String single = singleParent(data.own);
+    RoleTable table =
+        single != null
+            ? s.table.withChanges(Map.of(), List.of(role))
+            : s.table.withChanges(Map.of(role, data.own), List.of());
+    String effective = single != null ? single : role;
+    if (table == s.table
+        && effective.equals(s.effectiveRole.get(subject))
+        && data.primaryGroup.equals(s.primaryGroup.get(subject))) {
+      return false;
+    }
+    state =
+        new State(
+            table,
+            with(s.effectiveRole, subject, effective),
+            with(s.primaryGroup, subject, data.primaryGroup));
+    return true;
+  }
+
+  /** Forget a user (e.g. after LuckPerms unloaded it). */
+  public synchronized boolean removeUser(UUID subject) {
+    State s = state;
+    if (!s.effectiveRole.containsKey(subject)) return false;
+    RoleTable table = s.table.withChanges(Map.of(), List.of(userRole(subject)));
+    state =
+        new State(table, with(s.effectiveRole, subject, null), with(s.primaryGroup, subject, null));
+    return true;
+  }
+
+  public boolean check(UUID subject, String node, Map<String, String> ctx) {
+    State s = state;
+    return s.table.check(s.roleOf(subject), node, ctx);
+  }
+
+  public boolean check(UUID subject, PermissionNode node, Map<String, String> ctx) {
+    State s = state;
+    return s.table.check(s.roleOf(subject), node, ctx);
+  }
+
+  public BitSet checkAll(UUID subject, Collection<PermissionNode> nodes, Map<String, String> ctx) {
+    BitSet granted = new BitSet(PermissionNode.count());
+    State s = state;
+    String role = s.roleOf(subject);
+    for (PermissionNode node : nodes) {
+      if (s.table.check(role, node, ctx)) granted.set(node.id());
+    }
+    return granted;
+  }
+
+  public Set<UUID> checkMany(
+      Collection<UUID> subjects, PermissionNode node, Map<String, String> ctx) {
+    State s = state;
+    Map<String, Boolean> byRole = new HashMap<>();
+    Set<UUID> granted = new HashSet<>();
+    for (UUID subject : subjects) {
+      if (byRole.computeIfAbsent(s.roleOf(subject), r -> s.table.check(r, node, ctx))) {
+        granted.add(subject);
+      }
+    }
+    return granted;
+  }
+
+  public String getGroup(UUID subject) {
+    String group = subject != null ? state.primaryGroup.get(subject) : null;
+    return group != null ? group : DEFAULT_GROUP;
+  }
+
+  /** Groups the user inherits (synthetic user roles are not reported). */
+  public List<String> getInheritedGroups(UUID subject) {
+    State s = state;
+    String role = s.roleOf(subject);
+    List<String> groups = s.table.inheritedGroups(role);
+    // groups never inherit user roles, so the user's own role can only be the first entry
+    return role.startsWith(USER_ROLE_PREFIX) && !groups.isEmpty()
+        ? groups.subList(1, groups.size())
+        : groups;
+  }
+
+  /** Whether the user is in {@code group}, directly or through inheritance. */
+  public boolean inGroup(UUID subject, String group) {
+    State s = state;
+    return group != null
+        && !group.startsWith(USER_ROLE_PREFIX)
+        && s.table.inherits(s.roleOf(subject), group);
+  }
+
+  /** Whether {@code group} is {@code parent} or inherits it; a bit test like {@link #inGroup}. */
+  public boolean groupInherits(String group, String parent) {
+    return groupExists(group) && groupExists(parent) && state.table.inherits(group, parent);
+  }
+
+  public boolean groupExists(String group) {
+    return group != null && !group.startsWith(USER_ROLE_PREFIX) && state.table.contains(group);
+  }
+
+  /** Definition currently mirrored for a group, or null. */
+  public CoreConfig.Role group(String group) {
+    return groupExists(group) ? state.table.definition(group) : null;
+  }
+
+  public boolean hasUser(UUID subject) {
+    return subject != null && state.effectiveRole.containsKey(subject);
+  }
+
+  static String userRole(UUID subject) {
+    return USER_ROLE_PREFIX + subject;
+  }
+
+  /** The only parent of a user without own nodes, or null if the user needs its own role. */
+  private static String singleParent(CoreConfig.Role own) {
+    boolean noNodes =
+        (own.allow == null || own.allow.isEmpty())
+            && (own.deny == null || own.deny.isEmpty())
+            && (own.context == null || own.context.isEmpty());
+    return noNodes && own.inherits != null && own.inherits.size() == 1
+        ? own.inherits.iterator().next()
+        : null;
+  }
+
+  private static <V> Map<UUID, V> with(Map<UUID, V> map, UUID key, V value) {
+    Map<UUID, V> copy = new HashMap<>(map);
+    if (value == null) {
+      copy.remove(key);
+    } else {
+      copy.put(key, value);
+    }
+    return Map.copyOf(copy);
+  }
+}
@@ -0,0 +1,222 @@
+package org.github.shatterz.sentinelcore.perm.luckperms;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import net.luckperms.api.LuckPerms;
+import net.luckperms.api.context.Context;
+import net.luckperms.api.context.ImmutableContextSet;
+import net.luckperms.api.event.EventBus;
+import net.luckperms.api.event.EventSubscription;
+import net.luckperms.api.event.group.GroupCreateEvent;
+import net.luckperms.api.event.group.GroupDataRecalculateEvent;
+import net.luckperms.api.event.group.GroupDeleteEvent;
+import net.luckperms.api.event.node.NodeAddEvent;
+import net.luckperms.api.event.node.NodeClearEvent;
+import net.luckperms.api.event.node.NodeMutateEvent;
+import net.luckperms.api.event.node.NodeRemoveEvent;
+import net.luckperms.api.event.user.UserDataRecalculateEvent;
+import net.luckperms.api.event.user.UserLoadEvent;
+import net.luckperms.api.event.user.UserUnloadEvent;
+import net.luckperms.api.model.PermissionHolder;
+import net.luckperms.api.model.group.Group;
+import net.luckperms.api.model.user.User;
+import net.luckperms.api.node.Node;
+import net.luckperms.api.node.types.InheritanceNode;
+import org.github.shatterz.sentinelcore.config.CoreConfig;
+import org.github.shatterz.sentinelcore.log.SentinelCategories;
+import org.github.shatterz.sentinelcore.log.SentinelLogger;
+import org.github.shatterz.sentinelcore.perm.DecisionCache;
+import org.github.shatterz.sentinelcore.perm.RoleContext;
+import org.github.shatterz.sentinelcore.perm.RoleContextManager;
+import org.github.shatterz.sentinelcore.perm.events.LoginPrefetch;
+import org.slf4j.Logger;
+
+/**
+ * Feeds a {@link LuckPermsMirror} from a {@link LuckPerms} instance: one full copy of the loaded
+ * groups and users, then one delta per LuckPerms event.
+ *
+ * <p>Every handler re-reads only the holder the event is about and hands its own nodes to the
+ * mirror, which recompiles that holder and whatever inherits from it. Cached decisions are dropped
+ * just as narrowly: a user delta invalidates that user's context, a group delta the contexts whose
+ * groups include the changed group before or after the change. Only the initial load invalidates
+ * everyone. Handlers run on LuckPerms' event threads; nothing here is ever called from a permission
+ * check. The API instance is passed in rather than looked up, so the sync can be driven by an
+ * in-process fake provider.
+ */
+final class LuckPermsMirrorSync {
+  private static final Logger LOG = SentinelLogger.cat(SentinelCategories.PERM);
+
+  private final LuckPerms api;
+  private final LuckPermsMirror mirror;
+
+  LuckPermsMirrorSync(LuckPerms api, LuckPermsMirror mirror) {
+    this.api = api;
+    this.mirror = mirror;
+  }
+
+  /** Copy every loaded group and user into the mirror. */
+  void loadAll() {
+    Map<String, CoreConfig.Role> groups = new HashMap<>();
+    for (Group group : api.getGroupManager().getLoadedGroups()) {
+      groups.put(group.getName(), toRole(group));
+    }
+    Map<UUID, LuckPermsMirror.UserData> users = new HashMap<>();
+    for (User user : api.getUserManager().getLoadedUsers()) {
+      users.put(user.getUniqueId(), toUserData(user));
+    }
+    mirror.load(groups, users);
+    DecisionCache.invalidateAll();
+    LOG.info("LuckPerms mirror loaded: {} groups, {} users", groups.size(), users.size());
+  }
+
+  /** Subscribe the delta handlers; the caller closes the returned subscriptions to detach. */
+  List<EventSubscription<?>> subscribe() {
+    EventBus bus = api.getEventBus();
+    List<EventSubscription<?>> subs = new ArrayList<>();
+    subs.add(bus.subscribe(NodeAddEvent.class, this::onNodeMutate));
+    subs.add(bus.subscribe(NodeRemoveEvent.class, this::onNodeMutate));
+    subs.add(bus.subscribe(NodeClearEvent.class, this::onNodeMutate));
+    subs.add(bus.subscribe(UserDataRecalculateEvent.class, e -> syncUser(e.getUser())));
+    subs.add(bus.subscribe(GroupDataRecalculateEvent.class, e -> syncGroup(e.getGroup())));
+    subs.add(bus.subscribe(UserLoadEvent.class, e -> syncUser(e.getUser())));
+    subs.add(bus.subscribe(UserUnloadEvent.class, e -> removeUser(e.getUser().getUniqueId())));
+    subs.add(bus.subscribe(GroupCreateEvent.class, e -> syncGroup(e.getGroup())));
+    subs.add(bus.subscribe(GroupDeleteEvent.class, e -> removeGroup(e.getGroupName())));
+    return subs;
+  }
+
+  private void onNodeMutate(NodeMutateEvent event) {
+    PermissionHolder target = event.getTarget();
+    if (target instanceof User user) {
+      syncUser(user);
+    } else if (target instanceof Group group) {
+      syncGroup(group);
+    }
+  }
+
+  void syncGroup(Group group) {
+    String name = group.getName();
+    List<RoleContext> members = members(name);
+    if (mirror.putGroup(name, toRole(group))) {
+      int n = invalidateMembers(name, members);
+      LOG.debug("LuckPerms mirror: group {} updated, {} context(s) invalidated", name, n);
+    }
+  }
+
+  void removeGroup(String group) {
+    List<RoleContext> members = members(group);
+    if (mirror.removeGroup(group)) {
+      int n = invalidateMembers(group, members);
+      LOG.debug("LuckPerms mirror: group {} removed, {} context(s) invalidated", group, n);
+    }
+  }
+
+  /** Tracked contexts whose groups currently include {@code group}. */
+  private List<RoleContext> members(String group) {
+    List<RoleContext> members = new ArrayList<>();
+    for (RoleContext ctx : RoleContextManager.all()) {
+      if (mirror.inGroup(ctx.getUuid(), group)) members.add(ctx);
+    }
+    return members;
+  }
+
+  /**
+   * After a change to {@code group}, invalidate the contexts that were in it ({@code before}) or
+   * are in it now. Runs after the mirror is updated, so a decision computed from the old state
+   * carries a stamp that is no longer valid.
+   */
+  private int invalidateMembers(String group, List<RoleContext> before) {
+    LoginPrefetch.rolesChanged();
+    Set<RoleContext> affected = new HashSet<>(before);
+    affected.addAll(members(group));
+    affected.forEach(RoleContext::invalidateDecisions);
+    return affected.size();
+  }
+
+  void syncUser(User user) {
+    UUID uuid = user.getUniqueId();
+    String oldGroup = mirror.getGroup(uuid);
+    LuckPermsMirror.UserData data = toUserData(user);
+    // a login that read the mirror before LuckPerms loaded this user installs a stale group
+    LoginPrefetch.subjectChanged(uuid);
+    if (!mirror.putUser(uuid, data)) return;
+    RoleContext ctx = RoleContextManager.getIfPresent(uuid);
+    if (ctx == null) return;
+    ctx.invalidateDecisions();
+    // keep the player's RoleContext in step with the primary group
+    if (!data.primaryGroup.equals(oldGroup)) {
+      RoleContextManager.setGroup(uuid, data.primaryGroup);
+    }
+  }
+
+  void removeUser(UUID uuid) {
+    if (mirror.removeUser(uuid)) {
+      RoleContext ctx = RoleContextManager.getIfPresent(uuid);
+      if (ctx != null) ctx.invalidateDecisions();
+    }
+  }
+
+  private static LuckPermsMirror.UserData toUserData(User user) {
+    return new LuckPermsMirror.UserData(user.getPrimaryGroup(), toRole(user));
+  }
+
+  /**
+   * Translate a holder's own nodes into a role definition. Global nodes become plain rules and
+   * nodes with a single context become contextual rules; nodes with several contexts, contextual
+   * inheritance and regex permissions have no equivalent in the compiled model and are skipped.
+   */
+  static CoreConfig.Role toRole(PermissionHolder holder) {
+    CoreConfig.Role role = new CoreConfig.Role();
+    int skipped = 0;
+    for (Node node : holder.getNodes()) {
+      if (node.hasExpired()) continue;
+      ImmutableContextSet contexts = node.getContexts();
+      if (node instanceof InheritanceNode parent) {
+        if (!contexts.isEmpty()) {
+          skipped++;
+        } else if (node.getValue()) {
+          role.inherits.add(parent.getGroupName());
+        }
+        continue;
+      }
+      if (!(node instanceof net.luckperms.api.node.types.PermissionNode perm)) continue;
+      String permission = perm.getPermission();
+      if (permission.regionMatches(true, 0, "r=", 0, 2)) {
+        skipped++;
+        continue;
+      }
+
+      Set<String> allow;
+      Set<String> deny;
+      if (contexts.isEmpty()) {
+        allow = role.allow;
+        deny = role.deny;
+      } else if (contexts.size() == 1) {
+        Context c = contexts.iterator().next();
+        CoreConfig.ContextRules rules =
+            role.context
+                .computeIfAbsent(c.getKey().toLowerCase(Locale.ROOT), k -> new HashMap<>())
+                .computeIfAbsent(c.getValue(), v -> new CoreConfig.ContextRules());
+        allow = rules.allow;
+        deny = rules.deny;
+      } else {
+        skipped++;
+        continue;
+      }
+      (node.getValue() ? allow : deny).add(permission);
+    }
+    if (skipped > 0 && LOG.isDebugEnabled()) {
+      LOG.debug(
+          "LuckPerms mirror: skipped {} unsupported node(s) on {}",
+          skipped,
+          holder.getFriendlyName());
+    }
+    return role;
+  }
+}
@@ -1,8 +1,11 @@
 package org.github.shatterz.sentinelcore.perm.luckperms;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import org.github.shatterz.sentinelcore.log.SentinelCategories;
 import org.github.shatterz.sentinelcore.log.SentinelLogger;
+import org.github.shatterz.sentinelcore.perm.AsyncPermissionService;
+import org.github.shatterz.sentinelcore.perm.PermissionNode;
 import org.github.shatterz.sentinelcore.perm.PermissionService;
 import org.slf4j.Logger;
 
@@ -10,10 +13,14 @@ import org.slf4j.Logger;
  * LuckPerms integration for SentinelCore. Supports two modes: - BRIDGE: Use LuckPerms as the source
  * of truth, query it directly - MIRROR: Sync LuckPerms data into SentinelCore's memory cache
  *
- * <p>NOTE: This is a placeholder implementation. Full LuckPerms integration requires the LuckPerms
- * API dependency and proper event listeners.
+ * <p>In MIRROR mode every read is answered from a {@link LuckPermsMirror}, which {@link
+ * LuckPermsEventListener} keeps up to date from LuckPerms events; checks never call LuckPerms.
+ * Writes ({@link #setGroup}) always go to LuckPerms and come back to the mirror as events.
+ *
+ * <p>The async methods complete inline in MIRROR mode and for users LuckPerms already has loaded;
+ * otherwise BRIDGE mode loads the user through LuckPerms' own storage threads.
  */
-public final class LuckPermsService implements PermissionService {
+public final class LuckPermsService implements PermissionService, AsyncPermissionService {
   private static final Logger LOG = SentinelLogger.cat(SentinelCategories.PERM);
 
   public enum Mode {
@@ -22,6 +29,7 @@ public final class LuckPermsService implements PermissionService {
   }
 
   private final Mode mode;
+  private final LuckPermsMirror mirror = new LuckPermsMirror();
   private boolean available = false;
 
   public LuckPermsService(Mode mode) {
@@ -53,32 +61,60 @@ public final class LuckPermsService implements PermissionService {
       return false;
     }
 
-    // TODO: Implement actual LuckPerms API integration
-    // For now, this is a placeholder that returns false
-    LOG.debug("LuckPerms permission check (placeholder): {} -> {}", subject, node);
-    return false;
+    if (mode == Mode.BRIDGE) {
+      return LuckPermsBridge.check(subject, node, ctx);
+    }
+    return mirror.check(subject, node, ctx);
   }
 
   @Override
-  public String getGroup(UUID subject) {
-    if (!available) {
-      return "default";
+  public boolean check(UUID subject, PermissionNode node, Map<String, String> ctx) {
+    if (available && mode == Mode.MIRROR) {
+      return mirror.check(subject, node, ctx);
     }
+    return check(subject, node.name(), ctx);
+  }
 
-    // TODO: Query LuckPerms for primary group
-    // For now, return default
-    return "default";
+  @Override
+  public BitSet checkAll(UUID subject, Collection<PermissionNode> nodes, Map<String, String> ctx) {
+    if (available && mode == Mode.BRIDGE) {
+      // single cached-data lookup for the subject instead of one per node
+      return LuckPermsBridge.checkAll(subject, nodes, ctx);
+    }
+    if (available) {
+      return mirror.checkAll(subject, nodes, ctx);
+    }
+    return PermissionService.super.checkAll(subject, nodes, ctx);
   }
 
   @Override
-  public void setGroup(UUID subject, String group) {
+  public Set<UUID> checkMany(
+      Collection<UUID> subjects, PermissionNode node, Map<String, String> ctx) {
+    if (available && mode == Mode.BRIDGE) {
+      return LuckPermsBridge.checkMany(subjects, node, ctx);
+    }
+    if (available) {
+      return mirror.checkMany(subjects, node, ctx);
+    }
+    return PermissionService.super.checkMany(subjects, node, ctx);
+  }
+
+  @Override
+  public String getGroup(UUID subject) {
     if (!available) {
-      LOG.warn("Cannot set group: LuckPerms not available");
-      return;
+      return "default";
+    }
+    if (mode == Mode.MIRROR) {
+      return mirror.getGroup(subject);
     }
+    String group = LuckPermsBridge.primaryGroup(subject);
+    return group != null ? group : "default";
+  }
 
-    // TODO: Update LuckPerms group
-    LOG.warn("LuckPerms setGroup not yet implemented");
+  @Override
+  public void setGroup(UUID subject, String group) {
+    // LuckPerms saves asynchronously anyway; don't wait for it
+    setGroupAsync(subject, group);
   }
 
   @Override
@@ -86,9 +122,31 @@ public final class LuckPermsService implements PermissionService {
     if (!available) {
       return List.of("default");
     }
+    List<String> groups =
+        mode == Mode.MIRROR
+            ? mirror.getInheritedGroups(subject)
+            : LuckPermsBridge.inheritedGroups(subject);
+    return groups.isEmpty() ? List.of("default") : groups;
+  }
 
-    // TODO: Get all inherited groups from LuckPerms
-    return List.of("default");
+  @Override
+  public boolean inGroup(UUID subject, String group) {
+    if (available && mode == Mode.MIRROR) {
+      // same "default" fallback as getInheritedGroups for a user without groups
+      return mirror.inGroup(subject, group)
+          || "default".equals(group) && mirror.getInheritedGroups(subject).isEmpty();
+    }
+    return PermissionService.super.inGroup(subject, group);
+  }
+
+  @Override
+  public boolean groupInherits(String group, String parent) {
+    if (!available) {
+      return PermissionService.super.groupInherits(group, parent);
+    }
+    return mode == Mode.MIRROR
+        ? mirror.groupInherits(group, parent)
+        : LuckPermsBridge.groupInherits(group, parent);
   }
 
   @Override
@@ -96,9 +154,67 @@ public final class LuckPermsService implements PermissionService {
     if (!available) {
       return false;
     }
+    return mode == Mode.MIRROR ? mirror.groupExists(group) : LuckPermsBridge.groupExists(group);
+  }
+
+  @Override
+  public CompletableFuture<Boolean> checkAsync(
+      UUID subject, String node, Map<String, String> ctx) {
+    if (!available || mode == Mode.MIRROR) {
+      return CompletableFuture.completedFuture(check(subject, node, ctx));
+    }
+    return LuckPermsBridge.checkAsync(subject, node, ctx);
+  }
+
+  @Override
+  public CompletableFuture<Boolean> checkAsync(
+      UUID subject, PermissionNode node, Map<String, String> ctx) {
+    if (!available || mode == Mode.MIRROR) {
+      return CompletableFuture.completedFuture(check(subject, node, ctx));
+    }
+    return LuckPermsBridge.checkAsync(subject, node.name(), ctx);
+  }
+
+  @Override
+  public CompletableFuture<String> getGroupAsync(UUID subject) {
+    if (!available || mode == Mode.MIRROR) {
+      return CompletableFuture.completedFuture(getGroup(subject));
+    }
+    return LuckPermsBridge.primaryGroupAsync(subject);
+  }
+
+  @Override
+  public CompletableFuture<Void> setGroupAsync(UUID subject, String group) {
+    if (!available) {
+      LOG.warn("Cannot set group: LuckPerms not available");
+      return CompletableFuture.completedFuture(null);
+    }
+    if (subject == null || group == null) return CompletableFuture.completedFuture(null);
+    // asynchronous in LuckPerms; the mirror catches up from the resulting node events
+    return LuckPermsBridge.setPrimaryGroup(subject, group)
+        .whenComplete(
+            (v, e) -> {
+              if (e != null) {
+                LOG.warn("Failed to set LuckPerms group of {} to {}", subject, group, e);
+              }
+            });
+  }
+
+  @Override
+  public CompletableFuture<List<String>> getInheritedGroupsAsync(UUID subject) {
+    if (!available || mode == Mode.MIRROR) {
+      return CompletableFuture.completedFuture(getInheritedGroups(subject));
+    }
+    return LuckPermsBridge.inheritedGroupsAsync(subject)
+        .thenApply(groups -> groups.isEmpty() ? List.of("default") : groups);
+  }
 
-    // TODO: Check if group exists in LuckPerms
-    return false;
+  @Override
+  public CompletableFuture<Boolean> groupExistsAsync(String group) {
+    if (!available || mode == Mode.MIRROR || group == null) {
+      return CompletableFuture.completedFuture(groupExists(group));
+    }
+    return LuckPermsBridge.groupExistsAsync(group);
   }
 
   public boolean isAvailable() {
@@ -108,4 +224,9 @@ public final class LuckPermsService implements PermissionService {
   public Mode getMode() {
     return mode;
   }
+
+  /** Local copy of LuckPerms data used in MIRROR mode (empty in BRIDGE mode). */
+  public LuckPermsMirror getMirror() {
+    return mirror;
+  }
 }
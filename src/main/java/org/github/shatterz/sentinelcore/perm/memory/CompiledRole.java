@@ -0,0 +1,109 @@
+package org.github.shatterz.sentinelcore.perm.memory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.github.shatterz.sentinelcore.perm.PermissionNode;
+
+/** A role compiled by {@link RoleCompiler}: inheritance and deny precedence already resolved. */
+final class CompiledRole {
+  private static final ContextTable[] NO_CONTEXT = new ContextTable[0];
+
+  final String name;
+  final List<String> inherits;
+  final PermissionTrie trie;
+  final ContextTable[] context;
+
+  /** Plain-rule decisions for registered {@link PermissionNode}s, extended as nodes register. */
+  private volatile NodeBits bits = NodeBits.EMPTY;
+
+  /** Contextual tries for one context key, indexed by the context value they apply to. */
+  static final class ContextTable {
+    final String key;
+    final Map<String, PermissionTrie> byValue;
+
+    ContextTable(String key, Map<String, PermissionTrie> byValue) {
+      this.key = key;
+      this.byValue = byValue;
+    }
+  }
+
+  /** Allow bitset over node ids {@code 0 .. covered - 1}. Immutable once published. */
+  private static final class NodeBits {
+    static final NodeBits EMPTY = new NodeBits(new long[0], 0);
+
+    final long[] allow;
+    final int covered;
+
+    NodeBits(long[] allow, int covered) {
+      this.allow = allow;
+      this.covered = covered;
+    }
+  }
+
+  CompiledRole(String name, List<String> inherits, PermissionTrie trie, ContextTable[] context) {
+    this.name = name;
+    this.inherits = inherits;
+    this.trie = trie;
+    this.context = context.length == 0 ? NO_CONTEXT : context;
+    extendBits();
+  }
+
+  boolean allows(String node) {
+    return trie.decide(node) == PermissionTrie.ALLOW;
+  }
+
+  /** Registered-node check against the plain rules: one bit test. */
+  boolean allows(PermissionNode node) {
+    int id = node.id();
+    NodeBits b = bits;
+    if (id >= b.covered) b = extendBits();
+    return (b.allow[id >>> 6] & (1L << id)) != 0;
+  }
+
+  /**
+   * Check with context. Only the tables for context keys this role actually uses are consulted,
+   * each with a single lookup by the player's current value. A contextual deny wins over
+   * everything, then a contextual allow, then the plain rules.
+   */
+  boolean allows(String node, Map<String, String> ctx) {
+    byte d = decideContext(node, ctx);
+    return d != PermissionTrie.UNSET ? d == PermissionTrie.ALLOW : allows(node);
+  }
+
+  boolean allows(PermissionNode node, Map<String, String> ctx) {
+    byte d = decideContext(node.name(), ctx);
+    return d != PermissionTrie.UNSET ? d == PermissionTrie.ALLOW : allows(node);
+  }
+
+  private byte decideContext(String node, Map<String, String> ctx) {
+    if (context.length == 0 || ctx == null || ctx.isEmpty()) return PermissionTrie.UNSET;
+    byte result = PermissionTrie.UNSET;
+    for (ContextTable table : context) {
+      String value = ctx.get(table.key);
+      if (value == null) continue;
+      PermissionTrie t = table.byValue.get(value);
+      if (t == null) continue;
+      byte d = t.decide(node);
+      if (d == PermissionTrie.DENY) return d;
+      if (d == PermissionTrie.ALLOW) result = d;
+    }
+    return result;
+  }
+
+  /** Resolve nodes registered since the last extension; runs once per role per registry growth. */
+  private synchronized NodeBits extendBits() {
+    NodeBits b = bits;
+    int count = PermissionNode.count();
+    if (b.covered >= count) return b;
+    long[] allow = Arrays.copyOf(b.allow, (count + 63) >>> 6);
+    for (int id = b.covered; id < count; id++) {
+      if (allows(PermissionNode.byId(id).name())) {
+        allow[id >>> 6] |= 1L << id;
+      }
+    }
+    NodeBits next = new NodeBits(allow, count);
+    bits = next;
+    return next;
+  }
+}
@@ -1,60 +1,104 @@
 package org.github.shatterz.sentinelcore.perm.memory;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 import org.github.shatterz.sentinelcore.config.CoreConfig;
+import org.github.shatterz.sentinelcore.perm.AsyncPermissionService;
+import org.github.shatterz.sentinelcore.perm.PermissionChanges;
+import org.github.shatterz.sentinelcore.perm.PermissionNode;
 import org.github.shatterz.sentinelcore.perm.PermissionService;
 
-public final class MemoryPermissionService implements PermissionService {
+/**
+ * In-memory permission backend driven by {@link CoreConfig.Permissions}.
+ *
+ * <p>Role state lives in a {@link Snapshot} that {@link #reload} builds completely on the calling
+ * thread (usually the config watcher) and then publishes with a single reference swap. Readers
+ * always see either the old or the new table, never a half-built one, and never take a lock.
+ * Player assignments live in a {@link UserRoleStore}, not in the config; an assignment to a role
+ * that does not exist (any more) resolves to the default role.
+ *
+ * <p>Checks never do I/O, so the {@link AsyncPermissionService} methods answer inline and return
+ * already completed futures; only {@link #setGroupAsync} waits for the store's durable append.
+ */
+public final class MemoryPermissionService implements PermissionService, AsyncPermissionService {
   private final String name = "memory";
-  private final Map<String, RoleView> roles = new HashMap<>();
-  private String defaultRole = "default";
-  private final Map<UUID, String> userRoles = new HashMap<>();
+  private final AtomicReference<Snapshot> state = new AtomicReference<>(Snapshot.EMPTY);
+  private final UserRoleStore users;
 
-  static final class RoleView {
-    Set<String> allow = new HashSet<>();
-    Set<String> deny = new HashSet<>();
-    List<String> inherits = new ArrayList<>();
+  /** Published, immutable role state. */
+  static final class Snapshot {
+    static final Snapshot EMPTY = new Snapshot(RoleTable.EMPTY, "default");
+
+    final RoleTable roles;
+    final String defaultRole;
+
+    Snapshot(RoleTable roles, String defaultRole) {
+      this.roles = roles;
+      this.defaultRole = defaultRole;
+    }
   }
 
+  /**
+   * Backend with assignments kept in memory only, seeded from the config's legacy {@code
+   * permissions.userRoles} map (tests and benchmarks).
+   */
   public MemoryPermissionService(CoreConfig cfg) {
+    this(cfg, UserRoleStore.inMemory());
+    if (cfg.permissions != null) {
+      users.importAll(cfg.permissions.userRoles);
+    }
+  }
+
+  public MemoryPermissionService(CoreConfig cfg, UserRoleStore users) {
+    this.users = users;
     reload(cfg);
   }
 
-  public void reload(CoreConfig cfg) {
-    roles.clear();
-    userRoles.clear();
-    // update defaultRole from config
-    if (cfg.permissions != null && cfg.permissions.defaultRole != null) {
-      this.defaultRole = cfg.permissions.defaultRole;
-    } else {
-      this.defaultRole = "default";
-    }
+  /** Role of {@code subject}: their assignment if that role exists, else the default role. */
+  private String roleOf(Snapshot s, UUID subject) {
+    String assigned = users.get(subject);
+    return assigned != null && s.roles.contains(assigned) ? assigned : s.defaultRole;
+  }
 
-    if (cfg.permissions != null && cfg.permissions.roles != null) {
-      cfg.permissions.roles.forEach(
-          (name, role) -> { // role is CoreConfig.Role
-            RoleView v = new RoleView();
-            if (role.allow != null) v.allow.addAll(role.allow);
-            if (role.deny != null) v.deny.addAll(role.deny);
-            if (role.inherits != null) v.inherits.addAll(role.inherits);
-            roles.put(name, v);
-          });
-    }
+  /**
+   * Apply a (re)loaded config. The new role definitions are diffed against the running table and
+   * only changed roles and the roles inheriting them are recompiled; everything else is reused.
+   *
+   * @return the roles and players whose decisions may differ from before
+   */
+  public PermissionChanges reload(CoreConfig cfg) {
+    Snapshot old = state.get();
 
-    // load explicit user role assignments from config
-    if (cfg.permissions != null && cfg.permissions.userRoles != null) {
-      cfg.permissions.userRoles.forEach(
-          (uuidStr, roleName) -> {
-            try {
-              java.util.UUID uuid = java.util.UUID.fromString(uuidStr);
-              if (roleName != null && roles.containsKey(roleName)) {
-                userRoles.put(uuid, roleName);
-              }
-            } catch (IllegalArgumentException ignored) {
-              // skip invalid UUID strings
-            }
-          });
+    // update defaultRole from config
+    String defaultRole =
+        cfg.permissions != null && cfg.permissions.defaultRole != null
+            ? cfg.permissions.defaultRole
+            : "default";
+
+    // recompile changed roles (and their descendants) into flattened tries
+    Map<String, CoreConfig.Role> defs =
+        cfg.permissions != null && cfg.permissions.roles != null
+            ? cfg.permissions.roles
+            : Map.of();
+    Set<String> changedRoles = old.roles.changedRoles(defs);
+    RoleTable roles = old.roles.withDefinitions(defs);
+
+    state.set(new Snapshot(roles, defaultRole));
+
+    if (!defaultRole.equals(old.defaultRole)) {
+      return PermissionChanges.EVERYONE;
     }
+    // assignments are not part of the config, so only role holders can be affected; a removed
+    // role is among the changed roles, which covers players that fall back to the default
+    Set<String> affectedRoles = new HashSet<>(old.roles.affectedBy(changedRoles));
+    affectedRoles.addAll(roles.affectedBy(changedRoles));
+    return new PermissionChanges(affectedRoles, Set.of(), false);
+  }
+
+  /** Store holding this backend's player assignments. */
+  public UserRoleStore users() {
+    return users;
   }
 
   @Override
@@ -64,74 +108,119 @@ public final class MemoryPermissionService implements PermissionService {
 
   @Override
   public boolean check(UUID subject, String node, Map<String, String> ctx) {
-    // resolve subject role
-    String role = userRoles.getOrDefault(subject, defaultRole);
-    Set<String> visited = new HashSet<>();
-    return resolve(role, node, visited);
+    if (node == null) return false;
+    Snapshot s = state.get();
+    // resolve subject role; the compiled tries already account for inheritance and context
+    CompiledRole role = s.roles.compiled(roleOf(s, subject));
+    return role != null && role.allows(node, ctx);
+  }
+
+  @Override
+  public boolean check(UUID subject, PermissionNode node, Map<String, String> ctx) {
+    Snapshot s = state.get();
+    // registered nodes are answered from the role's precomputed bitset
+    CompiledRole role = s.roles.compiled(roleOf(s, subject));
+    return role != null && role.allows(node, ctx);
+  }
+
+  @Override
+  public BitSet checkAll(UUID subject, Collection<PermissionNode> nodes, Map<String, String> ctx) {
+    BitSet granted = new BitSet(PermissionNode.count());
+    Snapshot s = state.get();
+    // resolve the role once, then one bit test (or context lookup) per node
+    CompiledRole role = s.roles.compiled(roleOf(s, subject));
+    if (role == null) return granted;
+    for (PermissionNode node : nodes) {
+      if (role.allows(node, ctx)) granted.set(node.id());
+    }
+    return granted;
+  }
+
+  @Override
+  public Set<UUID> checkMany(
+      Collection<UUID> subjects, PermissionNode node, Map<String, String> ctx) {
+    Snapshot s = state.get();
+    // subjects share the context, so the answer only depends on their role: decide once per role
+    Map<String, Boolean> byRole = new HashMap<>();
+    Set<UUID> granted = new HashSet<>();
+    for (UUID subject : subjects) {
+      String roleName = roleOf(s, subject);
+      Boolean ok = byRole.get(roleName);
+      if (ok == null) {
+        CompiledRole role = s.roles.compiled(roleName);
+        ok = role != null && role.allows(node, ctx);
+        byRole.put(roleName, ok);
+      }
+      if (ok) granted.add(subject);
+    }
+    return granted;
   }
 
   @Override
   public String getGroup(UUID subject) {
-    return userRoles.getOrDefault(subject, defaultRole);
+    return roleOf(state.get(), subject);
   }
 
   @Override
   public void setGroup(UUID subject, String group) {
-    if (group == null || !roles.containsKey(group)) {
-      userRoles.remove(subject);
-    } else {
-      userRoles.put(subject, group);
-    }
+    setGroupAsync(subject, group);
   }
 
   @Override
   public List<String> getInheritedGroups(UUID subject) {
-    String primaryGroup = getGroup(subject);
-    List<String> inherited = new ArrayList<>();
-    Set<String> visited = new HashSet<>();
-    collectInherited(primaryGroup, inherited, visited);
-    return inherited;
+    Snapshot s = state.get();
+    return s.roles.inheritedGroups(roleOf(s, subject));
+  }
+
+  @Override
+  public boolean inGroup(UUID subject, String group) {
+    Snapshot s = state.get();
+    // one bit test against the role's precomputed closure
+    return s.roles.inherits(roleOf(s, subject), group);
+  }
+
+  @Override
+  public boolean groupInherits(String group, String parent) {
+    return state.get().roles.inherits(group, parent);
   }
 
   @Override
   public boolean groupExists(String group) {
-    return roles.containsKey(group);
+    return state.get().roles.contains(group);
   }
 
-  private void collectInherited(String role, List<String> result, Set<String> visited) {
-    if (role == null || !roles.containsKey(role) || !visited.add(role)) return;
-    result.add(role);
-    RoleView r = roles.get(role);
-    for (String parent : r.inherits) {
-      collectInherited(parent, result, visited);
-    }
+  @Override
+  public CompletableFuture<Boolean> checkAsync(
+      UUID subject, String node, Map<String, String> ctx) {
+    return CompletableFuture.completedFuture(check(subject, node, ctx));
   }
 
-  private boolean resolve(String role, String node, Set<String> visited) {
-    if (role == null || !roles.containsKey(role) || !visited.add(role)) return false;
-    RoleView r = roles.get(role);
+  @Override
+  public CompletableFuture<Boolean> checkAsync(
+      UUID subject, PermissionNode node, Map<String, String> ctx) {
+    return CompletableFuture.completedFuture(check(subject, node, ctx));
+  }
 
-    // Explicit deny beats allow
-    if (match(r.deny, node)) return false;
-    if (match(r.allow, node)) return true;
+  @Override
+  public CompletableFuture<String> getGroupAsync(UUID subject) {
+    return CompletableFuture.completedFuture(getGroup(subject));
+  }
 
-    // Inherit
-    for (String p : r.inherits) {
-      if (resolve(p, node, visited)) return true;
-    }
-    return false;
+  /** Visible to checks immediately; completes once the assignment is durable in the store. */
+  @Override
+  public CompletableFuture<Void> setGroupAsync(UUID subject, String group) {
+    // an unknown role clears the assignment, so the player falls back to the default role
+    boolean known = group != null && state.get().roles.contains(group);
+    return users.set(subject, known ? group : null);
   }
 
-  // Support simple wildcard matching: "sentinelcore.*"
-  private boolean match(Set<String> patterns, String node) {
-    for (String p : patterns) {
-      if (p.endsWith(".*")) {
-        String prefix = p.substring(0, p.length() - 2);
-        if (node.startsWith(prefix)) return true;
-      } else if (p.equalsIgnoreCase(node)) {
-        return true;
-      }
-    }
-    return false;
+  @Override
+  public CompletableFuture<List<String>> getInheritedGroupsAsync(UUID subject) {
+    return CompletableFuture.completedFuture(getInheritedGroups(subject));
+  }
+
+  @Override
+  public CompletableFuture<Boolean> groupExistsAsync(String group) {
+    return CompletableFuture.completedFuture(groupExists(group));
   }
 }
@@ -0,0 +1,136 @@
+package org.github.shatterz.sentinelcore.perm.memory;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable segment trie over dot-separated permission nodes with decisions already resolved.
+ *
+ * <p>Every trie node carries two precomputed decisions: {@code exact} applies when the queried
+ * permission ends at that node, {@code pass} applies when it continues past the node without
+ * matching a deeper child (so only wildcards on the path can apply). A lookup is a single walk over
+ * the segments of the queried string and never allocates.
+ */
+final class PermissionTrie {
+  static final byte UNSET = 0;
+  static final byte ALLOW = 1;
+  static final byte DENY = 2;
+
+  static final PermissionTrie EMPTY = new PermissionTrie(new Node(UNSET, UNSET, null, null));
+
+  private final Node root;
+
+  private PermissionTrie(Node root) {
+    this.root = root;
+  }
+
+  /** Resolve a permission node to {@link #ALLOW}, {@link #DENY} or {@link #UNSET}. */
+  byte decide(String node) {
+    Node cur = root;
+    int len = node.length();
+    int start = 0;
+    while (true) {
+      int end = node.indexOf('.', start);
+      if (end < 0) end = len;
+      Node next = cur.child(node, start, end);
+      if (next == null) return cur.pass;
+      cur = next;
+      if (end >= len) return cur.exact;
+      start = end + 1;
+    }
+  }
+
+  /** Case-insensitive hash over {@code s[from, to)}; must agree with hashing a lowercased key. */
+  private static int hash(String s, int from, int to) {
+    int h = 0;
+    for (int i = from; i < to; i++) {
+      h = 31 * h + Character.toLowerCase(s.charAt(i));
+    }
+    return h ^ (h >>> 16);
+  }
+
+  /** Frozen trie node with an open-addressed child table keyed by lowercase segment. */
+  private static final class Node {
+    final byte exact;
+    final byte pass;
+    final String[] keys;
+    final Node[] children;
+
+    Node(byte exact, byte pass, String[] keys, Node[] children) {
+      this.exact = exact;
+      this.pass = pass;
+      this.keys = keys;
+      this.children = children;
+    }
+
+    Node child(String s, int from, int to) {
+      if (keys == null) return null;
+      int len = to - from;
+      int mask = keys.length - 1;
+      int i = hash(s, from, to) & mask;
+      String k;
+      while ((k = keys[i]) != null) {
+        if (k.length() == len && k.regionMatches(true, 0, s, from, len)) {
+          return children[i];
+        }
+        i = (i + 1) & mask;
+      }
+      return null;
+    }
+  }
+
+  /**
+   * Mutable trie used while compiling. Callers fill in {@link BuildNode#exact} and {@link
+   * BuildNode#pass} for every node, then call {@link #freeze()}.
+   */
+  static final class Builder {
+    final BuildNode root = new BuildNode();
+
+    /** Get or create the node for a dot-separated path; an empty path is the root. */
+    BuildNode path(String path) {
+      BuildNode cur = root;
+      if (path.isEmpty()) return cur;
+      for (String seg : path.toLowerCase(Locale.ROOT).split("\\.", -1)) {
+        cur = cur.children.computeIfAbsent(seg, k -> new BuildNode());
+      }
+      return cur;
+    }
+
+    PermissionTrie freeze() {
+      return new PermissionTrie(freeze(root));
+    }
+
+    private static Node freeze(BuildNode b) {
+      if (b.children.isEmpty()) {
+        return new Node(b.exact, b.pass, null, null);
+      }
+      int cap = Integer.highestOneBit(Math.max(2, b.children.size() * 2 - 1)) << 1;
+      String[] keys = new String[cap];
+      Node[] nodes = new Node[cap];
+      for (Map.Entry<String, BuildNode> e : b.children.entrySet()) {
+        String k = e.getKey();
+        int i = hash(k, 0, k.length()) & (cap - 1);
+        while (keys[i] != null) i = (i + 1) & (cap - 1);
+        keys[i] = k;
+        nodes[i] = freeze(e.getValue());
+      }
+      return new Node(b.exact, b.pass, keys, nodes);
+    }
+  }
+
+  /**
+   * Node of a {@link Builder}. The bitsets record which roles (by compiler-local index) allow or
+   * deny this exact path, or this path as a wildcard prefix.
+   */
+  static final class BuildNode {
+    final Map<String, BuildNode> children = new HashMap<>();
+    final BitSet exactAllow = new BitSet();
+    final BitSet exactDeny = new BitSet();
+    final BitSet wildAllow = new BitSet();
+    final BitSet wildDeny = new BitSet();
+    byte exact = UNSET;
+    byte pass = UNSET;
+  }
+}
@@ -0,0 +1,207 @@
+package org.github.shatterz.sentinelcore.perm.memory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.github.shatterz.sentinelcore.config.CoreConfig;
+
+/**
+ * Compiles configured roles into flattened {@link CompiledRole}s.
+ *
+ * <p>Each role gets its own trie containing the patterns of every role it (transitively) inherits.
+ * For every trie node the compiler evaluates the same precedence the old recursive resolver used:
+ * a role's own deny beats its own allow, its own rules beat inherited ones, and any inherited allow
+ * wins over inherited denies. Patterns ending in {@code .*} (or a bare {@code *}) are stored as
+ * wildcard terminals and also match the prefix itself, e.g. {@code a.b.*} matches {@code a.b}.
+ *
+ * <p>Contextual rules are compiled the same way, one trie per context key/value pair that occurs
+ * anywhere in the role's inheritance closure, and indexed by key and value so a check only looks at
+ * the tables for the player's current context.
+ */
+final class RoleCompiler {
+  private static final byte UNVISITED = -1;
+  private static final byte IN_PROGRESS = -2;
+
+  private RoleCompiler() {}
+
+  /** Compile every role in {@code defs}. */
+  static Map<String, CompiledRole> compile(Map<String, CoreConfig.Role> defs) {
+    Map<String, CompiledRole> out = new HashMap<>();
+    for (String name : defs.keySet()) {
+      out.put(name, compileRole(name, defs));
+    }
+    return out;
+  }
+
+  /** Compile a single role against the full set of role definitions. */
+  static CompiledRole compileRole(String name, Map<String, CoreConfig.Role> defs) {
+    // Collect the inheritance closure; index 0 is the role being compiled
+    List<String> closure = new ArrayList<>();
+    Map<String, Integer> index = new HashMap<>();
+    closure.add(name);
+    index.put(name, 0);
+    for (int i = 0; i < closure.size(); i++) {
+      CoreConfig.Role r = defs.get(closure.get(i));
+      if (r == null || r.inherits == null) continue;
+      for (String p : r.inherits) {
+        if (p != null && defs.containsKey(p) && !index.containsKey(p)) {
+          index.put(p, closure.size());
+          closure.add(p);
+        }
+      }
+    }
+
+    CoreConfig.Role[] members = new CoreConfig.Role[closure.size()];
+    int[][] parents = new int[closure.size()][];
+    // context key -> context values used anywhere in the closure (ordered for stable output)
+    Map<String, List<String>> contextValues = new LinkedHashMap<>();
+    for (int i = 0; i < closure.size(); i++) {
+      CoreConfig.Role r = defs.get(closure.get(i));
+      members[i] = r;
+      parents[i] =
+          r == null || r.inherits == null
+              ? new int[0]
+              : r.inherits.stream().filter(index::containsKey).mapToInt(index::get).toArray();
+      if (r != null && r.context != null) {
+        r.context.forEach(
+            (key, byValue) -> {
+              if (key == null || byValue == null) return;
+              List<String> values = contextValues.computeIfAbsent(key, k -> new ArrayList<>());
+              for (String v : byValue.keySet()) {
+                if (v != null && !values.contains(v)) values.add(v);
+              }
+            });
+      }
+    }
+
+    PermissionTrie base = compileTrie(members, parents, null, null);
+
+    List<CompiledRole.ContextTable> tables = new ArrayList<>();
+    contextValues.forEach(
+        (key, values) -> {
+          Map<String, PermissionTrie> byValue = new HashMap<>();
+          for (String value : values) {
+            byValue.put(value, compileTrie(members, parents, key, value));
+          }
+          tables.add(new CompiledRole.ContextTable(key, Map.copyOf(byValue)));
+        });
+
+    CoreConfig.Role self = defs.get(name);
+    List<String> inherits =
+        self != null && self.inherits != null
+            ? self.inherits.stream().filter(Objects::nonNull).toList()
+            : List.of();
+    return new CompiledRole(
+        name, inherits, base, tables.toArray(new CompiledRole.ContextTable[0]));
+  }
+
+  /**
+   * Build and resolve one trie for role 0 of {@code members}. With a null {@code ctxKey} the plain
+   * allow/deny sets are used, otherwise the contextual rules for {@code ctxKey=ctxValue}.
+   */
+  private static PermissionTrie compileTrie(
+      CoreConfig.Role[] members, int[][] parents, String ctxKey, String ctxValue) {
+    PermissionTrie.Builder builder = new PermissionTrie.Builder();
+    for (int i = 0; i < members.length; i++) {
+      CoreConfig.Role r = members[i];
+      if (r == null) continue;
+      if (ctxKey == null) {
+        addPatterns(builder, r.allow, i, true);
+        addPatterns(builder, r.deny, i, false);
+      } else {
+        Map<String, CoreConfig.ContextRules> byValue =
+            r.context != null ? r.context.get(ctxKey) : null;
+        CoreConfig.ContextRules rules = byValue != null ? byValue.get(ctxValue) : null;
+        if (rules != null) {
+          addPatterns(builder, rules.allow, i, true);
+          addPatterns(builder, rules.deny, i, false);
+        }
+      }
+    }
+
+    byte[] memo = new byte[members.length];
+    resolve(builder.root, new BitSet(), new BitSet(), parents, memo);
+    return builder.freeze();
+  }
+
+  private static void addPatterns(
+      PermissionTrie.Builder builder, Collection<String> patterns, int role, boolean allow) {
+    if (patterns == null) return;
+    for (String p : patterns) {
+      if (p == null || p.isEmpty()) continue;
+      if ("*".equals(p)) {
+        (allow ? builder.root.wildAllow : builder.root.wildDeny).set(role);
+      } else if (p.endsWith(".*")) {
+        PermissionTrie.BuildNode n = builder.path(p.substring(0, p.length() - 2));
+        (allow ? n.wildAllow : n.wildDeny).set(role);
+      } else {
+        PermissionTrie.BuildNode n = builder.path(p);
+        (allow ? n.exactAllow : n.exactDeny).set(role);
+      }
+    }
+  }
+
+  /** Depth-first pass that fixes the exact/pass decision of every node for role 0. */
+  private static void resolve(
+      PermissionTrie.BuildNode node,
+      BitSet inheritedAllow,
+      BitSet inheritedDeny,
+      int[][] parents,
+      byte[] memo) {
+    BitSet wildAllow = (BitSet) inheritedAllow.clone();
+    BitSet wildDeny = (BitSet) inheritedDeny.clone();
+    wildAllow.or(node.wildAllow);
+    wildDeny.or(node.wildDeny);
+
+    node.pass = evaluate(wildAllow, wildDeny, parents, memo);
+    if (node.exactAllow.isEmpty() && node.exactDeny.isEmpty()) {
+      node.exact = node.pass;
+    } else {
+      BitSet allow = (BitSet) wildAllow.clone();
+      BitSet deny = (BitSet) wildDeny.clone();
+      allow.or(node.exactAllow);
+      deny.or(node.exactDeny);
+      node.exact = evaluate(allow, deny, parents, memo);
+    }
+
+    for (PermissionTrie.BuildNode child : node.children.values()) {
+      resolve(child, wildAllow, wildDeny, parents, memo);
+    }
+  }
+
+  private static byte evaluate(BitSet allow, BitSet deny, int[][] parents, byte[] memo) {
+    if (allow.isEmpty() && deny.isEmpty()) return PermissionTrie.UNSET;
+    Arrays.fill(memo, UNVISITED);
+    return evaluate(0, allow, deny, parents, memo);
+  }
+
+  private static byte evaluate(int role, BitSet allow, BitSet deny, int[][] parents, byte[] memo) {
+    byte m = memo[role];
+    if (m == IN_PROGRESS) return PermissionTrie.UNSET; // inheritance cycle
+    if (m != UNVISITED) return m;
+
+    // Explicit deny beats allow
+    if (deny.get(role)) return memo[role] = PermissionTrie.DENY;
+    if (allow.get(role)) return memo[role] = PermissionTrie.ALLOW;
+
+    // Inherit: any allowing parent wins, otherwise remember an inherited deny
+    memo[role] = IN_PROGRESS;
+    byte result = PermissionTrie.UNSET;
+    for (int p : parents[role]) {
+      byte d = evaluate(p, allow, deny, parents, memo);
+      if (d == PermissionTrie.ALLOW) {
+        result = PermissionTrie.ALLOW;
+        break;
+      }
+      if (d == PermissionTrie.DENY) result = PermissionTrie.DENY;
+    }
+    memo[role] = result;
+    return result;
+  }
+}
@@ -0,0 +1,323 @@
+package org.github.shatterz.sentinelcore.perm.memory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.github.shatterz.sentinelcore.config.CoreConfig;
+import org.github.shatterz.sentinelcore.perm.PermissionNode;
+
+/**
+ * Immutable table of role definitions and their compiled form, shared by every backend that
+ * evaluates roles locally (the memory backend and the LuckPerms mirror).
+ *
+ * <p>{@link #withChanges} produces a new table in which only the changed roles and the roles that
+ * inherit from them (directly or transitively) are recompiled; everything else is carried over.
+ *
+ * <p>Every table also precomputes each role's inheritance closure. Roles that something inherits
+ * get a dense bit index, and each role keeps the bits of every role it inherits, so membership
+ * ({@link #inherits}) is a bit test and {@link #inheritedGroups} returns a shared immutable list.
+ * Roles nobody inherits (such as the LuckPerms mirror's per-user roles) need no bit, which keeps
+ * the bitsets as narrow as the number of actual groups.
+ */
+public final class RoleTable {
+  public static final RoleTable EMPTY = new RoleTable(Map.of(), Map.of());
+
+  private final Map<String, CoreConfig.Role> defs;
+  private final Map<String, CompiledRole> roles;
+  private final String[] indexed; // inherited roles by bit index
+  private final Map<String, Closure> closures;
+
+  /** Precomputed inheritance closure of one role. */
+  private static final class Closure {
+    static final long[] NO_BITS = new long[0];
+
+    final int index; // bit of this role, or -1 if no role inherits it
+    final long[] bits; // every indexed role this one inherits, itself included
+    final List<String> groups; // the role and everything it inherits, depth-first
+
+    Closure(int index, long[] bits, List<String> groups) {
+      this.index = index;
+      this.bits = bits;
+      this.groups = groups;
+    }
+  }
+
+  private RoleTable(Map<String, CoreConfig.Role> defs, Map<String, CompiledRole> roles) {
+    this(defs, roles, null, Set.of());
+  }
+
+  /**
+   * @param previous table whose closures may be reused for roles outside {@code affected}, as long
+   *     as the bit layout did not change
+   */
+  private RoleTable(
+      Map<String, CoreConfig.Role> defs,
+      Map<String, CompiledRole> roles,
+      RoleTable previous,
+      Set<String> affected) {
+    this.defs = defs;
+    this.roles = roles;
+    this.indexed = inheritedRoles(roles);
+    this.closures = buildClosures(roles, indexed, previous, affected);
+  }
+
+  /** Compile every role in {@code defs}. */
+  public static RoleTable compile(Map<String, CoreConfig.Role> defs) {
+    Map<String, CoreConfig.Role> copy = copyDefs(defs);
+    return new RoleTable(Map.copyOf(copy), Map.copyOf(RoleCompiler.compile(copy)));
+  }
+
+  /**
+   * Apply upserted and removed role definitions, recompiling only the affected roles.
+   *
+   * @return this table if nothing actually changed
+   */
+  public RoleTable withChanges(Map<String, CoreConfig.Role> upserts, Collection<String> removed) {
+    Map<String, CoreConfig.Role> next = new HashMap<>(defs);
+    Set<String> dirty = new HashSet<>();
+    upserts.forEach(
+        (name, def) -> {
+          if (name == null || def == null) return;
+          if (!sameDefinition(defs.get(name), def)) {
+            next.put(name, def);
+            dirty.add(name);
+          }
+        });
+    for (String name : removed) {
+      if (name != null && next.remove(name) != null) dirty.add(name);
+    }
+    if (dirty.isEmpty()) return this;
+
+    // Roles that inherit a dirty role (before or after the change) must be recompiled too
+    Set<String> affected = descendants(dirty, defs, next);
+    Map<String, CompiledRole> compiled = new HashMap<>(roles);
+    compiled.keySet().removeAll(dirty);
+    for (String name : affected) {
+      if (next.containsKey(name)) {
+        compiled.put(name, RoleCompiler.compileRole(name, next));
+      } else {
+        compiled.remove(name);
+      }
+    }
+    return new RoleTable(Map.copyOf(next), Map.copyOf(compiled), this, affected);
+  }
+
+  /**
+   * Replace the whole definition set (e.g. after a config reload), recompiling only the roles
+   * {@link #changedRoles} reports and their descendants.
+   */
+  public RoleTable withDefinitions(Map<String, CoreConfig.Role> next) {
+    Set<String> removed = new HashSet<>(defs.keySet());
+    removed.removeIf(name -> next.get(name) != null);
+    return withChanges(next, removed);
+  }
+
+  /** Roles added, removed or redefined in {@code next} compared to this table. */
+  public Set<String> changedRoles(Map<String, CoreConfig.Role> next) {
+    Set<String> changed = new HashSet<>();
+    next.forEach(
+        (name, def) -> {
+          if (name != null && def != null && !sameDefinition(defs.get(name), def)) {
+            changed.add(name);
+          }
+        });
+    for (String name : defs.keySet()) {
+      if (next.get(name) == null) changed.add(name);
+    }
+    return changed;
+  }
+
+  /** Roles that would be recompiled if {@code changed} roles changed (including themselves). */
+  public Set<String> affectedBy(Collection<String> changed) {
+    return descendants(changed, defs, defs);
+  }
+
+  public boolean contains(String role) {
+    return role != null && roles.containsKey(role);
+  }
+
+  public Set<String> names() {
+    return roles.keySet();
+  }
+
+  /** Definition the role was compiled from, or null. Callers must not modify it. */
+  public CoreConfig.Role definition(String role) {
+    return role != null ? defs.get(role) : null;
+  }
+
+  public Map<String, CoreConfig.Role> definitions() {
+    return defs;
+  }
+
+  public boolean check(String role, String node, Map<String, String> ctx) {
+    CompiledRole r = compiled(role);
+    return r != null && node != null && r.allows(node, ctx);
+  }
+
+  public boolean check(String role, PermissionNode node, Map<String, String> ctx) {
+    CompiledRole r = compiled(role);
+    return r != null && r.allows(node, ctx);
+  }
+
+  /**
+   * The role followed by everything it inherits, in depth-first order without duplicates. The list
+   * is immutable and shared; an unknown role yields an empty list.
+   */
+  public List<String> inheritedGroups(String role) {
+    Closure c = role != null ? closures.get(role) : null;
+    return c != null ? c.groups : List.of();
+  }
+
+  /** Whether {@code role} is {@code group} or inherits it, directly or transitively. */
+  public boolean inherits(String role, String group) {
+    Closure r = role != null ? closures.get(role) : null;
+    Closure g = group != null ? closures.get(group) : null;
+    if (r == null || g == null) return false;
+    if (r == g) return true;
+    int bit = g.index;
+    return bit >= 0 && (r.bits[bit >>> 6] & (1L << bit)) != 0;
+  }
+
+  CompiledRole compiled(String role) {
+    return role != null ? roles.get(role) : null;
+  }
+
+  /** Roles that some role inherits, sorted so the bit layout only changes when this set does. */
+  private static String[] inheritedRoles(Map<String, CompiledRole> roles) {
+    Set<String> parents = new HashSet<>();
+    for (CompiledRole r : roles.values()) {
+      for (String parent : r.inherits) {
+        if (roles.containsKey(parent)) parents.add(parent);
+      }
+    }
+    String[] indexed = parents.toArray(new String[0]);
+    Arrays.sort(indexed);
+    return indexed;
+  }
+
+  /**
+   * Resolve every role's closure. Roles outside {@code affected} keep the previous table's closure
+   * when the layout is unchanged, so a change to one of many roles (a mirrored user, say) does not
+   * walk all of them again.
+   */
+  private static Map<String, Closure> buildClosures(
+      Map<String, CompiledRole> roles,
+      String[] indexed,
+      RoleTable previous,
+      Set<String> affected) {
+    if (roles.isEmpty()) return Map.of();
+    boolean reuse = previous != null && Arrays.equals(indexed, previous.indexed);
+    Map<String, Integer> index = new HashMap<>();
+    for (int i = 0; i < indexed.length; i++) {
+      index.put(indexed[i], i);
+    }
+    int words = (indexed.length + 63) >>> 6;
+
+    Map<String, Closure> out = new HashMap<>();
+    for (String name : roles.keySet()) {
+      Closure kept = reuse && !affected.contains(name) ? previous.closures.get(name) : null;
+      if (kept != null) {
+        out.put(name, kept);
+        continue;
+      }
+      List<String> groups = new ArrayList<>();
+      collectInherited(roles, name, groups, new HashSet<>());
+      long[] bits = words == 0 ? Closure.NO_BITS : new long[words];
+      for (String g : groups) {
+        Integer bit = index.get(g);
+        if (bit != null) bits[bit >>> 6] |= 1L << bit;
+      }
+      out.put(name, new Closure(index.getOrDefault(name, -1), bits, List.copyOf(groups)));
+    }
+    return Map.copyOf(out);
+  }
+
+  private static void collectInherited(
+      Map<String, CompiledRole> roles, String role, List<String> result, Set<String> visited) {
+    if (role == null || !roles.containsKey(role) || !visited.add(role)) return;
+    result.add(role);
+    CompiledRole r = roles.get(role);
+    for (String parent : r.inherits) {
+      collectInherited(roles, parent, result, visited);
+    }
+  }
+
+  /** {@code roots} plus every role that inherits one of them in either definition set. */
+  private static Set<String> descendants(
+      Collection<String> roots, Map<String, CoreConfig.Role> a, Map<String, CoreConfig.Role> b) {
+    Map<String, Set<String>> children = new HashMap<>();
+    for (Map<String, CoreConfig.Role> defs : List.of(a, b)) {
+      defs.forEach(
+          (name, def) -> {
+            if (def.inherits == null) return;
+            for (String parent : def.inherits) {
+              if (parent != null) children.computeIfAbsent(parent, k -> new HashSet<>()).add(name);
+            }
+          });
+    }
+    Set<String> out = new HashSet<>(roots);
+    Deque<String> queue = new ArrayDeque<>(roots);
+    while (!queue.isEmpty()) {
+      for (String child : children.getOrDefault(queue.poll(), Set.of())) {
+        if (out.add(child)) queue.add(child);
+      }
+    }
+    return out;
+  }
+
+  private static Map<String, CoreConfig.Role> copyDefs(Map<String, CoreConfig.Role> defs) {
+    Map<String, CoreConfig.Role> copy = new HashMap<>();
+    defs.forEach(
+        (name, def) -> {
+          if (name != null && def != null) copy.put(name, def);
+        });
+    return copy;
+  }
+
+  /** Whether two definitions compile to the same role. */
+  public static boolean sameDefinition(CoreConfig.Role a, CoreConfig.Role b) {
+    if (a == b) return true;
+    if (a == null || b == null) return false;
+    return Objects.equals(nonNull(a.allow), nonNull(b.allow))
+        && Objects.equals(nonNull(a.deny), nonNull(b.deny))
+        && Objects.equals(nonNull(a.inherits), nonNull(b.inherits))
+        && sameContext(a.context, b.context);
+  }
+
+  private static boolean sameContext(
+      Map<String, Map<String, CoreConfig.ContextRules>> a,
+      Map<String, Map<String, CoreConfig.ContextRules>> b) {
+    Map<String, Map<String, CoreConfig.ContextRules>> x = a != null ? a : Map.of();
+    Map<String, Map<String, CoreConfig.ContextRules>> y = b != null ? b : Map.of();
+    if (!x.keySet().equals(y.keySet())) return false;
+    for (Map.Entry<String, Map<String, CoreConfig.ContextRules>> e : x.entrySet()) {
+      Map<String, CoreConfig.ContextRules> xv = e.getValue() != null ? e.getValue() : Map.of();
+      Map<String, CoreConfig.ContextRules> yv =
+          y.get(e.getKey()) != null ? y.get(e.getKey()) : Map.of();
+      if (!xv.keySet().equals(yv.keySet())) return false;
+      for (Map.Entry<String, CoreConfig.ContextRules> r : xv.entrySet()) {
+        CoreConfig.ContextRules p = r.getValue();
+        CoreConfig.ContextRules q = yv.get(r.getKey());
+        if (p == q) continue;
+        if (p == null || q == null) return false;
+        if (!Objects.equals(nonNull(p.allow), nonNull(q.allow))
+            || !Objects.equals(nonNull(p.deny), nonNull(q.deny))) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  private static Set<String> nonNull(Set<String> s) {
+    return s != null ? s : Set.of();
+  }
+}
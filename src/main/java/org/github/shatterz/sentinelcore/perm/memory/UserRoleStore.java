@@ -0,0 +1,367 @@
+package org.github.shatterz.sentinelcore.perm.memory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import org.github.shatterz.sentinelcore.log.SentinelCategories;
+import org.github.shatterz.sentinelcore.log.SentinelLogger;
+import org.slf4j.Logger;
+
+/**
+ * Durable player-to-role assignments for the memory backend.
+ *
+ * <p>Assignments live in an in-memory index that is rebuilt from an append-only log at startup.
+ * Every change updates the index immediately and appends one line ({@code <uuid>\t<role>}, or just
+ * {@code <uuid>} for a removal) to the log on a single writer thread. Lines queued while the
+ * writer is busy go out together with one {@code force}, so a burst of assignments shares a single
+ * sync; each returned future completes once its line is durable. Once superseded records dominate
+ * the log, it is compacted by writing the index to a temporary file and atomically replacing the
+ * log. A torn last line from a crash is cut off when the log is opened.
+ */
+public final class UserRoleStore {
+  private static final Logger LOG = SentinelLogger.cat(SentinelCategories.PERM);
+  private static final int COMPACT_MIN_RECORDS = 4096;
+  private static final long COMPACT_INTERVAL_MINUTES = 10;
+
+  private final Map<UUID, String> index = new ConcurrentHashMap<>();
+  private final Path file;
+  private final ScheduledExecutorService writer;
+  // separate from the store's monitor, which importAll holds while waiting for the writer
+  private final Object queueLock = new Object();
+  private final List<Pending> pending = new ArrayList<>(); // guarded by queueLock
+  private boolean drainScheduled; // guarded by queueLock
+  private FileChannel channel; // writer thread only
+  private long records; // writer thread only, after open
+
+  /** Lines waiting for the writer, completed together once they are forced. */
+  private static final class Pending {
+    final String lines;
+    final CompletableFuture<Void> done = new CompletableFuture<>();
+
+    Pending(String lines) {
+      this.lines = lines;
+    }
+  }
+
+  private UserRoleStore(Path file) {
+    this.file = file;
+    this.writer =
+        file == null
+            ? null
+            : Executors.newSingleThreadScheduledExecutor(
+                r -> {
+                  Thread t = new Thread(r, "SentinelCore-RoleStore");
+                  t.setDaemon(true);
+                  return t;
+                });
+  }
+
+  /** Store without a backing file (tests, benchmarks, a memory backend built from a config). */
+  public static UserRoleStore inMemory() {
+    return new UserRoleStore(null);
+  }
+
+  /** Open (or create) the log at {@code file} and load it into the index. */
+  public static UserRoleStore open(Path file) throws IOException {
+    UserRoleStore store = new UserRoleStore(file);
+    try {
+      store.load();
+    } catch (IOException | RuntimeException e) {
+      store.writer.shutdownNow();
+      if (store.channel != null) store.channel.close();
+      throw e;
+    }
+    store.writer.scheduleWithFixedDelay(
+        store::compactIfNeeded,
+        COMPACT_INTERVAL_MINUTES,
+        COMPACT_INTERVAL_MINUTES,
+        TimeUnit.MINUTES);
+    return store;
+  }
+
+  /** Assigned role, or null if the player has no explicit assignment. */
+  public String get(UUID subject) {
+    return subject != null ? index.get(subject) : null;
+  }
+
+  public int size() {
+    return index.size();
+  }
+
+  /** Copy of every assignment. */
+  public Map<UUID, String> snapshot() {
+    return new HashMap<>(index);
+  }
+
+  /**
+   * Visit every assignment without copying the index (exports). Changes made concurrently may or
+   * may not be seen.
+   */
+  public void forEach(BiConsumer<UUID, String> action) {
+    index.forEach(action);
+  }
+
+  /**
+   * Assign {@code role} ({@code null} removes the assignment). Readers see the change immediately;
+   * the future completes once it is on disk and fails if it could not be written.
+   */
+  public synchronized CompletableFuture<Void> set(UUID subject, String role) {
+    if (subject == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+    if (role != null && !validRole(role)) {
+      return CompletableFuture.failedFuture(new IllegalArgumentException("Invalid role: " + role));
+    }
+    String previous = role == null ? index.remove(subject) : index.put(subject, role);
+    if (Objects.equals(previous, role) || writer == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+    // queued while holding the lock, so the log sees changes in the same order as the index
+    return enqueue(role == null ? subject + "\n" : subject + "\t" + role + "\n")
+        .whenComplete(
+            (v, e) -> {
+              if (e != null) LOG.error("Failed to persist role {} for {}", role, subject, e);
+            });
+  }
+
+  public CompletableFuture<Void> remove(UUID subject) {
+    return set(subject, null);
+  }
+
+  /**
+   * Assign many roles at once (bulk imports). Readers see every change immediately; the changed
+   * entries go to the log as one batch, and the future completes once that batch is durable.
+   * Entries with an invalid role are ignored.
+   *
+   * @return the subjects whose assignment actually changed, once durable
+   */
+  public synchronized CompletableFuture<Set<UUID>> setAll(Map<UUID, String> assignments) {
+    StringBuilder batch = new StringBuilder();
+    Set<UUID> changed = new HashSet<>();
+    for (Map.Entry<UUID, String> e : assignments.entrySet()) {
+      UUID subject = e.getKey();
+      String role = e.getValue();
+      if (subject == null || role == null || !validRole(role)) continue;
+      if (!role.equals(index.put(subject, role))) {
+        batch.append(subject).append('\t').append(role).append('\n');
+        changed.add(subject);
+      }
+    }
+    if (writer == null || changed.isEmpty()) {
+      return CompletableFuture.completedFuture(changed);
+    }
+    return enqueue(batch.toString()).thenApply(v -> changed);
+  }
+
+  /**
+   * Add assignments that are not in the store yet, written as one batch; used to migrate the
+   * legacy {@code permissions.userRoles} config map. Blocks until the batch is on disk.
+   *
+   * @return number of assignments imported
+   */
+  public synchronized int importAll(Map<String, String> assignments) {
+    if (assignments == null || assignments.isEmpty()) return 0;
+    StringBuilder batch = new StringBuilder();
+    int imported = 0;
+    for (Map.Entry<String, String> e : assignments.entrySet()) {
+      String role = e.getValue();
+      if (role == null || !validRole(role)) {
+        continue;
+      }
+      UUID subject;
+      try {
+        subject = UUID.fromString(e.getKey());
+      } catch (IllegalArgumentException | NullPointerException ex) {
+        LOG.warn("Skipping invalid UUID in user role assignments: {}", e.getKey());
+        continue;
+      }
+      if (index.putIfAbsent(subject, role) == null) {
+        batch.append(subject).append('\t').append(role).append('\n');
+        imported++;
+      }
+    }
+    if (writer != null && imported > 0) {
+      enqueue(batch.toString()).join();
+    }
+    return imported;
+  }
+
+  /** Roles are stored verbatim in a tab-separated line log. */
+  private static boolean validRole(String role) {
+    return !role.isEmpty() && role.indexOf('\t') < 0 && role.indexOf('\n') < 0;
+  }
+
+  private CompletableFuture<Void> enqueue(String lines) {
+    Pending p = new Pending(lines);
+    synchronized (queueLock) {
+      pending.add(p);
+      if (!drainScheduled) {
+        drainScheduled = true;
+        writer.execute(this::drain);
+      }
+    }
+    return p.done;
+  }
+
+  /** Write everything queued so far with a single force, then complete the futures. */
+  private void drain() {
+    List<Pending> batch;
+    synchronized (queueLock) {
+      batch = new ArrayList<>(pending);
+      pending.clear();
+      drainScheduled = false;
+    }
+    StringBuilder sb = new StringBuilder();
+    for (Pending p : batch) sb.append(p.lines);
+    try {
+      append(sb.toString());
+    } catch (RuntimeException e) {
+      for (Pending p : batch) p.done.completeExceptionally(e);
+      return;
+    }
+    for (Pending p : batch) p.done.complete(null);
+    compactIfNeeded();
+  }
+
+  /** Wait until every change submitted so far is on disk. */
+  public void flush() {
+    if (writer == null) return;
+    try {
+      CompletableFuture.runAsync(() -> {}, writer).get(5, TimeUnit.SECONDS);
+    } catch (Exception e) {
+      LOG.warn("Timed out flushing user role store {}", file, e);
+    }
+  }
+
+  private void load() throws IOException {
+    Files.createDirectories(file.getParent());
+    channel =
+        FileChannel.open(
+            file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    truncateTornTail();
+
+    long loaded = 0;
+    long skipped = 0;
+    try (BufferedReader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = r.readLine()) != null) {
+        if (line.isEmpty()) continue;
+        loaded++;
+        int tab = line.indexOf('\t');
+        try {
+          UUID subject = UUID.fromString(tab < 0 ? line : line.substring(0, tab));
+          if (tab < 0) {
+            index.remove(subject);
+          } else {
+            index.put(subject, line.substring(tab + 1));
+          }
+        } catch (IllegalArgumentException e) {
+          skipped++;
+        }
+      }
+    }
+    channel.position(channel.size());
+    records = loaded;
+    if (skipped > 0) {
+      LOG.warn("Skipped {} malformed line(s) in {}", skipped, file);
+    }
+    LOG.info("Loaded {} user role assignment(s) from {} ({} records)", index.size(), file, loaded);
+    compactIfNeeded();
+  }
+
+  /** A crash mid-append can leave a partial last line; drop everything after the last newline. */
+  private void truncateTornTail() throws IOException {
+    long size = channel.size();
+    if (size == 0) return;
+    ByteBuffer one = ByteBuffer.allocate(1);
+    long end = size;
+    while (end > 0) {
+      one.clear();
+      channel.read(one, end - 1);
+      if (one.get(0) == '\n') break;
+      end--;
+    }
+    if (end < size) {
+      LOG.warn("Truncating {} torn byte(s) at the end of {}", size - end, file);
+      channel.truncate(end);
+      channel.force(true);
+    }
+  }
+
+  private void append(String lines) {
+    try {
+      ByteBuffer buf = ByteBuffer.wrap(lines.getBytes(StandardCharsets.UTF_8));
+      while (buf.hasRemaining()) {
+        channel.write(buf);
+      }
+      channel.force(false);
+      for (int i = 0; i < lines.length(); i++) {
+        if (lines.charAt(i) == '\n') records++;
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /** Also run periodically, so a log that stopped growing still gets compacted. */
+  private void compactIfNeeded() {
+    if (records >= COMPACT_MIN_RECORDS && records > 2L * index.size()) {
+      compact();
+    }
+  }
+
+  /**
+   * Rewrite the log as one line per live assignment. Runs on the writer thread, so appends queued
+   * behind it land in the new log; they can only repeat or supersede what the index held here.
+   */
+  private void compact() {
+    Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    try {
+      Map<UUID, String> live = snapshot();
+      StringBuilder sb = new StringBuilder(live.size() * 48);
+      live.forEach((subject, role) -> sb.append(subject).append('\t').append(role).append('\n'));
+      try (FileChannel out =
+          FileChannel.open(
+              tmp,
+              StandardOpenOption.CREATE,
+              StandardOpenOption.WRITE,
+              StandardOpenOption.TRUNCATE_EXISTING)) {
+        ByteBuffer buf = ByteBuffer.wrap(sb.toString().getBytes(StandardCharsets.UTF_8));
+        while (buf.hasRemaining()) {
+          out.write(buf);
+        }
+        out.force(true);
+      }
+      Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      long before = records;
+      channel.close();
+      channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      channel.position(channel.size());
+      records = live.size();
+      LOG.info("Compacted {}: {} -> {} records", file, before, records);
+    } catch (IOException e) {
+      LOG.error("Failed to compact {}", file, e);
+    }
+  }
+}
@@ -0,0 +1,215 @@
+package org.github.shatterz.sentinelcore.perm.transfer;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.github.shatterz.sentinelcore.config.ConfigManager;
+import org.github.shatterz.sentinelcore.config.CoreConfig;
+import org.github.shatterz.sentinelcore.log.SentinelCategories;
+import org.github.shatterz.sentinelcore.log.SentinelLogger;
+import org.github.shatterz.sentinelcore.perm.Perms;
+import org.github.shatterz.sentinelcore.perm.memory.MemoryPermissionService;
+import org.github.shatterz.sentinelcore.perm.memory.UserRoleStore;
+import org.slf4j.Logger;
+
+/**
+ * Writes the memory backend's roles and assignments in one of the {@link TransferFormat}s, in the
+ * shape {@link PermissionImporter} reads back. Assignments are streamed straight from the store
+ * without copying it, and the file is written next to its target and moved into place when
+ * complete. CSV carries assignments only.
+ */
+public final class PermissionExporter {
+  private static final Logger LOG = SentinelLogger.cat(SentinelCategories.PERM);
+  private static final ObjectMapper JSON = new ObjectMapper();
+
+  private PermissionExporter() {}
+
+  /**
+   * Export to {@code file}, replacing it. Run it off the server thread.
+   *
+   * @return number of records written (roles plus assignments)
+   * @throws IllegalStateException if the memory backend is not active
+   */
+  public static long run(Path file, TransferFormat format) throws IOException {
+    if (!(Perms.getService() instanceof MemoryPermissionService mem)) {
+      throw new IllegalStateException("Bulk export needs the memory permission backend");
+    }
+    CoreConfig.Permissions p = ConfigManager.get().permissions;
+    Map<String, CoreConfig.Role> roles =
+        p != null && p.roles != null ? p.roles : Map.<String, CoreConfig.Role>of();
+    UserRoleStore users = mem.users();
+
+    long start = System.nanoTime();
+    Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    long records;
+    try (OutputStream out = Files.newOutputStream(tmp)) {
+      records =
+          switch (format) {
+            case CSV -> writeCsv(out, users);
+            case NDJSON -> writeNdjson(out, roles, users);
+            case LUCKPERMS -> writeLuckPerms(out, roles, users);
+          };
+    } catch (UncheckedIOException e) {
+      Files.deleteIfExists(tmp);
+      throw e.getCause();
+    } catch (IOException e) {
+      Files.deleteIfExists(tmp);
+      throw e;
+    }
+    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    long millis = (System.nanoTime() - start) / 1_000_000;
+    LOG.info("Exported {} record(s) to {} in {} ms", records, file, millis);
+    return records;
+  }
+
+  private static Writer writer(OutputStream out) {
+    return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+  }
+
+  private static long writeCsv(OutputStream out, UserRoleStore users) throws IOException {
+    Writer w = writer(out);
+    w.write("uuid,role\n");
+    long[] count = {0};
+    users.forEach(
+        (subject, role) -> {
+          try {
+            w.write(subject + "," + role + "\n");
+            count[0]++;
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+    w.flush();
+    return count[0];
+  }
+
+  private static long writeNdjson(
+      OutputStream out, Map<String, CoreConfig.Role> roles, UserRoleStore users)
+      throws IOException {
+    Writer w = writer(out);
+    long[] count = {0};
+    for (Map.Entry<String, CoreConfig.Role> e : roles.entrySet()) {
+      ObjectNode n = JSON.createObjectNode();
+      n.put("type", "role");
+      n.put("name", e.getKey());
+      n.setAll((ObjectNode) JSON.valueToTree(e.getValue()));
+      w.write(JSON.writeValueAsString(n));
+      w.write('\n');
+      count[0]++;
+    }
+    users.forEach(
+        (subject, role) -> {
+          try {
+            ObjectNode n = JSON.createObjectNode();
+            n.put("uuid", subject.toString());
+            n.put("role", role);
+            w.write(JSON.writeValueAsString(n));
+            w.write('\n');
+            count[0]++;
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+    w.flush();
+    return count[0];
+  }
+
+  /** Same layout as LuckPerms' own export: groups with their nodes, users with a primary group. */
+  private static long writeLuckPerms(
+      OutputStream out, Map<String, CoreConfig.Role> roles, UserRoleStore users)
+      throws IOException {
+    long[] count = {0};
+    try (JsonGenerator g = JSON.createGenerator(writer(out))) {
+      g.writeStartObject();
+      g.writeObjectFieldStart("groups");
+      for (Map.Entry<String, CoreConfig.Role> e : roles.entrySet()) {
+        CoreConfig.Role role = e.getValue();
+        g.writeObjectFieldStart(e.getKey());
+        g.writeArrayFieldStart("nodes");
+        if (role.inherits != null) {
+          for (String parent : role.inherits) inheritanceNode(g, parent);
+        }
+        permissionNodes(g, role.allow, true, null, null);
+        permissionNodes(g, role.deny, false, null, null);
+        if (role.context != null) {
+          for (var c : role.context.entrySet()) {
+            if (c.getValue() == null) continue;
+            for (Map.Entry<String, CoreConfig.ContextRules> r : c.getValue().entrySet()) {
+              if (r.getValue() == null) continue;
+              permissionNodes(g, r.getValue().allow, true, c.getKey(), r.getKey());
+              permissionNodes(g, r.getValue().deny, false, c.getKey(), r.getKey());
+            }
+          }
+        }
+        g.writeEndArray();
+        g.writeEndObject();
+        count[0]++;
+      }
+      g.writeEndObject();
+
+      g.writeObjectFieldStart("users");
+      users.forEach(
+          (subject, role) -> {
+            try {
+              writeUser(g, subject, role);
+              count[0]++;
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          });
+      g.writeEndObject();
+      g.writeEndObject();
+    }
+    return count[0];
+  }
+
+  private static void writeUser(JsonGenerator g, UUID subject, String role) throws IOException {
+    g.writeObjectFieldStart(subject.toString());
+    g.writeStringField("primaryGroup", role);
+    g.writeArrayFieldStart("nodes");
+    inheritanceNode(g, role);
+    g.writeEndArray();
+    g.writeEndObject();
+  }
+
+  private static void inheritanceNode(JsonGenerator g, String group) throws IOException {
+    g.writeStartObject();
+    g.writeStringField("type", "inheritance");
+    g.writeStringField("key", "group." + group);
+    g.writeBooleanField("value", true);
+    g.writeEndObject();
+  }
+
+  private static void permissionNodes(
+      JsonGenerator g, Set<String> keys, boolean value, String ctxKey, String ctxValue)
+      throws IOException {
+    if (keys == null) return;
+    for (String key : keys) {
+      g.writeStartObject();
+      g.writeStringField("type", "permission");
+      g.writeStringField("key", key);
+      g.writeBooleanField("value", value);
+      if (ctxKey != null) {
+        g.writeObjectFieldStart("context");
+        g.writeArrayFieldStart(ctxKey);
+        g.writeString(ctxValue);
+        g.writeEndArray();
+        g.writeEndObject();
+      }
+      g.writeEndObject();
+    }
+  }
+}
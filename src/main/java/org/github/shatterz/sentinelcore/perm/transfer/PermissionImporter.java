@@ -0,0 +1,490 @@
+package org.github.shatterz.sentinelcore.perm.transfer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.zip.GZIPInputStream;
+import org.github.shatterz.sentinelcore.config.ConfigManager;
+import org.github.shatterz.sentinelcore.config.CoreConfig;
+import org.github.shatterz.sentinelcore.log.SentinelCategories;
+import org.github.shatterz.sentinelcore.log.SentinelLogger;
+import org.github.shatterz.sentinelcore.perm.PermissionBootstrap;
+import org.github.shatterz.sentinelcore.perm.PermissionChanges;
+import org.github.shatterz.sentinelcore.perm.PermissionManager;
+import org.github.shatterz.sentinelcore.perm.Perms;
+import org.github.shatterz.sentinelcore.perm.RoleContext;
+import org.github.shatterz.sentinelcore.perm.RoleContextManager;
+import org.github.shatterz.sentinelcore.perm.memory.MemoryPermissionService;
+import org.github.shatterz.sentinelcore.perm.memory.UserRoleStore;
+import org.slf4j.Logger;
+
+/**
+ * Streams role definitions and role assignments from a file into the memory backend.
+ *
+ * <p>The file is parsed record by record and never held in memory as a whole; a LuckPerms export
+ * is read with the streaming parser, one group or user object at a time. Files ending in {@code
+ * .gz} or starting with the gzip magic bytes are decompressed on the fly.
+ *
+ * <p>The file is read twice. The first pass only parses, so a truncated or malformed file fails
+ * the import before anything is written; the second pass applies it. Assignments are collected
+ * into batches of {@value #BATCH_SIZE} and handed to {@link UserRoleStore#setAll}, which appends
+ * each batch with a single sync; the next batch is parsed while the previous one is written.
+ * Role definitions are merged into the config, which is saved and reloaded once at the end, so an
+ * import of any size costs one reload rather than one per record. Only the tracked players whose
+ * assignment changed are refreshed for the assignments; the reload refreshes the holders of changed
+ * roles, and everyone only if the default role changed.
+ *
+ * <p>LuckPerms users are assigned their primary group; their own permission nodes have no
+ * equivalent in the role model and are not imported. For groups, the same subset as the LuckPerms
+ * mirror is kept: global and single-context nodes and plain inheritance, no temporary or regex
+ * nodes.
+ */
+public final class PermissionImporter {
+  private static final Logger LOG = SentinelLogger.cat(SentinelCategories.PERM);
+  public static final int BATCH_SIZE = 5000;
+  private static final int PROGRESS_EVERY = 10_000;
+  private static final ObjectMapper JSON =
+      new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  /** Called every {@value #PROGRESS_EVERY} records on the importing thread. */
+  public interface Progress {
+    void update(long records, long bytesRead, long totalBytes);
+  }
+
+  /** Outcome of an import. */
+  public static final class Result {
+    private final int roles;
+    private final long assignments;
+    private final long changed;
+    private final long skipped;
+    private final List<String> unknownRoles;
+    private final long millis;
+
+    Result(
+        int roles,
+        long assignments,
+        long changed,
+        long skipped,
+        List<String> unknownRoles,
+        long millis) {
+      this.roles = roles;
+      this.assignments = assignments;
+      this.changed = changed;
+      this.skipped = skipped;
+      this.unknownRoles = unknownRoles;
+      this.millis = millis;
+    }
+
+    /** Role definitions imported. */
+    public int roles() {
+      return roles;
+    }
+
+    /** Assignments read. */
+    public long assignments() {
+      return assignments;
+    }
+
+    /** Assignments that differed from what the store held. */
+    public long changed() {
+      return changed;
+    }
+
+    /** Malformed or unusable records. */
+    public long skipped() {
+      return skipped;
+    }
+
+    /** Assigned roles that do not exist after the import; those players get the default role. */
+    public List<String> unknownRoles() {
+      return unknownRoles;
+    }
+
+    public long millis() {
+      return millis;
+    }
+  }
+
+  private final UserRoleStore users;
+  private final Progress progress;
+  private boolean write; // false during the validating pass
+  private final Map<String, CoreConfig.Role> roles = new LinkedHashMap<>();
+  private final Map<String, Long> assignedRoles = new HashMap<>();
+  private Map<UUID, String> batch = new HashMap<>();
+  private CompletableFuture<Set<UUID>> inFlight = CompletableFuture.completedFuture(Set.of());
+  private final Set<UUID> changedSubjects = new HashSet<>(); // tracked players only
+  private CountingInputStream in;
+  private long fileBytes;
+  private long bytesBefore; // progress of earlier passes
+  private long totalBytes;
+  private long records;
+  private long assignments;
+  private long changed;
+  private long skipped;
+
+  private PermissionImporter(UserRoleStore users, Progress progress) {
+    this.users = users;
+    this.progress = progress;
+  }
+
+  /**
+   * Import {@code file}. Blocks until every assignment is durable and the config is reloaded; run
+   * it off the server thread. A file that fails to parse throws before anything is written; a
+   * failing write can still leave earlier batches applied.
+   *
+   * @throws IllegalStateException if the memory backend is not active
+   */
+  public static Result run(Path file, TransferFormat format, Progress progress) throws IOException {
+    if (!(Perms.getService() instanceof MemoryPermissionService mem)) {
+      throw new IllegalStateException("Bulk import needs the memory permission backend");
+    }
+    long start = System.nanoTime();
+    PermissionImporter importer =
+        new PermissionImporter(mem.users(), progress != null ? progress : (r, b, t) -> {});
+    return importer.importFile(file, format, start);
+  }
+
+  private Result importFile(Path file, TransferFormat format, long start) throws IOException {
+    fileBytes = Files.size(file);
+    totalBytes = 2 * fileBytes;
+    read(file, format); // validate: throws before anything is written
+    roles.clear();
+    assignedRoles.clear();
+    records = assignments = skipped = 0;
+    write = true;
+    bytesBefore = fileBytes;
+    read(file, format);
+    flushBatch();
+    collect(await(inFlight));
+    progress.update(records, totalBytes, totalBytes);
+
+    if (!changedSubjects.isEmpty()) {
+      // one refresh for all assignments; the store already serves the new roles
+      PermissionBootstrap.refresh(new PermissionChanges(Set.of(), changedSubjects, false));
+    }
+    if (!roles.isEmpty()) {
+      // the reload diffs the definitions and refreshes only the players they affect
+      saveRoles();
+    }
+
+    List<String> unknown = new ArrayList<>();
+    for (String role : assignedRoles.keySet()) {
+      if (!PermissionManager.groupExists(role)) unknown.add(role);
+    }
+    long millis = (System.nanoTime() - start) / 1_000_000;
+    LOG.info(
+        "Imported {} from {}: {} role(s), {} assignment(s) ({} changed), {} skipped in {} ms",
+        format.name().toLowerCase(Locale.ROOT),
+        file,
+        roles.size(),
+        assignments,
+        changed,
+        skipped,
+        millis);
+    if (!unknown.isEmpty()) {
+      LOG.warn("Imported assignments reference unknown role(s) {}", unknown);
+    }
+    return new Result(roles.size(), assignments, changed, skipped, List.copyOf(unknown), millis);
+  }
+
+  private void read(Path file, TransferFormat format) throws IOException {
+    try (CountingInputStream counted = new CountingInputStream(Files.newInputStream(file));
+        InputStream stream = maybeGunzip(file, counted)) {
+      in = counted;
+      switch (format) {
+        case CSV -> readCsv(reader(stream));
+        case NDJSON -> readNdjson(reader(stream));
+        case LUCKPERMS -> readLuckPerms(stream);
+      }
+    }
+  }
+
+  /** Decompress a {@code .gz} file, or one that starts with the gzip magic bytes. */
+  private static InputStream maybeGunzip(Path file, InputStream raw) throws IOException {
+    InputStream in = new BufferedInputStream(raw, 1 << 16);
+    boolean gzip = file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz");
+    if (!gzip) {
+      in.mark(2);
+      gzip = in.read() == 0x1f && in.read() == 0x8b;
+      in.reset();
+    }
+    return gzip ? new GZIPInputStream(in, 1 << 16) : in;
+  }
+
+  private static BufferedReader reader(InputStream stream) {
+    return new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8), 1 << 16);
+  }
+
+  private void readCsv(BufferedReader r) throws IOException {
+    String line;
+    boolean first = true;
+    while ((line = r.readLine()) != null) {
+      line = line.strip();
+      if (line.isEmpty() || line.startsWith("#")) continue;
+      int comma = line.indexOf(',');
+      UUID subject = comma > 0 ? parseUuid(unquote(line.substring(0, comma))) : null;
+      if (subject == null && first) {
+        first = false; // header
+        continue;
+      }
+      first = false;
+      assign(subject, comma > 0 ? unquote(line.substring(comma + 1)) : null);
+    }
+  }
+
+  private void readNdjson(BufferedReader r) throws IOException {
+    String line;
+    while ((line = r.readLine()) != null) {
+      if (line.isBlank()) continue;
+      JsonNode n;
+      try {
+        n = JSON.readTree(line);
+      } catch (JsonProcessingException e) {
+        tick();
+        skipped++;
+        continue;
+      }
+      if ("role".equals(n.path("type").asText())) {
+        CoreConfig.Role def;
+        try {
+          def = JSON.treeToValue(n, CoreConfig.Role.class);
+        } catch (JsonProcessingException e) {
+          def = null;
+        }
+        role(n.path("name").asText(null), def);
+      } else {
+        assign(parseUuid(n.path("uuid").asText(null)), n.path("role").asText(null));
+      }
+    }
+  }
+
+  private void readLuckPerms(InputStream stream) throws IOException {
+    try (JsonParser p = JSON.createParser(stream)) {
+      if (p.nextToken() != JsonToken.START_OBJECT) {
+        throw new IOException("Not a LuckPerms export: expected a JSON object");
+      }
+      while (p.nextToken() == JsonToken.FIELD_NAME) {
+        String section = p.currentName();
+        JsonToken t = p.nextToken();
+        boolean groups = "groups".equals(section);
+        if (t != JsonToken.START_OBJECT || !(groups || "users".equals(section))) {
+          p.skipChildren(); // metadata, tracks, ...
+          continue;
+        }
+        while (p.nextToken() == JsonToken.FIELD_NAME) {
+          String key = p.currentName();
+          p.nextToken();
+          // one holder at a time; the section itself is never materialized
+          JsonNode holder = JSON.readTree(p);
+          if (groups) {
+            role(key, luckPermsRole(holder));
+          } else {
+            assign(parseUuid(key), luckPermsPrimaryGroup(holder));
+          }
+        }
+      }
+    }
+  }
+
+  /** Translate an exported group's nodes, like the mirror does for live groups. */
+  private static CoreConfig.Role luckPermsRole(JsonNode group) {
+    CoreConfig.Role role = new CoreConfig.Role();
+    for (JsonNode node : group.path("nodes")) {
+      String key = node.path("key").asText(null);
+      if (key == null || key.isEmpty() || node.path("expiry").asLong(0) > 0) continue;
+      boolean value = node.path("value").asBoolean(true);
+      String type = node.path("type").asText(null);
+      JsonNode context = node.path("context");
+      boolean global = !context.isObject() || context.isEmpty();
+
+      if ("inheritance".equals(type) || (type == null && key.startsWith("group."))) {
+        if (global && value) role.inherits.add(key.substring("group.".length()));
+        continue;
+      }
+      if (type != null && !"permission".equals(type)) continue; // prefix, meta, weight, ...
+      if (type == null && isMetaKey(key)) continue;
+      if (key.regionMatches(true, 0, "r=", 0, 2)) continue;
+
+      if (global) {
+        (value ? role.allow : role.deny).add(key);
+        continue;
+      }
+      if (context.size() != 1) continue;
+      Map.Entry<String, JsonNode> c = context.fields().next();
+      JsonNode v = c.getValue();
+      String ctxValue = v.isArray() ? (v.size() == 1 ? v.get(0).asText() : null) : v.asText(null);
+      if (ctxValue == null) continue;
+      CoreConfig.ContextRules rules =
+          role.context
+              .computeIfAbsent(c.getKey().toLowerCase(Locale.ROOT), k -> new HashMap<>())
+              .computeIfAbsent(ctxValue, k -> new CoreConfig.ContextRules());
+      (value ? rules.allow : rules.deny).add(key);
+    }
+    return role;
+  }
+
+  private static boolean isMetaKey(String key) {
+    return key.startsWith("prefix.")
+        || key.startsWith("suffix.")
+        || key.startsWith("meta.")
+        || key.startsWith("weight.")
+        || key.startsWith("displayname.");
+  }
+
+  private static String luckPermsPrimaryGroup(JsonNode user) {
+    String primary = user.path("primaryGroup").asText(null);
+    if (primary != null && !primary.isEmpty()) return primary;
+    for (JsonNode node : user.path("nodes")) {
+      String key = node.path("key").asText("");
+      if (key.startsWith("group.") && node.path("value").asBoolean(true)) {
+        return key.substring("group.".length());
+      }
+    }
+    return null;
+  }
+
+  private void role(String name, CoreConfig.Role def) {
+    tick();
+    if (name == null || name.isBlank() || def == null) {
+      skipped++;
+      return;
+    }
+    roles.put(name, def);
+  }
+
+  private void assign(UUID subject, String role) throws IOException {
+    tick();
+    if (subject == null
+        || role == null
+        || role.isEmpty()
+        || role.chars().anyMatch(Character::isWhitespace)) {
+      skipped++;
+      return;
+    }
+    assignments++;
+    assignedRoles.merge(role, 1L, Long::sum);
+    if (!write) return;
+    batch.put(subject, role);
+    if (batch.size() >= BATCH_SIZE) {
+      flushBatch();
+    }
+  }
+
+  /** Hand the batch to the store once the previous one is durable: one batch in flight at most. */
+  private void flushBatch() throws IOException {
+    if (batch.isEmpty()) return;
+    Map<UUID, String> next = batch;
+    batch = new HashMap<>();
+    collect(await(inFlight));
+    inFlight = users.setAll(next);
+  }
+
+  /**
+   * Count a durable batch and keep those of its players that have a context to refresh. Contexts
+   * created later read the store, which already holds the new assignments.
+   */
+  private void collect(Set<UUID> subjects) {
+    changed += subjects.size();
+    if (subjects.isEmpty()) return;
+    for (RoleContext ctx : RoleContextManager.all()) {
+      if (subjects.contains(ctx.getUuid())) changedSubjects.add(ctx.getUuid());
+    }
+  }
+
+  private static Set<UUID> await(CompletableFuture<Set<UUID>> f) throws IOException {
+    try {
+      return f.join();
+    } catch (CompletionException e) {
+      throw new IOException(
+          "Failed to write role assignments; batches written before this one stay applied",
+          e.getCause());
+    }
+  }
+
+  /** Merge imported roles into the config file and reload it once. */
+  private void saveRoles() throws IOException {
+    CoreConfig cfg = ConfigManager.load();
+    if (cfg.permissions == null) cfg.permissions = new CoreConfig.Permissions();
+    if (cfg.permissions.roles == null) cfg.permissions.roles = new HashMap<>();
+    cfg.permissions.roles.putAll(roles);
+    ConfigManager.saveYAML(cfg);
+    if (!ConfigManager.reloadNow()) {
+      throw new IOException("Roles were saved but the config failed to reload");
+    }
+  }
+
+  private void tick() {
+    if (++records % PROGRESS_EVERY == 0) {
+      progress.update(records, bytesBefore + in.count, totalBytes);
+    }
+  }
+
+  private static UUID parseUuid(String s) {
+    if (s == null || s.length() != 36) return null;
+    try {
+      return UUID.fromString(s);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private static String unquote(String s) {
+    s = s.strip();
+    return s.length() >= 2 && s.startsWith("\"") && s.endsWith("\"")
+        ? s.substring(1, s.length() - 1)
+        : s;
+  }
+
+  /** Counts bytes consumed, for progress reports. */
+  private static final class CountingInputStream extends FilterInputStream {
+    long count;
+
+    CountingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) count++;
+      return b;
+    }
+
+    @Override
+    public int read(byte[] buf, int off, int len) throws IOException {
+      int n = super.read(buf, off, len);
+      if (n > 0) count += n;
+      return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      count += skipped;
+      return skipped;
+    }
+  }
+}
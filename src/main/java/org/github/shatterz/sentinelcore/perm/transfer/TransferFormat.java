@@ -0,0 +1,30 @@
+package org.github.shatterz.sentinelcore.perm.transfer;
+
+import java.util.Locale;
+
+/** File formats understood by {@link PermissionImporter} and {@link PermissionExporter}. */
+public enum TransferFormat {
+  /** {@code uuid,role} per line; an optional header line is skipped. Assignments only. */
+  CSV,
+  /**
+   * One JSON object per line: {@code {"uuid": ..., "role": ...}} for an assignment, or {@code
+   * {"type": "role", "name": ..., "allow": [...], "deny": [...], "inherits": [...], "context":
+   * {...}}} for a role definition.
+   */
+  NDJSON,
+  /**
+   * The JSON file written by LuckPerms' {@code /lp export}: groups become roles and users are
+   * assigned their primary group.
+   */
+  LUCKPERMS;
+
+  /** Format for a command argument ({@code csv}, {@code ndjson}, {@code luckperms}), or null. */
+  public static TransferFormat parse(String name) {
+    if (name == null) return null;
+    try {
+      return valueOf(name.toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+}
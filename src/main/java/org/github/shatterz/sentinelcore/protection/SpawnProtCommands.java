@@ -15,12 +15,16 @@ import net.minecraft.util.math.Vec3d;
 import org.github.shatterz.sentinelcore.config.ConfigManager;
 import org.github.shatterz.sentinelcore.config.CoreConfig;
 import org.github.shatterz.sentinelcore.perm.PermissionManager;
+import org.github.shatterz.sentinelcore.perm.PermissionNode;
 
 /**
  * Admin commands for spawn protection: /spawnprot
  * info|enable|disable|setcenter|setradius|setbottomy
  */
 public final class SpawnProtCommands {
+  private static final PermissionNode INFO = PermissionNode.of("sentinelcore.spawnprot.info");
+  private static final PermissionNode ADMIN = PermissionNode.of("sentinelcore.spawnprot.admin");
+
   private SpawnProtCommands() {}
 
   public static void register() {
@@ -33,7 +37,7 @@ public final class SpawnProtCommands {
         literal("spawnprot")
             .then(
                 literal("info")
-                    .requires(src -> has(src, "sentinelcore.spawnprot.info"))
+                    .requires(src -> has(src, INFO))
                     .executes(
                         ctx -> {
                           CoreConfig.SpawnProtection cfg = SpawnProtectionManager.getConfig();
@@ -71,7 +75,7 @@ public final class SpawnProtCommands {
                         }))
             .then(
                 literal("enable")
-                    .requires(src -> has(src, "sentinelcore.spawnprot.admin"))
+                    .requires(src -> has(src, ADMIN))
                     .executes(
                         ctx -> {
                           CoreConfig cfg = ConfigManager.get();
@@ -93,7 +97,7 @@ public final class SpawnProtCommands {
                         }))
             .then(
                 literal("disable")
-                    .requires(src -> has(src, "sentinelcore.spawnprot.admin"))
+                    .requires(src -> has(src, ADMIN))
                     .executes(
                         ctx -> {
                           CoreConfig cfg = ConfigManager.get();
@@ -115,7 +119,7 @@ public final class SpawnProtCommands {
                         }))
             .then(
                 literal("setcenter")
-                    .requires(src -> has(src, "sentinelcore.spawnprot.admin"))
+                    .requires(src -> has(src, ADMIN))
                     .executes(
                         ctx -> {
                           ServerPlayerEntity p = ctx.getSource().getPlayer();
@@ -147,7 +151,7 @@ public final class SpawnProtCommands {
                         }))
             .then(
                 literal("setradius")
-                    .requires(src -> has(src, "sentinelcore.spawnprot.admin"))
+                    .requires(src -> has(src, ADMIN))
                     .then(
                         argument("blocks", integer(1, 500))
                             .executes(
@@ -173,7 +177,7 @@ public final class SpawnProtCommands {
                                 })))
             .then(
                 literal("setbottomy")
-                    .requires(src -> has(src, "sentinelcore.spawnprot.admin"))
+                    .requires(src -> has(src, ADMIN))
                     .then(
                         argument("y", integer(-64, 320))
                             .executes(
@@ -200,7 +204,7 @@ public final class SpawnProtCommands {
                                 }))));
   }
 
-  private static boolean has(ServerCommandSource src, String node) {
+  private static boolean has(ServerCommandSource src, PermissionNode node) {
     if (src.getPlayer() == null) return src.hasPermissionLevel(3);
     return PermissionManager.has(src.getPlayer(), node) || src.hasPermissionLevel(3);
   }
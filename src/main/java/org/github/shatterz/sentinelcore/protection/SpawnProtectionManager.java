@@ -25,6 +25,7 @@ import org.github.shatterz.sentinelcore.config.CoreConfig;
 import org.github.shatterz.sentinelcore.log.SentinelCategories;
 import org.github.shatterz.sentinelcore.log.SentinelLogger;
 import org.github.shatterz.sentinelcore.perm.PermissionManager;
+import org.github.shatterz.sentinelcore.perm.PermissionNode;
 import org.slf4j.Logger;
 
 /**
@@ -35,6 +36,7 @@ public final class SpawnProtectionManager {
   private static final Logger LOG = SentinelLogger.cat(SentinelCategories.SPAWN);
   private static final Pattern CENTER_PATTERN =
       Pattern.compile("([^:]+:[^:]+):(-?\\d+),(-?\\d+),(-?\\d+)");
+  private static final PermissionNode BYPASS = PermissionNode.of("sentinelcore.spawnprot.bypass");
 
   private static volatile CoreConfig.SpawnProtection CFG = new CoreConfig.SpawnProtection();
   private static volatile Vec3d CENTER = new Vec3d(0, 100, 0);
@@ -221,7 +223,7 @@ public final class SpawnProtectionManager {
       return false;
     }
     if (CFG.allowPermissionBypass && player instanceof ServerPlayerEntity sp) {
-      if (PermissionManager.has(sp, "sentinelcore.spawnprot.bypass")) {
+      if (PermissionManager.has(sp, BYPASS)) {
         LOG.debug("Bypass (permission) at {} for player {}", pos, player.getName().getString());
         return false;
       }
@@ -0,0 +1,204 @@
+package org.github.shatterz.sentinelcore.perm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PermissionManagerAsyncTest {
+  private static final String NODE = "sentinelcore.test.async";
+
+  private final UUID uuid = UUID.randomUUID();
+  private final SlowBackend backend = new SlowBackend();
+  private RoleContext ctx;
+
+  @BeforeEach
+  void setUp() {
+    Perms.install(backend);
+    ctx = RoleContextManager.join(uuid);
+  }
+
+  @AfterEach
+  void tearDown() {
+    RoleContextManager.clear();
+    Perms.install(null);
+  }
+
+  @Test
+  void missesShareOnePendingCheck() {
+    for (int i = 0; i < 20; i++) {
+      assertFalse(PermissionManager.hasCachedOrDefault(uuid, NODE, false));
+    }
+    assertEquals(1, backend.checks.size());
+    assertEquals(1, ctx.decisions().pendingCount());
+
+    backend.checks.get(0).complete(true);
+
+    assertEquals(0, ctx.decisions().pendingCount());
+    assertTrue(PermissionManager.hasCachedOrDefault(uuid, NODE, false));
+    assertEquals(1, backend.checks.size());
+  }
+
+  @Test
+  void hasAsyncJoinsPendingCheck() {
+    PermissionManager.hasCachedOrDefault(uuid, NODE, false);
+    CompletableFuture<Boolean> answer = PermissionManager.hasAsync(uuid, NODE);
+    assertEquals(1, backend.checks.size());
+
+    backend.checks.get(0).complete(true);
+    assertTrue(answer.join());
+  }
+
+  @Test
+  void invalidationStartsFreshCheck() {
+    PermissionManager.hasCachedOrDefault(uuid, NODE, false);
+    ctx.invalidateDecisions();
+    PermissionManager.hasCachedOrDefault(uuid, NODE, false);
+    assertEquals(2, backend.checks.size());
+
+    // the stale answer lands last but is stored under the old stamp
+    backend.checks.get(1).complete(false);
+    backend.checks.get(0).complete(true);
+    assertEquals(0, ctx.decisions().pendingCount());
+    assertFalse(PermissionManager.hasCachedOrDefault(uuid, NODE, true));
+    assertEquals(2, backend.checks.size());
+  }
+
+  @Test
+  void failedCheckIsRetried() {
+    PermissionManager.hasCachedOrDefault(uuid, NODE, false);
+    backend.checks.get(0).completeExceptionally(new IllegalStateException("backend down"));
+
+    assertEquals(0, ctx.decisions().pendingCount());
+    PermissionManager.hasCachedOrDefault(uuid, NODE, false);
+    assertEquals(2, backend.checks.size());
+  }
+
+  @Test
+  void roleOnlyAnswersAreCachedWithoutOpBypass() {
+    ctx.setOp(true);
+    CompletableFuture<Boolean> first = PermissionManager.grantedByRolesAsync(uuid, NODE);
+    CompletableFuture<Boolean> second = PermissionManager.grantedByRolesAsync(uuid, NODE);
+    assertEquals(1, backend.checks.size());
+
+    backend.checks.get(0).complete(false);
+    assertFalse(first.join());
+    assertFalse(second.join());
+    assertFalse(PermissionManager.grantedByRolesAsync(uuid, NODE).join());
+    assertEquals(1, backend.checks.size());
+
+    // the op bypass still answers SentinelCore's own checks, and does not leak into the cache above
+    assertTrue(PermissionManager.hasAsync(uuid, NODE).join());
+    assertFalse(PermissionManager.grantedByRolesAsync(uuid, NODE).join());
+  }
+
+  @Test
+  void roleOnlyAnswersFollowInvalidation() {
+    PermissionManager.grantedByRolesAsync(uuid, NODE);
+    backend.checks.get(0).complete(false);
+
+    ctx.invalidateDecisions();
+    CompletableFuture<Boolean> answer = PermissionManager.grantedByRolesAsync(uuid, NODE);
+    assertEquals(2, backend.checks.size());
+    backend.checks.get(1).complete(true);
+    assertTrue(answer.join());
+  }
+
+  @Test
+  void cachedGroupIsReadOncePerChange() {
+    for (int i = 0; i < 20; i++) {
+      assertEquals("default", PermissionManager.getGroupCachedOrDefault(uuid));
+    }
+    assertEquals(1, backend.groupReads.size());
+
+    backend.groupReads.get(0).complete("mod");
+    assertEquals("mod", PermissionManager.getGroupCachedOrDefault(uuid));
+    assertEquals(2, backend.groupReads.size()); // the group change is a new state
+
+    backend.groupReads.get(1).complete("mod");
+    PermissionManager.getGroupCachedOrDefault(uuid);
+    assertEquals(2, backend.groupReads.size());
+  }
+
+  @Test
+  void cachedGroupOfUnknownPlayerCreatesNoContext() {
+    UUID stranger = UUID.randomUUID();
+
+    assertEquals("default", PermissionManager.getGroupCachedOrDefault(stranger));
+    assertNull(RoleContextManager.getIfPresent(stranger));
+    assertTrue(backend.groupReads.isEmpty());
+  }
+
+  /** Backend whose async answers stay pending until the test completes them. */
+  private static final class SlowBackend implements PermissionService, AsyncPermissionService {
+    final List<CompletableFuture<Boolean>> checks = new ArrayList<>();
+    final List<CompletableFuture<String>> groupReads = new ArrayList<>();
+
+    @Override
+    public CompletableFuture<Boolean> checkAsync(
+        UUID subject, String node, Map<String, String> ctx) {
+      CompletableFuture<Boolean> f = new CompletableFuture<>();
+      checks.add(f);
+      return f;
+    }
+
+    @Override
+    public CompletableFuture<String> getGroupAsync(UUID subject) {
+      CompletableFuture<String> f = new CompletableFuture<>();
+      groupReads.add(f);
+      return f;
+    }
+
+    @Override
+    public CompletableFuture<Void> setGroupAsync(UUID subject, String group) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> getInheritedGroupsAsync(UUID subject) {
+      return CompletableFuture.completedFuture(List.of("default"));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> groupExistsAsync(String group) {
+      return CompletableFuture.completedFuture(false);
+    }
+
+    @Override
+    public boolean check(UUID subject, String node, Map<String, String> ctx) {
+      throw new AssertionError("blocking check on the async path");
+    }
+
+    @Override
+    public String name() {
+      return "slow";
+    }
+
+    @Override
+    public String getGroup(UUID subject) {
+      return "default";
+    }
+
+    @Override
+    public void setGroup(UUID subject, String group) {}
+
+    @Override
+    public List<String> getInheritedGroups(UUID subject) {
+      return List.of("default");
+    }
+
+    @Override
+    public boolean groupExists(String group) {
+      return false;
+    }
+  }
+}
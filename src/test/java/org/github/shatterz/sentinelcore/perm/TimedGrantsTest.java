@@ -0,0 +1,63 @@
+package org.github.shatterz.sentinelcore.perm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class TimedGrantsTest {
+  private static final long HOUR = 3_600_000L;
+
+  private final UUID subject = UUID.randomUUID();
+
+  @AfterEach
+  void tearDown() {
+    TimedGrants.revokeNode(subject, "sentinelcore.fly");
+  }
+
+  @Test
+  void grantsMatchIgnoringCase() {
+    TimedGrants.Grant g = TimedGrants.grantNode(subject, "SentinelCore.Fly", HOUR);
+
+    assertEquals("sentinelcore.fly", g.value());
+    assertTrue(TimedGrants.hasNode(subject, "sentinelcore.fly"));
+    assertTrue(TimedGrants.hasNode(subject, "SENTINELCORE.FLY"));
+    assertFalse(TimedGrants.hasNode(UUID.randomUUID(), "sentinelcore.fly"));
+  }
+
+  @Test
+  void revokeIgnoresCase() {
+    TimedGrants.grantNode(subject, "sentinelcore.fly", HOUR);
+
+    assertTrue(TimedGrants.revokeNode(subject, "SentinelCore.FLY"));
+    assertFalse(TimedGrants.hasNode(subject, "sentinelcore.fly"));
+    assertFalse(TimedGrants.revokeNode(subject, "sentinelcore.fly"));
+  }
+
+  @Test
+  void regrantReplacesDeadline() {
+    int before = TimedGrants.pending();
+    TimedGrants.grantNode(subject, "sentinelcore.fly", HOUR);
+    TimedGrants.grantNode(subject, "SENTINELCORE.FLY", 2 * HOUR);
+
+    assertEquals(before + 1, TimedGrants.pending());
+    assertEquals(1, TimedGrants.grantsOf(subject).size());
+  }
+
+  @Test
+  void wildcardsAreRejected() {
+    assertNull(TimedGrants.normalizeNode("sentinelcore.*"));
+    assertNull(TimedGrants.normalizeNode("*"));
+    assertNull(TimedGrants.normalizeNode("a b"));
+    assertNull(TimedGrants.normalizeNode(""));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> TimedGrants.grantNode(subject, "sentinelcore.*", HOUR));
+    assertFalse(TimedGrants.hasNode(subject, "sentinelcore.*"));
+  }
+}
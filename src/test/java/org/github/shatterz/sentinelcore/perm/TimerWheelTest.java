@@ -0,0 +1,132 @@
+package org.github.shatterz.sentinelcore.perm;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class TimerWheelTest {
+  // an unaligned start in the range the grants use (epoch millis / 50)
+  private static final long START = 35_000_000_123L;
+
+  private final TimerWheel<Long> wheel = new TimerWheel<>(START);
+  private final Map<Long, Long> fired = new HashMap<>(); // deadline -> tick it fired on
+
+  private void advance(long tick) {
+    wheel.advance(tick, d -> fired.put(d, wheel.now()));
+  }
+
+  /** Tick the timer for {@code deadline} fired on, or -1 if it did not fire. */
+  private long firedAt(long deadline) {
+    return fired.getOrDefault(deadline, -1L);
+  }
+
+  private void schedule(long delay) {
+    wheel.schedule(START + delay, START + delay);
+  }
+
+  @Test
+  void firesOnDeadlineNotBefore() {
+    schedule(5);
+    advance(START + 4);
+    assertTrue(fired.isEmpty());
+    assertEquals(1, wheel.size());
+
+    advance(START + 5);
+    assertEquals(START + 5, firedAt(START + 5));
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  void pastDeadlineFiresOnNextTick() {
+    wheel.schedule(START - 100, START - 100);
+    advance(START + 1);
+    assertEquals(START + 1, firedAt(START - 100));
+  }
+
+  @Test
+  void everyLevelFiresExactlyOnTime() {
+    long[] delays = {1, 2, 63, 64, 65, 127, 4095, 4096, 4097, 262_143, 262_144, 300_000};
+    for (long d : delays) schedule(d);
+    assertEquals(delays.length, wheel.size());
+
+    for (long t = START + 1; t <= START + 300_000; t++) {
+      advance(t);
+    }
+    for (long d : delays) {
+      assertEquals(START + d, firedAt(START + d), "delay " + d);
+    }
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  void longJumpFiresEverythingDueInOrder() {
+    List<Long> order = new ArrayList<>();
+    for (long d : new long[] {70_000, 3, 5_000, 64, 1_000_000}) schedule(d);
+
+    wheel.advance(START + 500_000, order::add);
+
+    assertEquals(List.of(START + 3, START + 64, START + 5_000, START + 70_000), order);
+    assertEquals(START + 500_000, wheel.now());
+    assertEquals(1, wheel.size());
+  }
+
+  @Test
+  void cancelledTimerNeverFires() {
+    TimerWheel.Timer<Long> t = wheel.schedule(START + 10, START + 10);
+    schedule(20);
+
+    assertTrue(wheel.cancel(t));
+    assertFalse(wheel.cancel(t));
+    assertEquals(1, wheel.size());
+
+    advance(START + 100);
+    assertFalse(fired.containsKey(START + 10));
+    assertTrue(fired.containsKey(START + 20));
+  }
+
+  @Test
+  void cancelAfterCascadingToLowerLevel() {
+    TimerWheel.Timer<Long> t = wheel.schedule(START + 5_000, START + 5_000);
+    advance(START + 4_990); // now filed in level 0
+    assertTrue(wheel.cancel(t));
+
+    advance(START + 6_000);
+    assertTrue(fired.isEmpty());
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  void deadlineBeyondWheelRangeFiresOnTime() {
+    long far = (1L << 30) + 12_345; // past the five levels
+    schedule(far);
+    schedule(1L << 29);
+
+    advance(START + (1L << 29) - 1);
+    assertTrue(fired.isEmpty());
+    advance(START + (1L << 29));
+    assertEquals(START + (1L << 29), firedAt(START + (1L << 29)));
+
+    advance(START + far - 1);
+    assertFalse(fired.containsKey(START + far));
+    assertEquals(1, wheel.size());
+    advance(START + far);
+    assertEquals(START + far, firedAt(START + far));
+    assertEquals(0, wheel.size());
+  }
+
+  @Test
+  void idleAdvanceSkipsAhead() {
+    advance(START + 1_000_000);
+    assertEquals(START + 1_000_000, wheel.now());
+
+    schedule(1_000_001);
+    advance(START + 1_000_001);
+    assertEquals(START + 1_000_001, firedAt(START + 1_000_001));
+  }
+}
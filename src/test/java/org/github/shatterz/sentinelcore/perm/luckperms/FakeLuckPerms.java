@@ -0,0 +1,205 @@
+package org.github.shatterz.sentinelcore.perm.luckperms;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import net.luckperms.api.LuckPerms;
+import net.luckperms.api.context.Context;
+import net.luckperms.api.context.ImmutableContextSet;
+import net.luckperms.api.event.EventBus;
+import net.luckperms.api.event.EventSubscription;
+import net.luckperms.api.event.LuckPermsEvent;
+import net.luckperms.api.model.group.Group;
+import net.luckperms.api.model.group.GroupManager;
+import net.luckperms.api.model.user.User;
+import net.luckperms.api.model.user.UserManager;
+import net.luckperms.api.node.Node;
+import net.luckperms.api.node.types.InheritanceNode;
+import net.luckperms.api.node.types.PermissionNode;
+
+/**
+ * In-process LuckPerms for driving {@link LuckPermsMirrorSync}: groups and users with plain node
+ * lists, and an event bus that delivers {@link #post posted} events synchronously. Only the parts
+ * of the API the sync uses are implemented, as dynamic proxies; anything else throws.
+ */
+final class FakeLuckPerms {
+  private final Map<String, Group> groups = new LinkedHashMap<>();
+  private final Map<UUID, User> users = new LinkedHashMap<>();
+  private final Map<Group, List<Node>> groupNodes = new HashMap<>();
+  private final Map<User, List<Node>> userNodes = new HashMap<>();
+  private final Map<User, String> primaryGroups = new HashMap<>();
+  private final Map<Class<?>, List<Consumer<Object>>> handlers = new HashMap<>();
+
+  private final LuckPerms api =
+      proxy(
+          LuckPerms.class,
+          Map.of(
+              "getGroupManager",
+              a ->
+                  proxy(
+                      GroupManager.class,
+                      Map.of("getLoadedGroups", b -> Set.copyOf(groups.values()))),
+              "getUserManager",
+              a ->
+                  proxy(
+                      UserManager.class,
+                      Map.of("getLoadedUsers", b -> Set.copyOf(users.values()))),
+              "getEventBus",
+              a -> proxy(EventBus.class, Map.of("subscribe", this::subscribe))));
+
+  LuckPerms api() {
+    return api;
+  }
+
+  /** Create (or replace) a loaded group. */
+  Group group(String name, Node... nodes) {
+    List<Node> list = new ArrayList<>(List.of(nodes));
+    Group group =
+        proxy(
+            Group.class,
+            Map.of(
+                "getName", a -> name,
+                "getFriendlyName", a -> name,
+                "getNodes", a -> List.copyOf(list)));
+    groups.put(name, group);
+    groupNodes.put(group, list);
+    return group;
+  }
+
+  /** Create (or replace) a loaded user. */
+  User user(UUID uuid, String primaryGroup, Node... nodes) {
+    List<Node> list = new ArrayList<>(List.of(nodes));
+    User[] self = new User[1];
+    self[0] =
+        proxy(
+            User.class,
+            Map.of(
+                "getUniqueId", a -> uuid,
+                "getFriendlyName", a -> uuid.toString(),
+                "getPrimaryGroup", a -> primaryGroups.get(self[0]),
+                "getNodes", a -> List.copyOf(list)));
+    users.put(uuid, self[0]);
+    userNodes.put(self[0], list);
+    primaryGroups.put(self[0], primaryGroup);
+    return self[0];
+  }
+
+  void removeGroup(String name) {
+    groupNodes.remove(groups.remove(name));
+  }
+
+  void removeUser(UUID uuid) {
+    userNodes.remove(users.remove(uuid));
+  }
+
+  /** Mutable node list of a group or user created here. */
+  List<Node> nodes(Object holder) {
+    List<Node> list = holder instanceof Group g ? groupNodes.get(g) : userNodes.get((User) holder);
+    if (list == null) throw new IllegalArgumentException("Unknown holder " + holder);
+    return list;
+  }
+
+  void setPrimaryGroup(User user, String group) {
+    primaryGroups.put(user, group);
+  }
+
+  /** Deliver an event whose getters return the given values, e.g. {@code "getUser", user}. */
+  <T extends LuckPermsEvent> void post(Class<T> type, Object... getters) {
+    Map<String, Handler> methods = new HashMap<>();
+    for (int i = 0; i < getters.length; i += 2) {
+      Object value = getters[i + 1];
+      methods.put((String) getters[i], a -> value);
+    }
+    T event = proxy(type, methods);
+    for (Consumer<Object> h : handlers.getOrDefault(type, List.of())) {
+      h.accept(event);
+    }
+  }
+
+  static Node permission(String key) {
+    return permission(key, true);
+  }
+
+  static Node permission(String key, boolean value) {
+    return node(PermissionNode.class, "getPermission", key, value, contexts(Map.of()));
+  }
+
+  static Node permission(String key, String contextKey, String contextValue) {
+    Object contexts = contexts(Map.of(contextKey, contextValue));
+    return node(PermissionNode.class, "getPermission", key, true, contexts);
+  }
+
+  static Node inheritance(String group) {
+    return node(InheritanceNode.class, "getGroupName", group, true, contexts(Map.of()));
+  }
+
+  private Object subscribe(Object[] args) {
+    Class<?> type = (Class<?>) args[0];
+    @SuppressWarnings("unchecked")
+    Consumer<Object> handler = (Consumer<Object>) args[1];
+    handlers.computeIfAbsent(type, k -> new ArrayList<>()).add(handler);
+    return proxy(
+        EventSubscription.class,
+        Map.of(
+            "close", a -> handlers.get(type).remove(handler),
+            "isActive", a -> handlers.get(type).contains(handler),
+            "getEventClass", a -> type,
+            "getHandler", a -> handler));
+  }
+
+  private static Node node(
+      Class<? extends Node> type, String getter, String value, boolean granted, Object contexts) {
+    return proxy(
+        type,
+        Map.of(
+            getter, a -> value,
+            "getKey", a -> value,
+            "getValue", a -> granted,
+            "hasExpired", a -> false,
+            "getContexts", a -> contexts));
+  }
+
+  private static ImmutableContextSet contexts(Map<String, String> values) {
+    Set<Context> set = new LinkedHashSet<>();
+    values.forEach(
+        (k, v) -> set.add(proxy(Context.class, Map.of("getKey", a -> k, "getValue", a -> v))));
+    return proxy(
+        ImmutableContextSet.class,
+        Map.of(
+            "isEmpty", a -> set.isEmpty(),
+            "size", a -> set.size(),
+            "iterator", a -> set.iterator()));
+  }
+
+  private interface Handler {
+    Object invoke(Object[] args);
+  }
+
+  /** Proxy answering {@code methods} by name; identity equality, anything else unsupported. */
+  private static <T> T proxy(Class<T> type, Map<String, Handler> methods) {
+    Object p =
+        Proxy.newProxyInstance(
+            FakeLuckPerms.class.getClassLoader(),
+            new Class<?>[] {type},
+            (self, method, args) -> {
+              Handler h = methods.get(method.getName());
+              if (h != null) return h.invoke(args);
+              return switch (method.getName()) {
+                case "equals" -> self == args[0];
+                case "hashCode" -> System.identityHashCode(self);
+                case "toString" -> type.getSimpleName() + "@" + System.identityHashCode(self);
+                default ->
+                    throw new UnsupportedOperationException(
+                        type.getSimpleName() + "." + method.getName());
+              };
+            });
+    return type.cast(p);
+  }
+}
@@ -0,0 +1,185 @@
+package org.github.shatterz.sentinelcore.perm.luckperms;
+
+import static org.github.shatterz.sentinelcore.perm.luckperms.FakeLuckPerms.inheritance;
+import static org.github.shatterz.sentinelcore.perm.luckperms.FakeLuckPerms.permission;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import net.luckperms.api.event.group.GroupCreateEvent;
+import net.luckperms.api.event.group.GroupDataRecalculateEvent;
+import net.luckperms.api.event.group.GroupDeleteEvent;
+import net.luckperms.api.event.node.NodeAddEvent;
+import net.luckperms.api.event.user.UserDataRecalculateEvent;
+import net.luckperms.api.event.user.UserLoadEvent;
+import net.luckperms.api.event.user.UserUnloadEvent;
+import net.luckperms.api.model.group.Group;
+import net.luckperms.api.model.user.User;
+import org.github.shatterz.sentinelcore.perm.RoleContext;
+import org.github.shatterz.sentinelcore.perm.RoleContextManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LuckPermsMirrorSyncTest {
+  private static final Map<String, String> NO_CONTEXT = Map.of();
+  private static final UUID ADMIN = UUID.fromString("00000000-0000-0000-0000-000000000001");
+  private static final UUID PLAYER = UUID.fromString("00000000-0000-0000-0000-000000000002");
+  private static final UUID LATE = UUID.fromString("00000000-0000-0000-0000-000000000003");
+
+  private final FakeLuckPerms lp = new FakeLuckPerms();
+  private final LuckPermsMirror mirror = new LuckPermsMirror();
+  private final LuckPermsMirrorSync sync = new LuckPermsMirrorSync(lp.api(), mirror);
+  private Group mod;
+  private User player;
+
+  @BeforeEach
+  void setUp() {
+    lp.group("default", permission("chat.use"));
+    mod = lp.group("mod", permission("mod.kick"), inheritance("default"));
+    lp.group("admin", permission("admin.ban"), inheritance("mod"));
+    lp.user(ADMIN, "admin", inheritance("admin"));
+    player = lp.user(PLAYER, "default", inheritance("default"), permission("home.set"));
+    sync.subscribe();
+    sync.loadAll();
+  }
+
+  @AfterEach
+  void tearDown() {
+    RoleContextManager.clear();
+  }
+
+  @Test
+  void loadCopiesGroupsAndUsers() {
+    assertTrue(mirror.groupExists("admin"));
+    assertEquals("admin", mirror.getGroup(ADMIN));
+    assertEquals(List.of("admin", "mod", "default"), mirror.getInheritedGroups(ADMIN));
+    assertTrue(mirror.check(ADMIN, "mod.kick", NO_CONTEXT));
+    assertTrue(mirror.check(PLAYER, "home.set", NO_CONTEXT));
+    assertFalse(mirror.check(PLAYER, "mod.kick", NO_CONTEXT));
+    assertFalse(mirror.hasUser(LATE));
+  }
+
+  @Test
+  void groupInheritanceFollowsClosure() {
+    assertTrue(mirror.groupInherits("admin", "default"));
+    assertTrue(mirror.groupInherits("mod", "mod"));
+    assertFalse(mirror.groupInherits("default", "admin"));
+    assertFalse(mirror.groupInherits("user/" + ADMIN, "admin"));
+    assertFalse(mirror.groupInherits("admin", "missing"));
+  }
+
+  @Test
+  void userLoadAddsUser() {
+    User late = lp.user(LATE, "mod", inheritance("mod"));
+    lp.post(UserLoadEvent.class, "getUser", late);
+
+    assertTrue(mirror.hasUser(LATE));
+    assertEquals("mod", mirror.getGroup(LATE));
+    assertTrue(mirror.check(LATE, "mod.kick", NO_CONTEXT));
+  }
+
+  @Test
+  void userNodeChangeInvalidatesOnlyThatUser() {
+    RoleContext admin = RoleContextManager.get(ADMIN);
+    RoleContext other = RoleContextManager.get(PLAYER);
+    long adminStamp = admin.decisionStamp();
+    long otherStamp = other.decisionStamp();
+
+    lp.nodes(player).add(permission("warp.use", "world", "minecraft:overworld"));
+    lp.post(NodeAddEvent.class, "getTarget", player);
+
+    assertTrue(mirror.check(PLAYER, "warp.use", Map.of("world", "minecraft:overworld")));
+    assertFalse(mirror.check(PLAYER, "warp.use", NO_CONTEXT));
+    assertNotEquals(otherStamp, other.decisionStamp());
+    assertEquals(adminStamp, admin.decisionStamp());
+  }
+
+  @Test
+  void primaryGroupChangeUpdatesContext() {
+    RoleContext ctx = RoleContextManager.get(PLAYER);
+    ctx.setGroup("default");
+
+    lp.setPrimaryGroup(player, "mod");
+    lp.nodes(player).add(inheritance("mod"));
+    lp.post(UserDataRecalculateEvent.class, "getUser", player);
+
+    assertEquals("mod", ctx.getGroup());
+    assertTrue(mirror.inGroup(PLAYER, "mod"));
+  }
+
+  @Test
+  void unchangedUserKeepsCache() {
+    RoleContext ctx = RoleContextManager.get(PLAYER);
+    long stamp = ctx.decisionStamp();
+
+    lp.post(UserDataRecalculateEvent.class, "getUser", player);
+
+    assertEquals(stamp, ctx.decisionStamp());
+  }
+
+  @Test
+  void userUnloadForgetsUser() {
+    RoleContext ctx = RoleContextManager.get(PLAYER);
+    long stamp = ctx.decisionStamp();
+
+    lp.removeUser(PLAYER);
+    lp.post(UserUnloadEvent.class, "getUser", player);
+
+    assertFalse(mirror.hasUser(PLAYER));
+    assertNotEquals(stamp, ctx.decisionStamp());
+  }
+
+  @Test
+  void groupChangeInvalidatesMembersOnly() {
+    RoleContext admin = RoleContextManager.get(ADMIN);
+    RoleContext other = RoleContextManager.get(PLAYER);
+    long adminStamp = admin.decisionStamp();
+    long otherStamp = other.decisionStamp();
+
+    lp.nodes(mod).add(permission("mod.mute"));
+    lp.post(GroupDataRecalculateEvent.class, "getGroup", mod);
+
+    assertTrue(mirror.check(ADMIN, "mod.mute", NO_CONTEXT));
+    assertNotEquals(adminStamp, admin.decisionStamp()); // admin inherits mod
+    assertEquals(otherStamp, other.decisionStamp());
+  }
+
+  @Test
+  void groupCreateInvalidatesNewMembers() {
+    // LuckPerms loads a user whose parent group does not exist yet
+    lp.post(UserLoadEvent.class, "getUser", lp.user(LATE, "vip", inheritance("vip")));
+    RoleContext late = RoleContextManager.get(LATE);
+    RoleContext other = RoleContextManager.get(PLAYER);
+    long lateStamp = late.decisionStamp();
+    long otherStamp = other.decisionStamp();
+    assertFalse(mirror.inGroup(LATE, "vip"));
+
+    Group vip = lp.group("vip", permission("vip.fly"));
+    lp.post(GroupCreateEvent.class, "getGroup", vip);
+
+    assertTrue(mirror.check(LATE, "vip.fly", NO_CONTEXT));
+    assertNotEquals(lateStamp, late.decisionStamp());
+    assertEquals(otherStamp, other.decisionStamp());
+  }
+
+  @Test
+  void groupDeleteInvalidatesFormerMembers() {
+    RoleContext admin = RoleContextManager.get(ADMIN);
+    RoleContext other = RoleContextManager.get(PLAYER);
+    long adminStamp = admin.decisionStamp();
+    long otherStamp = other.decisionStamp();
+
+    lp.removeGroup("mod");
+    lp.post(GroupDeleteEvent.class, "getGroupName", "mod");
+
+    assertFalse(mirror.groupExists("mod"));
+    assertFalse(mirror.check(ADMIN, "mod.kick", NO_CONTEXT));
+    assertNotEquals(adminStamp, admin.decisionStamp());
+    assertEquals(otherStamp, other.decisionStamp());
+  }
+}